@@ -1,19 +1,26 @@
 package org.andstatus.app.data;
 
+import android.database.Cursor;
 import android.net.Uri;
 
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.database.table.ActivityTable;
+import org.andstatus.app.database.table.TimelineItemTable;
+import org.andstatus.app.timeline.meta.TimelineType;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
 import org.andstatus.app.util.SharedPreferencesUtil;
+import org.andstatus.app.util.TriState;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
 import java.net.MalformedURLException;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -94,6 +101,60 @@ public class DataPrunerTest {
         assertEquals(0, dp.pruneAttachments());
     }
 
+    @Test
+    public void testPruneTimelineItems() {
+        String homeItems = "SELECT " + TimelineItemTable.ACTIVITY_ID + " FROM " + TimelineItemTable.TABLE_NAME
+                + " WHERE " + TimelineItemTable.TIMELINE_TYPE + "='" + TimelineType.HOME.save() + "'";
+        String homeActivities = "SELECT " + ActivityTable._ID + " FROM " + ActivityTable.TABLE_NAME
+                + " WHERE " + ActivityTable.SUBSCRIBED + "=" + TriState.TRUE.id
+                + " AND " + ActivityTable.UPDATED_DATE + ">0";
+        assertFalse("No home items", MyQuery.getLongs(homeItems).isEmpty());
+        assertEquals("Home items are maintained", MyQuery.getLongs(homeActivities), MyQuery.getLongs(homeItems));
+
+        MyContextHolder.get().getDatabase().execSQL("INSERT INTO " + TimelineItemTable.TABLE_NAME + " ("
+                + TimelineItemTable.TIMELINE_TYPE + ", " + TimelineItemTable.ACTOR_ID + ", "
+                + TimelineItemTable.ACTIVITY_ID + ", " + TimelineItemTable.ITEM_DATE + ")"
+                + " VALUES ('" + TimelineType.HOME.save() + "', 1, -555, 1)");
+        DataPruner dp = new DataPruner(MyContextHolder.get());
+        assertEquals(1, dp.pruneTimelineItems());
+        assertEquals(0, dp.pruneTimelineItems());
+    }
+
+    @Test
+    public void testTimelineItemsMatchActivities() {
+        Set<String> interactions = assertItemsMatchActivities(TimelineType.INTERACTIONS,
+                ActivityTable.NOTIFIED_ACTOR_ID, ActivityTable.INTERACTED);
+        Set<String> notifications = assertItemsMatchActivities(TimelineType.NOTIFICATIONS,
+                ActivityTable.NOTIFIED_ACTOR_ID, ActivityTable.NOTIFIED);
+        assertFalse("No interactions and notifications", interactions.isEmpty() && notifications.isEmpty());
+        assertItemsMatchActivities(TimelineType.HOME, ActivityTable.ACCOUNT_ID, ActivityTable.SUBSCRIBED);
+    }
+
+    /** @return "actorId:activityId" pairs of the timeline */
+    private Set<String> assertItemsMatchActivities(TimelineType timelineType, String actorIdColumn,
+                                                   String flagColumn) {
+        Set<String> items = getPairs("SELECT " + TimelineItemTable.ACTOR_ID + ", " + TimelineItemTable.ACTIVITY_ID
+                + " FROM " + TimelineItemTable.TABLE_NAME
+                + " WHERE " + TimelineItemTable.TIMELINE_TYPE + "='" + timelineType.save() + "'");
+        Set<String> activities = getPairs("SELECT " + actorIdColumn + ", " + ActivityTable._ID
+                + " FROM " + ActivityTable.TABLE_NAME
+                + " WHERE " + flagColumn + "=" + TriState.TRUE.id
+                + " AND " + actorIdColumn + "!=0"
+                + " AND " + ActivityTable.UPDATED_DATE + ">0");
+        assertEquals("Items of " + timelineType, activities, items);
+        return items;
+    }
+
+    private Set<String> getPairs(String sql) {
+        Set<String> pairs = new HashSet<>();
+        try (Cursor cursor = MyContextHolder.get().getDatabase().rawQuery(sql, null)) {
+            while (cursor.moveToNext()) {
+                pairs.add(cursor.getLong(0) + ":" + cursor.getLong(1));
+            }
+        }
+        return pairs;
+    }
+
     private void clearPrunedDate() {
         SharedPreferencesUtil.putLong(MyPreferences.KEY_DATA_PRUNED_DATE, 0);
     }
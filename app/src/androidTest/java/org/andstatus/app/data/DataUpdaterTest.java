@@ -18,6 +18,7 @@ package org.andstatus.app.data;
 
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.support.test.InstrumentationRegistry;
 
@@ -45,13 +46,20 @@ import org.andstatus.app.service.CommandEnum;
 import org.andstatus.app.service.CommandExecutionContext;
 import org.andstatus.app.timeline.meta.Timeline;
 import org.andstatus.app.timeline.meta.TimelineType;
+import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.SelectionAndArgs;
+import org.andstatus.app.util.StopWatch;
 import org.andstatus.app.util.TriState;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.andstatus.app.context.DemoData.demoData;
 import static org.junit.Assert.assertEquals;
@@ -599,4 +607,63 @@ public class DataUpdaterTest {
         long noteId = di.onActivity(activity2).getNote().noteId;
         assertTrue("Note added", noteId != 0);
     }
+
+    @Test
+    public void testPageOfActivitiesInOneTransaction() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        Actor accountActor = ma.getActor();
+        final int pageSize = 20;
+        List<AActivity> page = newPageOfNotes(accountActor, "page1", pageSize);
+        List<AActivity> oneByOne = newPageOfNotes(accountActor, "oneByOne", pageSize);
+
+        DataUpdater di = new DataUpdater(new CommandExecutionContext(
+                CommandData.newAccountCommand(CommandEnum.EMPTY, ma)));
+        StopWatch stopWatch = StopWatch.createStarted();
+        di.onActivities(page);
+        long pageMs = stopWatch.getTimeAndRestart();
+        for (AActivity activity : oneByOne) {
+            di.onActivity(activity, false);
+        }
+        long oneByOneMs = stopWatch.getTime();
+        MyLog.i(this, pageSize + " notes stored in " + pageMs + " ms as a page, in "
+                + oneByOneMs + " ms one by one");
+
+        for (AActivity activity : page) {
+            assertNotEquals("Note stored " + activity, 0, MyQuery.oidToId(OidEnum.NOTE_OID,
+                    accountActor.origin.getId(), activity.getNote().oid));
+            assertNotEquals("Activity stored " + activity, 0, activity.getId());
+        }
+    }
+
+    @Test
+    public void testReadersAreNotBlockedByTransaction() throws Exception {
+        SQLiteDatabase db = myContext.getDatabase();
+        assertTrue("Write-Ahead Logging", db.isWriteAheadLoggingEnabled());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        db.beginTransactionNonExclusive();
+        try {
+            db.execSQL("UPDATE " + NoteTable.TABLE_NAME + " SET " + NoteTable.VIA + "=" + NoteTable.VIA
+                    + " WHERE " + NoteTable._ID + "=" + MyQuery.getLongs("SELECT MAX(" + NoteTable._ID
+                    + ") FROM " + NoteTable.TABLE_NAME).iterator().next());
+            Future<Long> count = executor.submit(() ->
+                    MyQuery.getLongs("SELECT COUNT(*) FROM " + NoteTable.TABLE_NAME).iterator().next());
+            assertTrue("Notes counted while the transaction is open", count.get(5, TimeUnit.SECONDS) > 0);
+        } finally {
+            db.endTransaction();
+            executor.shutdownNow();
+        }
+    }
+
+    private List<AActivity> newPageOfNotes(Actor accountActor, String prefix, int size) {
+        List<AActivity> activities = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            String noteOid = "https://identi.ca/api/comment/" + prefix + demoData.testRunUid + "-" + i;
+            AActivity activity = AActivity.newPartialNote(accountActor, noteOid, System.currentTimeMillis(),
+                    DownloadStatus.LOADED);
+            activity.setActor(accountActor);
+            activity.getNote().setBody("Note " + i + " of the " + prefix + " at run " + demoData.testRunUid);
+            activities.add(activity);
+        }
+        return activities;
+    }
 }
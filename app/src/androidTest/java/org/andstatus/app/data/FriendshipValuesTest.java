@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.database.table.FriendshipTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class FriendshipValuesTest {
+    private static final long FRIEND_ID = 9000001;
+    private static final long FOLLOWER1 = 9000011;
+    private static final long FOLLOWER2 = 9000012;
+    private static final long FOLLOWER3 = 9000013;
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initializeWithData(this);
+        deleteTestRows();
+    }
+
+    @After
+    public void tearDown() {
+        deleteTestRows();
+    }
+
+    private static void deleteTestRows() {
+        MyContextHolder.get().getDatabase().delete(FriendshipTable.TABLE_NAME,
+                FriendshipTable.ACTOR_ID + ">=" + FRIEND_ID + " OR " + FriendshipTable.FRIEND_ID + ">=" + FRIEND_ID,
+                null);
+    }
+
+    @Test
+    public void testSetFollowersAndFriends() {
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        FriendshipValues.setFollowers(db, FRIEND_ID, Arrays.asList(FOLLOWER1, FOLLOWER2, 0L));
+        assertEquals(new HashSet<>(Arrays.asList(FOLLOWER1, FOLLOWER2)), MyQuery.getFollowersIds(FRIEND_ID));
+
+        FriendshipValues.setFollowers(db, FRIEND_ID, Arrays.asList(FOLLOWER2, FOLLOWER3));
+        assertEquals(new HashSet<>(Arrays.asList(FOLLOWER2, FOLLOWER3)), MyQuery.getFollowersIds(FRIEND_ID));
+        assertEquals(Collections.emptySet(), MyQuery.getFriendsIds(FOLLOWER1));
+
+        FriendshipValues.setFriends(db, FOLLOWER1, Collections.singletonList(FRIEND_ID));
+        assertEquals(Collections.singleton(FRIEND_ID), MyQuery.getFriendsIds(FOLLOWER1));
+        assertEquals(new HashSet<>(Arrays.asList(FOLLOWER1, FOLLOWER2, FOLLOWER3)),
+                MyQuery.getFollowersIds(FRIEND_ID));
+
+        FriendshipValues.setFriends(db, FOLLOWER1, Collections.emptyList());
+        assertEquals(Collections.emptySet(), MyQuery.getFriendsIds(FOLLOWER1));
+        assertEquals(new HashSet<>(Arrays.asList(FOLLOWER2, FOLLOWER3)), MyQuery.getFollowersIds(FRIEND_ID));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.andstatus.app.data;
+
+import org.andstatus.app.context.MyContext;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.database.table.ActivityTable;
+import org.andstatus.app.database.table.FriendshipTable;
+import org.andstatus.app.database.table.NoteTable;
+import org.andstatus.app.net.social.ActivityType;
+import org.andstatus.app.net.social.Actor;
+import org.andstatus.app.origin.Origin;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class MyQueryTest {
+    private MyContext myContext;
+
+    @Before
+    public void setUp() {
+        TestSuite.initializeWithData(this);
+        myContext = MyContextHolder.get();
+    }
+
+    @Test
+    public void testBatchOfRebloggers() {
+        Set<Long> noteIds = MyQuery.getLongs("SELECT DISTINCT " + ActivityTable.NOTE_ID
+                + " FROM " + ActivityTable.TABLE_NAME
+                + " WHERE " + ActivityTable.ACTIVITY_TYPE + "=" + ActivityType.ANNOUNCE.id);
+        assertFalse("No reblogged notes", noteIds.isEmpty());
+        noteIds.addAll(MyQuery.getLongs("SELECT " + NoteTable._ID + " FROM " + NoteTable.TABLE_NAME
+                + " ORDER BY " + NoteTable._ID + " LIMIT 10"));
+
+        Map<Long, List<Actor>> rebloggers = MyQuery.getRebloggers(myContext, noteIds);
+        for (long noteId : noteIds) {
+            Origin origin = myContext.origins().fromId(MyQuery.noteIdToLongColumnValue(NoteTable.ORIGIN_ID, noteId));
+            List<Actor> expected = MyQuery.getRebloggers(myContext.getDatabase(), origin, noteId);
+            assertEquals("Rebloggers of noteId=" + noteId, actorIds(expected),
+                    actorIds(rebloggers.getOrDefault(noteId, Collections.emptyList())));
+        }
+    }
+
+    private static List<Long> actorIds(List<Actor> actors) {
+        return actors.stream().map(actor -> actor.actorId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testBatchOfMyFollowers() {
+        Set<Long> friendIds = MyQuery.getLongs("SELECT DISTINCT " + FriendshipTable.FRIEND_ID
+                + " FROM " + FriendshipTable.TABLE_NAME);
+        assertFalse("No friends", friendIds.isEmpty());
+        friendIds.addAll(myContext.users().myActors.keySet());
+
+        Map<Long, Set<Long>> followers = MyQuery.getMyFollowersOf(myContext, friendIds);
+        for (long friendId : friendIds) {
+            Set<Long> expected = new HashSet<>();
+            for (long myActorId : myContext.users().myActors.keySet()) {
+                if (MyQuery.isFollowing(myActorId, friendId)) {
+                    expected.add(myActorId);
+                }
+            }
+            assertEquals("My followers of actorId=" + friendId, expected,
+                    followers.getOrDefault(friendId, Collections.emptySet()));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import org.andstatus.app.context.TestSuite;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class OidCacheTest {
+    private static final long ORIGIN_ID = 9876543;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+        OidCache.clear();
+    }
+
+    private long get(OidCache.Key key, String value, long idInDatabase) {
+        return OidCache.get(key, ORIGIN_ID, value, () -> {
+            loads.incrementAndGet();
+            return idInDatabase;
+        });
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        long hits = OidCache.getHits();
+        long misses = OidCache.getMisses();
+        assertEquals(11, get(OidCache.Key.NOTE_OID, "note1", 11));
+        assertEquals(11, get(OidCache.Key.NOTE_OID, "note1", 11));
+        assertEquals("Second get is a hit", 1, loads.get());
+        assertEquals(hits + 1, OidCache.getHits());
+        assertEquals(misses + 1, OidCache.getMisses());
+
+        assertEquals(0, get(OidCache.Key.NOTE_OID, "absent", 0));
+        assertEquals(0, get(OidCache.Key.NOTE_OID, "absent", 0));
+        assertEquals("Not found ids are not cached", 3, loads.get());
+        assertEquals(1, OidCache.size());
+    }
+
+    @Test
+    public void testInvalidation() {
+        get(OidCache.Key.ACTOR_OID, "actor1", 21);
+        get(OidCache.Key.USERNAME, "username1", 21);
+        get(OidCache.Key.NOTE_OID, "note21", 21);
+        assertEquals(3, OidCache.size());
+
+        OidCache.onSaved(OidCache.Key.ACTOR_OID, ORIGIN_ID, "actor1new", 21);
+        assertEquals("The old oid is replaced", 3, OidCache.size());
+        loads.set(0);
+        assertEquals(21, get(OidCache.Key.ACTOR_OID, "actor1new", 22));
+        assertEquals(0, loads.get());
+
+        OidCache.onChanged(OidCache.Key.ACTOR_OID, ORIGIN_ID, 21);
+        assertEquals("Keys of the actor are removed, the note of the same id stays", 1, OidCache.size());
+        assertEquals(21, get(OidCache.Key.NOTE_OID, "note21", 22));
+
+        get(OidCache.Key.ACTIVITY_OID, "activity31", 31);
+        get(OidCache.Key.ACTIVITY_OID, "activity32", 32);
+        OidCache.onDeleted(OidCache.Key.ACTIVITY_OID, 31);
+        assertEquals(2, OidCache.size());
+        OidCache.clear(OidCache.Key.ACTIVITY_OID);
+        assertEquals(1, OidCache.size());
+        assertEquals(21, get(OidCache.Key.NOTE_OID, "note21", 22));
+    }
+
+    @Test
+    public void testEviction() {
+        long evictions = OidCache.getEvictions();
+        for (int i = 1; i <= OidCache.MAX_ENTRIES_PER_ORIGIN + 1; i++) {
+            get(OidCache.Key.NOTE_OID, "note" + i, i);
+        }
+        assertEquals(OidCache.MAX_ENTRIES_PER_ORIGIN, OidCache.size());
+        assertEquals(evictions + 1, OidCache.getEvictions());
+
+        loads.set(0);
+        get(OidCache.Key.NOTE_OID, "note1", 1);
+        assertEquals("The eldest entry was evicted", 1, loads.get());
+
+        assertEquals("note2 is evicted now", evictions + 2, OidCache.getEvictions());
+
+        OidCache.onChanged(OidCache.Key.NOTE_OID, ORIGIN_ID, 2);
+        assertEquals("The evicted entry is not in the reverse map", OidCache.MAX_ENTRIES_PER_ORIGIN, OidCache.size());
+        OidCache.onChanged(OidCache.Key.NOTE_OID, ORIGIN_ID, 3);
+        assertEquals(OidCache.MAX_ENTRIES_PER_ORIGIN - 1, OidCache.size());
+    }
+}
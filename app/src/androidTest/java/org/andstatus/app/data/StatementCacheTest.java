@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.andstatus.app.context.TestSuite;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StatementCacheTest {
+    private static final String SQL = "SELECT name FROM item WHERE _id=?";
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+        StatementCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        StatementCache.clear();
+    }
+
+    @Test
+    public void testRebindAndReopen() {
+        SQLiteDatabase db1 = newDatabase("one");
+        assertEquals("one1", StatementCache.simpleQueryForString(db1, SQL, 1L));
+        assertEquals("Arguments are bound anew", "one2", StatementCache.simpleQueryForString(db1, SQL, 2L));
+        assertEquals(1, StatementCache.size());
+
+        StatementCache.clear();
+        assertEquals(0, StatementCache.size());
+        assertEquals("Compiled again after clear", "one1", StatementCache.simpleQueryForString(db1, SQL, 1L));
+        db1.close();
+
+        SQLiteDatabase db2 = newDatabase("two");
+        assertEquals("Compiled for the reopened database", "two2",
+                StatementCache.simpleQueryForString(db2, SQL, 2L));
+        assertEquals(1, StatementCache.size());
+        db2.close();
+    }
+
+    private static SQLiteDatabase newDatabase(String prefix) {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE item (_id INTEGER PRIMARY KEY, name TEXT)");
+        db.execSQL("INSERT INTO item (_id, name) VALUES (1, '" + prefix + "1'), (2, '" + prefix + "2')");
+        return db;
+    }
+}
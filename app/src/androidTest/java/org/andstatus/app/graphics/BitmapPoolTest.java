@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.graphics;
+
+import android.graphics.Bitmap;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BitmapPoolTest {
+    private static final int MAX_SIDE = 800;
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+    }
+
+    @Test
+    public void testReuseBudgetAndTrim() {
+        BitmapPool pool = new BitmapPool(MyContextHolder.get().context().getResources().getDisplayMetrics(),
+                MAX_SIDE, MAX_SIDE, 2L * MAX_SIDE * MAX_SIDE * ImageCache.BYTES_PER_PIXEL);
+        assertEquals(0, pool.getAllocatedBytes());
+
+        Bitmap small = pool.get(90, 90);
+        assertNotNull(small);
+        assertEquals("Rounded up to a size class", 100, small.getWidth());
+        Bitmap large = pool.get(MAX_SIDE, MAX_SIDE);
+        assertNotNull(large);
+        assertNull("Budget exhausted " + pool.getAllocatedBytes(), pool.get(MAX_SIDE, MAX_SIDE));
+
+        pool.release(large);
+        pool.release(small);
+        assertEquals(2, pool.getFreeCount());
+        assertSame("The smallest fitting bitmap", small, pool.get(50, 60));
+        assertSame(large, pool.get(150, 10));
+
+        pool.release(small);
+        pool.release(large);
+        long allocated = pool.getAllocatedBytes();
+        pool.trim(1);
+        assertEquals(1, pool.getFreeCount());
+        assertFalse("Dropped bitmap may still be drawn", large.isRecycled());
+        assertTrue(pool.getAllocatedBytes() < allocated);
+        assertSame("The largest bitmap is dropped first", small, pool.get(50, 60));
+        pool.release(small);
+        pool.trim(0);
+        assertEquals(0, pool.getAllocatedBytes());
+        assertFalse(small.isRecycled());
+    }
+}
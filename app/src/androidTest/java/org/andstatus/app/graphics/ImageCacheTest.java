@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.os.MemoryTrimmer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ImageCacheTest {
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+    }
+
+    @Test
+    public void testSetCapacityPercent() {
+        ImageCache cache = new ImageCache(MyContextHolder.get().context(), CacheName.AVATAR, 100, 10);
+        long budget = cache.bitmapPool.getBudgetBytes();
+        assertEquals(10, cache.maxSize());
+
+        cache.setCapacityPercent(50);
+        assertEquals(5, cache.maxSize());
+        long halfBudget = cache.bitmapPool.getBudgetBytes();
+        assertTrue("Budget " + halfBudget + " of " + budget, halfBudget < budget);
+
+        cache.setCapacityPercent(0);
+        assertEquals("At least one image is kept", 1, cache.maxSize());
+        assertTrue(cache.bitmapPool.getBudgetBytes() < halfBudget);
+
+        cache.setCapacityPercent(MemoryTrimmer.PERCENT_TO_KEEP_ALL);
+        assertEquals(10, cache.maxSize());
+        assertEquals(budget, cache.bitmapPool.getBudgetBytes());
+    }
+
+    @Test
+    public void testDrawEvictedImage() {
+        ImageCache cache = new ImageCache(MyContextHolder.get().context(), CacheName.AVATAR, 100, 10);
+        Drawable drawable = putImage(cache, "/evicted.png").getDrawable();
+        cache.evictAll();
+        assertEquals(0, cache.bitmapPool.getAllocatedBytes());
+        assertDrawn(drawable);
+
+        Drawable drawable2 = putImage(cache, "/evicted2.png").getDrawable();
+        cache.remove("/evicted2.png");
+        assertEquals(1, cache.bitmapPool.getFreeCount());
+        int count = 0;
+        while (cache.bitmapPool.get(100, 100) != null) {
+            count++;
+        }
+        assertEquals("The free bitmap is dropped for the full budget", 0, cache.bitmapPool.getFreeCount());
+        assertEquals(10 + ImageCache.FREE_BITMAPS_TO_KEEP, count);
+        assertDrawn(drawable2);
+    }
+
+    @Test
+    public void testTrimWhileImageIsShown() {
+        ImageCache cache = new ImageCache(MyContextHolder.get().context(), CacheName.ATTACHED_IMAGE, 100, 10);
+        Drawable shown = putImage(cache, "/shown.png").getDrawable();
+        putImage(cache, "/second.png");
+        putImage(cache, "/third.png");
+        putImage(cache, "/fourth.png");
+
+        cache.setCapacityPercent(0);
+        assertEquals(1, cache.size());
+        assertEquals("Free bitmaps are dropped", ImageCache.FREE_BITMAPS_TO_KEEP, cache.bitmapPool.getFreeCount());
+        assertDrawn(shown);
+        cache.setCapacityPercent(MemoryTrimmer.PERCENT_TO_KEEP_ALL);
+        assertDrawn(shown);
+    }
+
+    static CachedImage putImage(ImageCache cache, String path) {
+        Bitmap bitmap = cache.bitmapPool.get(50, 50);
+        assertNotNull(bitmap);
+        CachedImage image = new CachedImage(1, bitmap, new Rect(0, 0, 50, 50));
+        cache.put(path, image);
+        return image;
+    }
+
+    /** Drawing a recycled bitmap throws "Canvas: trying to use a recycled bitmap" */
+    static void assertDrawn(Drawable drawable) {
+        assertFalse("Bitmap is recycled", ((BitmapSubsetDrawable) drawable).getBitmap().isRecycled());
+        Bitmap target = Bitmap.createBitmap(50, 50, CachedImage.BITMAP_CONFIG);
+        drawable.setBounds(0, 0, 50, 50);
+        drawable.draw(new Canvas(target));
+        target.recycle();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Rect;
+
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.data.DownloadFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import static org.andstatus.app.context.DemoData.demoData;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ImageThumbnailsTest {
+    private static final int MAX_SIZE = 40;
+    private static final long WRITE_TIMEOUT_MS = 5000;
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+    }
+
+    @Test
+    public void testThumbnailHitMissAndInvalidation() throws Exception {
+        DownloadFile downloadFile = newDownloadFile("thumbnailTest" + demoData.testRunUid + ".jpg");
+        String path = downloadFile.getFilePath();
+        ImageThumbnails thumbnails = new ImageThumbnails(CacheName.ATTACHED_IMAGE, 320);
+        assertNull("Miss before saving", thumbnails.load(this, path, MAX_SIZE, MAX_SIZE, false));
+
+        Bitmap bitmap = Bitmap.createBitmap(MAX_SIZE * 2, MAX_SIZE * 2, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.BLUE);
+        thumbnails.saveLater(this, path, MAX_SIZE, MAX_SIZE, false, bitmap, new Rect(0, 0, MAX_SIZE, MAX_SIZE / 2),
+                false);
+        // The bitmap is a copy, so the original may be recycled at once
+        bitmap.recycle();
+        ImageThumbnails.awaitWritten(WRITE_TIMEOUT_MS);
+
+        Bitmap thumbnail = thumbnails.load(this, path, MAX_SIZE, MAX_SIZE, false);
+        assertNotNull("Hit after saving", thumbnail);
+        assertEquals(MAX_SIZE, thumbnail.getWidth());
+        assertEquals(MAX_SIZE / 2, thumbnail.getHeight());
+        thumbnail.recycle();
+        assertNull("Miss for other bounds", thumbnails.load(this, path, MAX_SIZE / 2, MAX_SIZE / 2, false));
+        assertNull("Miss for rounded", thumbnails.load(this, path, MAX_SIZE, MAX_SIZE, true));
+
+        assertTrue(downloadFile.delete());
+        assertNull("Miss after the file was deleted", thumbnails.load(this, path, MAX_SIZE, MAX_SIZE, false));
+
+        newDownloadFile(downloadFile.getFilename());
+        assertNull("Miss for a new download with the same name",
+                thumbnails.load(this, path, MAX_SIZE, MAX_SIZE, false));
+        assertTrue(new DownloadFile(downloadFile.getFilename()).delete());
+    }
+
+    @Test
+    public void testThumbnailOfDeletedFileIsNotWritten() throws Exception {
+        DownloadFile downloadFile = newDownloadFile("thumbnailTest2" + demoData.testRunUid + ".jpg");
+        String path = downloadFile.getFilePath();
+        ImageThumbnails thumbnails = new ImageThumbnails(CacheName.AVATAR, 320);
+        assertTrue(downloadFile.delete());
+
+        Bitmap bitmap = Bitmap.createBitmap(MAX_SIZE, MAX_SIZE, Bitmap.Config.ARGB_8888);
+        thumbnails.saveLater(this, path, MAX_SIZE, MAX_SIZE, true, bitmap, new Rect(0, 0, MAX_SIZE, MAX_SIZE), true);
+        bitmap.recycle();
+        ImageThumbnails.awaitWritten(WRITE_TIMEOUT_MS);
+
+        newDownloadFile(downloadFile.getFilename());
+        assertNull(thumbnails.load(this, path, MAX_SIZE, MAX_SIZE, true));
+        assertTrue(new DownloadFile(downloadFile.getFilename()).delete());
+    }
+
+    private static DownloadFile newDownloadFile(String filename) throws Exception {
+        DownloadFile downloadFile = new DownloadFile(filename);
+        Bitmap bitmap = Bitmap.createBitmap(MAX_SIZE * 2, MAX_SIZE * 2, Bitmap.Config.RGB_565);
+        try (OutputStream out = new FileOutputStream(downloadFile.getFile())) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        } finally {
+            bitmap.recycle();
+        }
+        assertTrue(downloadFile.existsNow());
+        return downloadFile;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.http;
+
+import org.andstatus.app.context.TestSuite;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HostKeepAliveTest {
+    private final Map<String, String> headers = new HashMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+        HostKeepAlive.clear();
+    }
+
+    @After
+    public void tearDown() {
+        HostKeepAlive.clear();
+    }
+
+    @Test
+    public void testDisabledAndProbedAgain() throws Exception {
+        URL url = new URL("https://keepalive.example.com/api/statuses/home_timeline.json");
+        for (int i = 0; i < HostKeepAlive.MIN_RESPONSES_TO_DECIDE; i++) {
+            assertTrue("Response " + i, HostKeepAlive.isEnabled(url));
+            HostKeepAlive.onResponse(url, name -> "close");
+        }
+        assertFalse("Closes dominate", HostKeepAlive.isEnabled(url));
+
+        for (int i = 0; i < HostKeepAlive.PROBE_AFTER_REQUESTS; i++) {
+            HostKeepAlive.setRequestHeader(url, headers::put);
+            assertEquals("Request " + i, "close", headers.get("Connection"));
+            HostKeepAlive.onResponse(url, name -> "close");
+        }
+        HostKeepAlive.setRequestHeader(url, headers::put);
+        assertEquals("Probed again", "keep-alive", headers.get("Connection"));
+
+        for (int i = 0; i < HostKeepAlive.RESPONSES_WINDOW; i++) {
+            HostKeepAlive.onResponse(url, name -> "keep-alive");
+        }
+        assertTrue(HostKeepAlive.isEnabled(url));
+    }
+
+    @Test
+    public void testOlderResponsesCountLess() throws Exception {
+        URL url = new URL("https://window.example.com/api/statuses/home_timeline.json");
+        for (int i = 0; i < HostKeepAlive.RESPONSES_WINDOW; i++) {
+            final String connection = i % 3 == 0 ? "close" : "keep-alive";
+            HostKeepAlive.onResponse(url, name -> connection);
+        }
+        assertTrue(HostKeepAlive.isEnabled(url));
+        for (int i = 0; i < HostKeepAlive.RESPONSES_WINDOW / 2; i++) {
+            HostKeepAlive.onResponse(url, name -> "close");
+        }
+        assertFalse("Recent closes dominate", HostKeepAlive.isEnabled(url));
+    }
+}
@@ -21,6 +21,14 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -49,4 +57,49 @@ public class HttpReadResultTest {
         assertEquals(true, result.hasFormParams());
         assertTrue(result.toString(), result.toString().contains("posted"));
     }
+
+    @Test
+    public void testDecodeCompressedResponse() throws IOException, ConnectionException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("{\"text\":\"Repeated text ").append(i).append("\"},");
+        }
+        final String in = "[" + builder.toString() + "{}]";
+        byte[] bytes = in.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(bytes);
+        }
+        assertDecoded(in, gzipped.toByteArray(), "gzip");
+
+        for (boolean nowrap : new boolean[]{false, true}) {
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+            try (DeflaterOutputStream out = new DeflaterOutputStream(deflated,
+                    new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap))) {
+                out.write(bytes);
+            }
+            assertDecoded(in, deflated.toByteArray(), "deflate");
+        }
+
+        HttpReadResult result = new HttpReadResult("https://example.com/identity");
+        result.readStream(HttpConnectionUtils.decode(new ByteArrayInputStream(bytes), null, result));
+        assertEquals(in, result.strResponse);
+        assertEquals(bytes.length, result.getBytesOnWire());
+        assertEquals(bytes.length, result.getBytesDecoded());
+
+        result = new HttpReadResult("https://example.com/empty");
+        result.readStream(HttpConnectionUtils.decode(new ByteArrayInputStream(new byte[0]), "gzip", result));
+        assertEquals("", result.strResponse);
+    }
+
+    private static void assertDecoded(String expected, byte[] encoded, String contentEncoding)
+            throws IOException, ConnectionException {
+        HttpReadResult result = new HttpReadResult("https://example.com/" + contentEncoding);
+        result.readStream(HttpConnectionUtils.decode(new ByteArrayInputStream(encoded), contentEncoding, result));
+        assertEquals(expected, result.strResponse);
+        assertEquals(result.toString(), encoded.length, result.getBytesOnWire());
+        assertEquals(result.toString(), expected.length(), result.getBytesDecoded());
+        assertTrue(result.toString(), result.getBytesOnWire() < result.getBytesDecoded());
+    }
 }
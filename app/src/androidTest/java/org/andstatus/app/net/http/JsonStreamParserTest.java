@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.http;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+
+import org.andstatus.app.util.MyLog;
+import org.andstatus.app.util.RawResourceUtils;
+import org.andstatus.app.util.StopWatch;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonStreamParserTest {
+
+    @Test
+    public void testParseTimelines() throws IOException, JSONException {
+        assertSameAsTree(org.andstatus.app.tests.R.raw.twitter_home_timeline, "items");
+        assertSameAsTree(org.andstatus.app.tests.R.raw.mastodon_home_timeline, "items");
+        assertSameAsTree(org.andstatus.app.tests.R.raw.pumpio_actor_t131t_inbox, "items");
+    }
+
+    /**
+     * Parses the response both ways, logging parse time and peak heap above the heap before parsing.
+     * The live heap is sampled, while the response string and the tree are both reachable
+     * for the tree, and as each item is consumed for the stream. Items are compared as they arrive,
+     * so they are not kept
+     */
+    private void assertSameAsTree(int resourceId, String arrayKey) throws IOException, JSONException {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        String name = context.getResources().getResourceEntryName(resourceId);
+
+        List<String> expected = new ArrayList<>();
+        PeakHeap treePeak = new PeakHeap();
+        StopWatch stopWatch = StopWatch.createStarted();
+        HttpReadResult result = new HttpReadResult("https://example.com/" + name);
+        result.strResponse = RawResourceUtils.getString(context, resourceId);
+        JSONArray jArr = result.getJsonArray(arrayKey);
+        long treeTime = stopWatch.getTime();
+        treePeak.sample();
+        for (int index = 0; index < jArr.length(); index++) {
+            expected.add(jArr.getJSONObject(index).toString());
+        }
+        result = null;
+        jArr = null;
+
+        PeakHeap streamPeak = new PeakHeap();
+        stopWatch = StopWatch.createStarted();
+        AtomicInteger index = new AtomicInteger();
+        int count;
+        try (Reader reader = new InputStreamReader(context.getResources().openRawResource(resourceId),
+                StandardCharsets.UTF_8)) {
+            count = JsonStreamParser.parseArray(reader, arrayKey, item -> {
+                streamPeak.sample();
+                int itemIndex = index.getAndIncrement();
+                assertTrue(name + " extra item " + itemIndex, itemIndex < expected.size());
+                assertEquals(name + " item " + itemIndex, expected.get(itemIndex), item.toString());
+            });
+        } catch (ConnectionException e) {
+            throw new AssertionError(e);
+        }
+        long streamTime = stopWatch.getTime();
+        MyLog.i(this, name + ": " + count + " items; tree: " + treeTime + "ms, peak heap " + treePeak.get() / 1024
+                + "KB; stream: " + streamTime + "ms (with heap sampling), peak heap " + streamPeak.get() / 1024 + "KB");
+
+        assertTrue(name, count > 0);
+        assertEquals(name, expected.size(), count);
+    }
+
+    private static class PeakHeap {
+        private final long before = usedHeap();
+        private long peak = before;
+
+        void sample() {
+            peak = Math.max(peak, usedHeap());
+        }
+
+        long get() {
+            return peak - before;
+        }
+    }
+
+    @Test
+    public void testArrayInObject() throws IOException, JSONException, ConnectionException {
+        List<JSONObject> items = new ArrayList<>();
+        String in = "{\"search_metadata\":{\"count\":2},\"other\":[{\"a\":1}],\"statuses\":[{\"id\":12345678901234,"
+                + "\"text\":\"Text1\",\"n\":null,\"f\":1.5,\"b\":true},{\"id\":2}]}";
+        assertEquals(2, JsonStreamParser.parseArray(new StringReader(in), "statuses", items::add));
+        assertEquals(new JSONObject(in).getJSONArray("statuses").toString(), new JSONArray(items).toString());
+
+        items.clear();
+        assertEquals(1, JsonStreamParser.parseArray(new StringReader(in), "items", items::add));
+        assertEquals(1, items.get(0).getInt("a"));
+    }
+
+    @Test
+    public void testEmptyResponse() throws IOException, JSONException, ConnectionException {
+        List<JSONObject> items = new ArrayList<>();
+        assertEquals(0, JsonStreamParser.parseArray(new StringReader(""), "items", items::add));
+        assertEquals(0, JsonStreamParser.parseArray(new StringReader(" \n"), "items", items::add));
+        assertTrue(items.isEmpty());
+
+        HttpReadResult result = new HttpReadResult("https://example.com/empty")
+                .setItemConsumer("items", items::add);
+        result.readStream(new ByteArrayInputStream(new byte[0]));
+        assertTrue("Empty response is streamed", result.isStreamed());
+        assertTrue(items.isEmpty());
+    }
+}
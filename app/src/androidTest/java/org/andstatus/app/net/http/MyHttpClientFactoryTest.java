@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.http;
+
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.util.SharedPreferencesUtil;
+import org.andstatus.app.util.UrlUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import cz.msebera.android.httpclient.HttpResponse;
+import cz.msebera.android.httpclient.client.HttpClient;
+import cz.msebera.android.httpclient.client.methods.HttpGet;
+import cz.msebera.android.httpclient.client.methods.HttpPost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MyHttpClientFactoryTest {
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+    }
+
+    @After
+    public void tearDown() {
+        MyHttpClientFactory.forget();
+    }
+
+    @Test
+    public void testClientIsSharedPerOriginHost() {
+        URL url1 = UrlUtils.buildUrl("one.example.com", true);
+        URL url2 = UrlUtils.buildUrl("two.example.com", true);
+        HttpClient client1 = MyHttpClientFactory.getHttpClient(SslModeEnum.SECURE, url1);
+        assertSame(client1, MyHttpClientFactory.getHttpClient(SslModeEnum.SECURE, url1));
+        assertNotSame(client1, MyHttpClientFactory.getHttpClient(SslModeEnum.INSECURE, url1));
+        assertNotSame(client1, MyHttpClientFactory.getHttpClient(SslModeEnum.SECURE, url2));
+
+        MyHttpClientFactory.forget();
+        assertNotSame(client1, MyHttpClientFactory.getHttpClient(SslModeEnum.SECURE, url1));
+    }
+
+    @Test
+    public void testRebuiltClientIsRetiredWhenIdle() {
+        URL url1 = UrlUtils.buildUrl("one.example.com", true);
+        String perRoute = Integer.toString(MyPreferences.getHttpMaxConnectionsPerRoute());
+        HttpClient client1 = MyHttpClientFactory.getHttpClient(SslModeEnum.SECURE, url1);
+        try {
+            SharedPreferencesUtil.putString(MyPreferences.KEY_HTTP_MAX_CONNECTIONS_PER_ROUTE, "1");
+            assertNotSame(client1, MyHttpClientFactory.getHttpClient(SslModeEnum.SECURE, url1));
+            assertEquals("Idle client should be closed at once", 0, MyHttpClientFactory.getRetiredCount());
+        } finally {
+            SharedPreferencesUtil.putString(MyPreferences.KEY_HTTP_MAX_CONNECTIONS_PER_ROUTE, perRoute);
+        }
+    }
+
+    @Test
+    public void testRedirectDoesNotLeakConnection() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"))) {
+            final String origin = "http://127.0.0.1:" + serverSocket.getLocalPort();
+            Thread server = new Thread(() -> serve(serverSocket, origin));
+            server.setDaemon(true);
+            server.start();
+
+            final URL originUrl = new URL(origin);
+            HttpConnectionApacheCommon common = new HttpConnectionApacheCommon(new HttpConnectionApacheSpecific() {
+                @Override
+                public void httpApachePostRequest(HttpPost httpPost, HttpReadResult result) {
+                    // Not used
+                }
+
+                @Override
+                public HttpResponse httpApacheGetResponse(HttpGet httpGet) throws IOException {
+                    return MyHttpClientFactory.getHttpClient(SslModeEnum.SECURE, originUrl).execute(httpGet);
+                }
+
+                @Override
+                public void httpApacheSetAuthorization(HttpGet httpGet) {
+                    // Not used
+                }
+
+                @Override
+                public SslModeEnum getSslMode() {
+                    return SslModeEnum.SECURE;
+                }
+            });
+            // More redirects, than there are pooled connections, would fail if connections leaked
+            for (int i = 0; i <= MyPreferences.getHttpMaxConnectionsTotal(); i++) {
+                HttpReadResult result = new HttpReadResult(origin + "/redirect");
+                common.getRequest(result);
+                assertEquals(result.toString(), null, result.e1);
+                assertTrue(result.toString(), result.redirected);
+                assertEquals(result.toString(), "ok", result.strResponse);
+                assertEquals(result.toString(), 0,
+                        MyHttpClientFactory.getLeasedConnections(SslModeEnum.SECURE, originUrl));
+            }
+        }
+    }
+
+    /** Keep-alive server, which redirects "/redirect" to "/target" */
+    private static void serve(ServerSocket serverSocket, String origin) {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream out = socket.getOutputStream();
+                String requestLine;
+                while ((requestLine = reader.readLine()) != null) {
+                    String line;
+                    do {
+                        line = reader.readLine();
+                    } while (line != null && !line.isEmpty());
+                    String body = requestLine.contains("/redirect") ? "moved" : "ok";
+                    String head = requestLine.contains("/redirect")
+                            ? "HTTP/1.1 302 Found\r\nLocation: " + origin + "/target\r\n"
+                            : "HTTP/1.1 200 OK\r\n";
+                    out.write((head + "Content-Length: " + body.length() + "\r\n\r\n" + body)
+                            .getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+}
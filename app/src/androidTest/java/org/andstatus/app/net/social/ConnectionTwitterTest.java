@@ -42,6 +42,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -208,4 +209,20 @@ public class ConnectionTwitterTest {
         assertNotEquals("Activity was not added " + activity, 0, activity.getId());
     }
 
+    @Test
+    public void testLookupActors() throws IOException {
+        assertTrue(connection.isApiSupported(ApiRoutineEnum.LOOKUP_ACTORS));
+        String jso = RawResourceUtils.getString(InstrumentationRegistry.getInstrumentation().getContext(),
+                org.andstatus.app.tests.R.raw.verify_credentials_twitter);
+        httpConnection.setResponse("[" + jso + "]");
+
+        List<Actor> actors = connection.lookupActors(Arrays.asList("144771645", "12345"));
+        assertEquals("Actors not found are skipped " + actors, 1, actors.size());
+        assertEquals("Oid", "144771645", actors.get(0).oid);
+        assertEquals("Requests " + httpConnection.getResults(), 1, httpConnection.getResults().size());
+        String url = httpConnection.getResults().get(0).getUrl();
+        assertTrue(url, url.contains("users/lookup.json"));
+        assertTrue(url, url.contains("144771645"));
+        assertTrue(url, url.contains("12345"));
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.social;
+
+import org.andstatus.app.context.TestSuite;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimitBudgetTest {
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+    }
+
+    @Test
+    public void testForegroundReserve() {
+        RateLimitBudget budget = RateLimitBudget.of("budgetTest" + System.currentTimeMillis() + "@Twitter",
+                "statuses");
+        assertTrue(budget.isUnknown());
+        assertTrue(budget.isAvailable(false));
+
+        RateLimitStatus status = new RateLimitStatus();
+        status.limit = 15;
+        status.remaining = 5;
+        status.resetAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10);
+        budget.onStatus(status);
+        assertFalse(budget.isUnknown());
+        assertTrue(budget.toString(), budget.isAvailable(false));
+
+        for (int i = 0; i < 3; i++) {
+            budget.onRequest(new RateLimitStatus());
+        }
+        assertEquals(budget.toString(), 2, budget.getRemaining());
+        assertFalse(budget.toString(), budget.isAvailable(false));
+        assertTrue(budget.toString(), budget.isAvailable(true));
+        assertEquals(budget.toString(), status.resetAt, budget.getAvailableAt());
+        assertTrue(RateLimitBudget.summary(), RateLimitBudget.summary().contains("statuses: 2/15"));
+    }
+
+    @Test
+    public void testFamiliesAreLimitedSeparately() {
+        String accountName = "budgetFamilyTest" + System.currentTimeMillis() + "@Twitter";
+        RateLimitBudget statuses = RateLimitBudget.of(accountName, "statuses");
+        RateLimitBudget followers = RateLimitBudget.of(accountName, "followers");
+        RateLimitStatus status = new RateLimitStatus();
+        status.limit = 15;
+        status.remaining = 0;
+        status.resetAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10);
+        statuses.onStatus(status);
+        assertFalse(statuses.toString(), statuses.isAvailable(false));
+        assertTrue(followers.toString(), followers.isAvailable(false));
+    }
+
+    @Test
+    public void testFamilyOf() {
+        assertEquals("statuses", RateLimitBudget.familyOf("https://api.twitter.com/1.1/statuses/home_timeline.json"));
+        assertEquals("statuses", RateLimitBudget.familyOf("statuses/home_timeline.json?count=20"));
+        assertEquals("followers", RateLimitBudget.familyOf("https://api.twitter.com/1.1/followers/ids.json"));
+        assertEquals("timelines", RateLimitBudget.familyOf("https://mastodon.social/api/v1/timelines/home"));
+        assertEquals("direct_messages", RateLimitBudget.familyOf("direct_messages.json"));
+        assertEquals("", RateLimitBudget.familyOf("https://example.com"));
+        assertEquals("", RateLimitBudget.familyOf(null));
+    }
+}
@@ -16,9 +16,19 @@
 
 package org.andstatus.app.note;
 
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+
+import org.andstatus.app.database.table.NoteSearchTable;
+import org.andstatus.app.database.table.NoteTable;
 import org.andstatus.app.util.MyHtml;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -59,6 +69,57 @@ public class KeywordsFilterTest {
         assertNotMatchAll(query, body2);
     }
 
+    @Test
+    public void testMatchQuery() {
+        KeywordsFilter filter = new KeywordsFilter("word, \"Deleted notice\" #Tag pref*");
+        assertEquals("\"word*\" \"deleted* notice*\" \"tag* #tag*\" \"pref*\"", filter.getMatchQuery());
+        assertTrue(filter.getSqlNoteIds(), filter.getSqlNoteIds().contains(" MATCH ?"));
+        assertEquals(2, filter.prependSqlSelectionArgs(new String[]{"arg"}).length);
+
+        filter = new KeywordsFilter("word 日本語");
+        assertEquals("\"word*\"", filter.getMatchQuery());
+        String[] args = filter.prependSqlSelectionArgs(new String[]{});
+        assertEquals(2, args.length);
+        assertEquals("%,日本語,%", args[0]);
+        assertEquals("\"word*\"", args[1]);
+    }
+
+    @Test
+    public void testPrefixSearch() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE " + NoteTable.TABLE_NAME + " (" + BaseColumns._ID + " INTEGER PRIMARY KEY, "
+                + NoteTable.BODY_TO_SEARCH + " TEXT)");
+        NoteSearchTable.create(db);
+        String[] bodies = {"Looking for the deleted notice", "AndStatus is an Open Source app",
+                "Notices about andstatus 日本語"};
+        for (int ind = 0; ind < bodies.length; ind++) {
+            ContentValues values = new ContentValues();
+            values.put(BaseColumns._ID, ind + 1);
+            values.put(NoteTable.BODY_TO_SEARCH, MyHtml.getBodyToSearch(bodies[ind]));
+            db.insert(NoteTable.TABLE_NAME, null, values);
+        }
+
+        assertEquals("[2, 3]", foundIds(db, "andst").toString());
+        assertEquals("[1, 3]", foundIds(db, "notice").toString());
+        assertEquals("Words of a phrase are prefixes", "[1]", foundIds(db, "\"del not\"").toString());
+        assertEquals("All keywords", "[3]", foundIds(db, "andstatus notic").toString());
+        assertEquals("Not indexable keyword", "[3]", foundIds(db, "notic 日本語").toString());
+        assertEquals("[]", foundIds(db, "deleted notes").toString());
+        db.close();
+    }
+
+    private static List<Long> foundIds(SQLiteDatabase db, String query) {
+        KeywordsFilter filter = new KeywordsFilter(query);
+        List<Long> ids = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(filter.getSqlNoteIds() + " ORDER BY 1",
+                filter.prependSqlSelectionArgs(new String[]{}))) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
     private void assertOneQueryToKeywords(String query, String... keywords) {
         int size = keywords.length;
         KeywordsFilter filter1 = new KeywordsFilter(query);
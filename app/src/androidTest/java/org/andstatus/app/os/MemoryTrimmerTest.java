@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.os;
+
+import android.content.ComponentCallbacks2;
+
+import org.andstatus.app.context.TestSuite;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryTrimmerTest {
+    private final List<Integer> notified = new ArrayList<>();
+    private final MemoryTrimmer.Trimmable trimmable = notified::add;
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+        MemoryTrimmer.register(trimmable);
+    }
+
+    @After
+    public void tearDown() {
+        MemoryTrimmer.restore();
+    }
+
+    @Test
+    public void testLevelsAreMonotonic() {
+        int[] levels = {ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE, ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW,
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL, ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN,
+                ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, ComponentCallbacks2.TRIM_MEMORY_MODERATE,
+                ComponentCallbacks2.TRIM_MEMORY_COMPLETE};
+        int previous = MemoryTrimmer.PERCENT_TO_KEEP_ALL;
+        for (int level : levels) {
+            int percent = MemoryTrimmer.levelToPercentToKeep(level);
+            assertTrue("Level " + level + ": " + percent + " > " + previous, percent <= previous);
+            previous = percent;
+        }
+        assertEquals(0, previous);
+    }
+
+    @Test
+    public void testPercentIsOnlyLoweredTillRestored() {
+        MemoryTrimmer.restore();
+        notified.clear();
+        MemoryTrimmer.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        int lowered = MemoryTrimmer.getPercentToKeep();
+        assertTrue(lowered < MemoryTrimmer.PERCENT_TO_KEEP_ALL);
+
+        MemoryTrimmer.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals("Lesser pressure doesn't grow the capacity", lowered, MemoryTrimmer.getPercentToKeep());
+        MemoryTrimmer.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, MemoryTrimmer.getPercentToKeep());
+
+        MemoryTrimmer.restore();
+        assertEquals(MemoryTrimmer.PERCENT_TO_KEEP_ALL, MemoryTrimmer.getPercentToKeep());
+        List<Integer> expected = new ArrayList<>();
+        expected.add(lowered);
+        expected.add(0);
+        expected.add(MemoryTrimmer.PERCENT_TO_KEEP_ALL);
+        assertEquals(expected, notified);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.origin.Origin;
+import org.andstatus.app.timeline.meta.Timeline;
+import org.andstatus.app.timeline.meta.TimelineType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.andstatus.app.context.DemoData.demoData;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CommandCoalescerTest {
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initializeWithData(this);
+    }
+
+    @Test
+    public void testTimelineDuplicatesAreMerged() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        IndexedCommandQueue queue = new IndexedCommandQueue();
+        CommandData queued = CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.HOME);
+        assertTrue(CommandCoalescer.addToQueue(queue, queued));
+        CommandData duplicate = CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.HOME)
+                .setInForeground(true);
+        duplicate.setManuallyLaunched(true);
+        assertTrue(CommandCoalescer.addToQueue(queue, duplicate));
+        assertTrue(CommandCoalescer.addToQueue(queue,
+                CommandData.newTimelineCommand(CommandEnum.GET_OLDER_TIMELINE, ma, TimelineType.HOME)));
+
+        assertEquals(queue.toString(), 2, queue.size());
+        assertSame(queued, queue.peek());
+        assertTrue("Foreground flag is merged", queued.isInForeground());
+        assertTrue("Manual flag is merged", queued.isManuallyLaunched());
+    }
+
+    @Test
+    public void testSupersededIsRemoved() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        IndexedCommandQueue queue = new IndexedCommandQueue();
+        assertTrue(CommandCoalescer.addToQueue(queue, CommandData.newItemCommand(CommandEnum.LIKE, ma, 12)));
+        assertTrue(CommandCoalescer.addToQueue(queue, CommandData.newItemCommand(CommandEnum.UNDO_LIKE, ma, 12)));
+        assertEquals(queue.toString(), 1, queue.size());
+        assertEquals(CommandEnum.UNDO_LIKE, queue.peek().getCommand());
+
+        assertTrue(CommandCoalescer.addToQueue(queue, CommandData.newItemCommand(CommandEnum.LIKE, ma, 13)));
+        assertEquals("Other target is kept " + queue, 2, queue.size());
+
+        queue.clear();
+        assertTrue(CommandCoalescer.addToQueue(queue,
+                CommandData.newActorCommand(CommandEnum.FOLLOW, ma, ma.getOrigin(), 34, "")));
+        assertTrue(CommandCoalescer.addToQueue(queue,
+                CommandData.newActorCommand(CommandEnum.UNDO_FOLLOW, ma, ma.getOrigin(), 34, "")));
+        assertEquals(queue.toString(), 1, queue.size());
+        assertEquals(CommandEnum.UNDO_FOLLOW, queue.peek().getCommand());
+    }
+
+    @Test
+    public void testBatchIsOfTheSameLane() {
+        IndexedCommandQueue queue = new IndexedCommandQueue();
+        for (int i = 1; i <= 3; i++) {
+            CommandData commandData = CommandData.newFetchAttachment(0, i);
+            assertTrue(CommandCoalescer.addToQueue(queue, commandData));
+        }
+        Origin origin = MyContextHolder.get().origins().fromName(demoData.conversationOriginName);
+        CommandData ofOtherLane = CommandData.newTimelineCommand(CommandEnum.GET_ATTACHMENT,
+                Timeline.getTimeline(TimelineType.EVERYTHING, 0, origin));
+        ofOtherLane.itemId = 4;
+        assertTrue(CommandCoalescer.addToQueue(queue, ofOtherLane));
+        assertTrue(CommandCoalescer.addToQueue(queue, CommandData.newFetchAttachment(0, 5)));
+
+        CommandData head = queue.poll();
+        assertFalse(CommandQueue.laneOf(head) == CommandQueue.laneOf(ofOtherLane));
+        CommandCoalescer.fillBatch(queue, head);
+        assertEquals(head.getBatchWithHead().toString(), 2, head.getBatch().size());
+        for (CommandData batched : head.getBatch()) {
+            assertEquals(CommandQueue.laneOf(head), CommandQueue.laneOf(batched));
+        }
+        assertSame("The batch stops at a command of another lane", ofOtherLane, queue.peek());
+    }
+}
@@ -30,7 +30,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.andstatus.app.context.DemoData.demoData;
 import static org.junit.Assert.assertEquals;
@@ -121,7 +121,7 @@ public class CommandDataTest {
 
     @Test
     public void testPriority() {
-        Queue<CommandData> queue = new PriorityBlockingQueue<>(100);
+        Queue<CommandData> queue = new IndexedCommandQueue();
         final MyAccount ma = demoData.getMyAccount(demoData.gnusocialTestAccountName);
         queue.add(CommandData.newCommand(CommandEnum.GET_FRIENDS));
         queue.add(CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.SENT, ma.getActorId(), ma.getOrigin()));
@@ -142,6 +142,61 @@ public class CommandDataTest {
         assertCommand(queue, CommandEnum.GET_TIMELINE, TimelineType.INTERACTIONS);
     }
 
+    @Test
+    public void testIndexedQueue() {
+        IndexedCommandQueue queue = new IndexedCommandQueue();
+        final MyAccount ma = demoData.getMyAccount(demoData.gnusocialTestAccountName);
+        CommandData home = CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.HOME);
+        CommandData update = CommandData.newUpdateStatus(MyAccount.EMPTY, 2, 5);
+        assertTrue(queue.offer(home));
+        assertTrue(queue.offer(update));
+        assertFalse("Duplicate shouldn't be added",
+                queue.offer(CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.HOME)));
+        assertEquals(2, queue.size());
+
+        CommandData homeCopy = CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.HOME);
+        assertTrue(queue.contains(homeCopy));
+        assertTrue(home == queue.find(homeCopy));
+        assertTrue(update == queue.findByCommandId(update.getCommandId()));
+
+        for (CommandData commandData : queue) {
+            if (commandData.getCommand() == CommandEnum.UPDATE_NOTE) queue.remove(commandData);
+        }
+        assertEquals(1, queue.size());
+        assertTrue(queue.findByCommandId(update.getCommandId()) == null);
+        assertTrue(queue.remove(homeCopy));
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.poll() == null);
+    }
+
+    @Test
+    public void testCoalescing() {
+        IndexedCommandQueue queue = new IndexedCommandQueue();
+        final MyAccount ma = demoData.getMyAccount(demoData.gnusocialTestAccountName);
+        CommandData follow = CommandData.newActorCommand(CommandEnum.FOLLOW, ma, ma.getOrigin(), 34, "");
+        assertTrue(CommandCoalescer.addToQueue(queue, follow));
+        CommandData home = CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.HOME);
+        assertTrue(CommandCoalescer.addToQueue(queue, home));
+        assertTrue(CommandCoalescer.addToQueue(queue,
+                CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma, TimelineType.HOME).setInForeground(true)));
+        assertEquals(2, queue.size());
+        assertTrue("Merged to foreground", queue.find(home).isInForeground());
+
+        CommandData undoFollow = CommandData.newActorCommand(CommandEnum.UNDO_FOLLOW, ma, ma.getOrigin(), 34, "");
+        assertTrue(CommandCoalescer.addToQueue(queue, undoFollow));
+        assertFalse("Superseded command removed", queue.contains(follow));
+        assertTrue(queue.contains(undoFollow));
+
+        queue.clear();
+        for (long actorId = 1; actorId <= CommandCoalescer.DOWNLOAD_BATCH_SIZE + 5; actorId++) {
+            queue.offer(CommandData.newActorCommand(CommandEnum.GET_AVATAR, MyAccount.EMPTY, Origin.EMPTY, actorId, ""));
+        }
+        CommandData head = queue.poll();
+        CommandCoalescer.fillBatch(queue, head);
+        assertEquals(CommandCoalescer.DOWNLOAD_BATCH_SIZE - 1, head.getBatch().size());
+        assertEquals(5, queue.size());
+    }
+
     private void assertCommand(Queue<CommandData> queue, CommandEnum commandEnum) {
         assertCommand(queue, commandEnum, TimelineType.UNKNOWN);
     }
@@ -154,6 +209,24 @@ public class CommandDataTest {
         }
     }
 
+    @Test
+    public void testRetryBackoff() {
+        CommandData commandData = CommandData.newUpdateStatus(demoData.getConversationMyAccount(), 1, 5);
+        assertEquals(0, commandData.getNextRetryDate());
+        long previousDelay = 0;
+        for (int count = 1; count < 10; count++) {
+            commandData.getResult().prepareForLaunch();
+            commandData.getResult().afterExecutionEnded();
+            long delay = commandData.getNextRetryDate() - commandData.getResult().getLastExecutedDate();
+            String msgLog = "Execution " + count + ", delay " + delay + "ms; " + commandData;
+            assertTrue(msgLog, delay >= TimeUnit.SECONDS.toMillis(CommandResult.MIN_RETRY_DELAY_SECONDS) * 8 / 10);
+            assertTrue(msgLog, delay <= TimeUnit.SECONDS.toMillis(CommandResult.MAX_RETRY_DELAY_SECONDS) * 12 / 10);
+            if (count < 5) assertTrue(msgLog, delay > previousDelay);
+            previousDelay = delay;
+        }
+        assertFalse(commandData.toString(), commandData.isDueForRetry());
+    }
+
     @Test
     public void testSummary() {
         followUnfollowSummary(CommandEnum.FOLLOW);
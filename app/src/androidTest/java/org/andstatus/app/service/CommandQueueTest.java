@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.timeline.meta.TimelineType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.andstatus.app.context.DemoData.demoData;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Changes of the queued commands are replayed from the journal after {@link CommandQueue#save()} */
+public class CommandQueueTest {
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initializeWithData(this);
+    }
+
+    @Test
+    public void testMergedFlagIsJournaled() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        CommandQueue queues = new CommandQueue();
+        queues.clear();
+        CommandData queued = CommandData.newItemCommand(CommandEnum.GET_NOTE, ma, 12);
+        queues.addToQueue(QueueType.CURRENT, queued);
+        queues.save();
+        queues.load();
+        CommandData loaded = MyServiceTest2.getFromQueue(queues, QueueType.CURRENT, queued);
+        assertFalse(loaded.isManuallyLaunched());
+
+        CommandData duplicate = CommandData.newItemCommand(CommandEnum.GET_NOTE, ma, 12);
+        duplicate.setManuallyLaunched(true);
+        assertTrue(CommandCoalescer.addToQueue((IndexedCommandQueue) queues.get(QueueType.CURRENT), duplicate));
+        assertEquals(1, queues.get(QueueType.CURRENT).size());
+        queues.save();
+        queues.load();
+
+        CommandData replayed = MyServiceTest2.getFromQueue(queues, QueueType.CURRENT, queued);
+        assertEquals(queued, replayed);
+        assertTrue("Merged flag should be saved " + replayed, replayed.isManuallyLaunched());
+        queues.clear();
+    }
+
+    @Test
+    public void testResetRetriesIsJournaled() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        CommandQueue queues = new CommandQueue();
+        queues.clear();
+        CommandData failed = CommandData.newItemCommand(CommandEnum.GET_NOTE, ma, 13);
+        failed.getResult().afterExecutionEnded();
+        failed.getResult().afterExecutionEnded();
+        final int retriesLeft = failed.getResult().getRetriesLeft();
+        assertTrue(retriesLeft < CommandResult.INITIAL_NUMBER_OF_RETRIES);
+        queues.addToQueue(QueueType.ERROR, failed);
+        queues.save();
+        queues.load();
+        assertEquals(retriesLeft,
+                MyServiceTest2.getFromQueue(queues, QueueType.ERROR, failed).getResult().getRetriesLeft());
+
+        // The command was executed recently, so it stays in the Error queue with its retries reset
+        queues.addToQueue(QueueType.CURRENT, CommandData.newItemCommand(CommandEnum.GET_NOTE, ma, 13)
+                .setInForeground(true));
+        queues.pollQueue();
+        queues.save();
+        queues.load();
+
+        CommandData replayed = MyServiceTest2.getFromQueue(queues, QueueType.ERROR, failed);
+        assertEquals(failed, replayed);
+        assertEquals("Reset retries should be saved " + replayed,
+                CommandResult.INITIAL_NUMBER_OF_RETRIES, replayed.getResult().getRetriesLeft());
+        queues.clear();
+    }
+
+    @Test
+    public void testLaneAssignment() {
+        MyAccount ma1 = demoData.getMyAccount(demoData.gnusocialTestAccountName);
+        MyAccount ma2 = demoData.getMyAccount(demoData.twitterTestAccountName);
+        CommandData home1 = CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma1, TimelineType.HOME);
+        CommandData note1 = CommandData.newItemCommand(CommandEnum.GET_NOTE, ma1, 21);
+        CommandData home2 = CommandData.newTimelineCommand(CommandEnum.GET_TIMELINE, ma2, TimelineType.HOME);
+        assertEquals("Lane of an origin", ma1.getOriginId(), CommandQueue.laneOf(home1));
+        assertEquals("Commands of an origin share a lane", CommandQueue.laneOf(home1), CommandQueue.laneOf(note1));
+        assertNotEquals("Origins have different lanes", CommandQueue.laneOf(home1), CommandQueue.laneOf(home2));
+        assertEquals("Commands without an origin share one lane",
+                CommandQueue.laneOf(CommandData.newFetchAttachment(0, 1)),
+                CommandQueue.laneOf(CommandData.newFetchAttachment(0, 2)));
+    }
+
+    @Test
+    public void testParallelLanes() {
+        MyAccount ma1 = demoData.getMyAccount(demoData.gnusocialTestAccountName);
+        MyAccount ma2 = demoData.getMyAccount(demoData.twitterTestAccountName);
+        MyAccount ma3 = demoData.getMyAccount(demoData.mastodonTestAccountName);
+        CommandQueue queues = new CommandQueue();
+        queues.clear();
+        queues.load();
+        queues.addToQueue(QueueType.CURRENT, CommandData.newItemCommand(CommandEnum.GET_NOTE, ma1, 21)
+                .setInForeground(true));
+        queues.addToQueue(QueueType.CURRENT, CommandData.newItemCommand(CommandEnum.GET_NOTE, ma1, 22)
+                .setInForeground(true));
+        queues.addToQueue(QueueType.CURRENT, CommandData.newItemCommand(CommandEnum.GET_NOTE, ma2, 23)
+                .setInForeground(true));
+        CommandData waitingForRetry = CommandData.newItemCommand(CommandEnum.GET_NOTE, ma3, 24);
+        waitingForRetry.deferUntil(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        queues.addToQueue(QueueType.RETRY, waitingForRetry);
+        assertEquals("Commands of two lanes, the retry is not due", 2, queues.countLanesToExecute());
+
+        CommandData first = queues.pollQueue();
+        assertEquals(21, first.itemId);
+        assertEquals("The busy lane is counted once", 2, queues.countLanesToExecute());
+        CommandData second = queues.pollQueue();
+        assertEquals("Executed in parallel, as of another lane", 23, second.itemId);
+        assertNull("The lane of the rest is busy", queues.pollQueue());
+
+        queues.releaseLane(second);
+        assertEquals(1, queues.countLanesToExecute());
+        queues.releaseLane(first);
+        CommandData third = queues.pollQueue();
+        assertEquals(22, third.itemId);
+        queues.releaseLane(third);
+        assertEquals("Nothing to execute now", 0, queues.countLanesToExecute());
+        queues.clear();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.TestSuite;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.andstatus.app.context.DemoData.demoData;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedCommandQueueTest {
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initializeWithData(this);
+    }
+
+    @Test
+    public void testForegroundCommandIsReordered() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        List<CommandData> changed = new ArrayList<>();
+        IndexedCommandQueue queue = new IndexedCommandQueue(changed::add);
+        CommandData first = CommandData.newItemCommand(CommandEnum.LIKE, ma, 1);
+        CommandData second = CommandData.newItemCommand(CommandEnum.LIKE, ma, 2);
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertSame(first, queue.peek());
+
+        changed.clear();
+        queue.setInForeground(second, true);
+        assertEquals(changed.toString(), 1, changed.size());
+        assertSame("Foreground command is the head now", second, queue.peek());
+        assertSame(second, queue.findByCommandId(second.getCommandId()));
+
+        assertSame(second, queue.poll());
+        assertSame(first, queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testAllCommandsAreKept() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        IndexedCommandQueue queue = new IndexedCommandQueue();
+        final int count = 50;
+        for (int i = 1; i <= count; i++) {
+            assertTrue(queue.offer(CommandData.newItemCommand(CommandEnum.LIKE, ma, i)));
+        }
+        assertEquals(count, queue.size());
+        int polled = 0;
+        while (queue.poll() != null) {
+            polled++;
+        }
+        assertEquals(count, polled);
+    }
+
+    @Test
+    public void testPollFirstKeepsSkippedCommands() {
+        MyAccount ma = demoData.getConversationMyAccount();
+        List<CommandData> changed = new ArrayList<>();
+        IndexedCommandQueue queue = new IndexedCommandQueue(changed::add);
+        CommandData first = CommandData.newItemCommand(CommandEnum.LIKE, ma, 1);
+        CommandData second = CommandData.newItemCommand(CommandEnum.LIKE, ma, 2);
+        CommandData third = CommandData.newItemCommand(CommandEnum.LIKE, ma, 3);
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertTrue(queue.offer(third));
+
+        changed.clear();
+        assertSame(third, queue.pollFirst(cd -> cd == third));
+        assertEquals("Only the polled command is changed " + changed, 1, changed.size());
+        assertNull(queue.findByCommandId(third.getCommandId()));
+        assertNull(queue.pollFirst(cd -> cd == third));
+        assertSame("Skipped commands stay in place", first, queue.poll());
+        assertSame(second, queue.poll());
+    }
+}
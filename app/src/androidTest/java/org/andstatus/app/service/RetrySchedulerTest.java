@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import org.andstatus.app.context.TestSuite;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class RetrySchedulerTest {
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+    }
+
+    @Test
+    public void testStaleEntriesAreRemoved() {
+        RetryScheduler scheduler = new RetryScheduler();
+        CommandData commandData = CommandData.newCommand(CommandEnum.GET_OPEN_INSTANCES);
+        long retryAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        commandData.deferUntil(retryAt);
+
+        scheduler.schedule(commandData);
+        scheduler.schedule(commandData);
+        assertEquals(retryAt, scheduler.getNextDueAt());
+        assertFalse(scheduler.isAnythingDue());
+
+        scheduler.unschedule(commandData);
+        assertEquals("Scheduled once, so nothing is left", 0, scheduler.getNextDueAt());
+        assertNull(scheduler.pollDue());
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.timeline;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+
+import org.andstatus.app.actor.ActorViewItem;
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.TestSuite;
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.ProjectionMap;
+import org.andstatus.app.database.table.ActivityTable;
+import org.andstatus.app.origin.Origin;
+import org.andstatus.app.timeline.meta.TimelineType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimelineDataTest {
+    private static final int PAGE_SIZE = 3;
+
+    @Before
+    public void setUp() throws Exception {
+        TestSuite.initialize(this);
+    }
+
+    @Test
+    public void testTrimPagesKeepsPageOfPosition() {
+        TimelineData<ActorViewItem> data = newData(4);
+        assertFalse(data.trimPages(0, 4));
+
+        // The position is in the third page, so the first and the last pages are the most distant
+        ActorViewItem atPosition = data.getItem(2 * PAGE_SIZE + 1);
+        ActorViewItem firstOfSecondPage = data.getItem(PAGE_SIZE);
+        assertTrue(data.trimPages(2 * PAGE_SIZE + 1, 2));
+        assertEquals(2, data.pages.size());
+        assertSame(firstOfSecondPage, data.getItem(0));
+        assertTrue(data.pages.get(1).items.contains(atPosition));
+
+        assertTrue(data.trimPages(PAGE_SIZE + 1, 1));
+        assertEquals(1, data.pages.size());
+        assertTrue(data.pages.get(0).items.contains(atPosition));
+        assertFalse("At least one page is kept", data.trimPages(0, 0));
+    }
+
+    private static TimelineData<ActorViewItem> newData(int pagesCount) {
+        TimelineParameters params = new TimelineParameters(MyContextHolder.get());
+        TimelineData<ActorViewItem> data = new TimelineData<>(null, new TimelinePage<>(params, null));
+        data.pages.clear();
+        for (int pageIndex = 0; pageIndex < pagesCount; pageIndex++) {
+            List<ActorViewItem> items = new ArrayList<>();
+            for (int itemIndex = 0; itemIndex < PAGE_SIZE; itemIndex++) {
+                items.add(ActorViewItem.newEmpty("page" + pageIndex + " item" + itemIndex));
+            }
+            data.pages.add(new TimelinePage<>(params, items));
+        }
+        return data;
+    }
+
+    /** Rows of one date are split by a page boundary, as the page size is not a multiple of this */
+    private static final int ROWS_PER_DATE = 7;
+    private static final int ROWS_COUNT = 2 * TimelineParameters.PAGE_SIZE + 50;
+    private static final long MIN_DATE = 1000;
+
+    @Test
+    public void testOlderPagesByKeyset() {
+        SQLiteDatabase db = newActivitiesDatabase();
+        TimelineParameters params = newParams(WhichPage.OLDER);
+        params.maxDate = MIN_DATE + ROWS_COUNT;
+        List<Long> ids = loadPage(db, params);
+        List<TimelineParameters> loaded = new ArrayList<>();
+        while (params.rowsLoaded > 0) {
+            loaded.add(params);
+            assertTrue(params.mayHaveOlderPage());
+            params = TimelineParameters.clone(params, WhichPage.OLDER);
+            assertTrue("Descending order " + params, !params.isSortOrderAscending());
+            ids.addAll(loadPage(db, params));
+        }
+        db.close();
+
+        assertEquals(3, loaded.size());
+        assertEquals("Equal dates at the page boundary",
+                loaded.get(0).minDateLoaded, loaded.get(1).maxDateLoaded);
+        assertFalse(loaded.get(0).overlapsOlder(loaded.get(1)));
+        assertAllRowsOnce(ids);
+    }
+
+    @Test
+    public void testYoungerPagesByKeyset() {
+        SQLiteDatabase db = newActivitiesDatabase();
+        TimelineParameters params = newParams(WhichPage.YOUNGER);
+        params.minDate = MIN_DATE;
+        List<Long> ids = loadPage(db, params);
+        List<TimelineParameters> loaded = new ArrayList<>();
+        while (params.rowsLoaded > 0) {
+            loaded.add(params);
+            assertTrue(params.mayHaveYoungerPage());
+            params = TimelineParameters.clone(params, WhichPage.YOUNGER);
+            assertTrue("Ascending order " + params, params.isSortOrderAscending());
+            ids.addAll(loadPage(db, params));
+        }
+        db.close();
+
+        assertEquals(3, loaded.size());
+        assertEquals("The oldest edge is included", MIN_DATE, loaded.get(0).minDateLoaded);
+        assertEquals("Equal dates at the page boundary",
+                loaded.get(0).maxDateLoaded, loaded.get(1).minDateLoaded);
+        assertFalse(loaded.get(1).overlapsOlder(loaded.get(0)));
+        assertAllRowsOnce(ids);
+    }
+
+    @Test
+    public void testSelectionOfKeysetBounds() {
+        TimelineParameters params = newParams(WhichPage.OLDER);
+        params.maxDate = 2000;
+        params.prepareQueryParameters();
+        assertEquals("Inclusive bound " + params.selectionAndArgs, 2,
+                params.selectionAndArgs.selectionArgs.length);
+
+        params.maxActivityId = 33;
+        params.prepareQueryParameters();
+        assertTrue(params.selectionAndArgs.selection,
+                params.selectionAndArgs.selection.contains(ActivityTable.getTimeSortIdField(TimelineType.EVERYTHING)));
+        assertEquals("Exclusive bound " + params.selectionAndArgs, 4,
+                params.selectionAndArgs.selectionArgs.length);
+        assertEquals("33", params.selectionAndArgs.selectionArgs[3]);
+    }
+
+    @Test
+    public void testYoungestPageDropsOverlappingOlderPages() {
+        TimelineParameters youngest = loadedParams(WhichPage.YOUNGEST, 20, 10, 30, 50);
+        TimelineParameters older = loadedParams(WhichPage.OLDER, 10, 5, 10, 9);
+        TimelineData<ActorViewItem> data = new TimelineData<>(
+                new TimelineData<>(null, newPage(youngest)), newPage(older));
+        assertEquals(2, data.pages.size());
+
+        TimelineParameters reloaded = loadedParams(WhichPage.YOUNGEST, 10, 10, 40, 70);
+        assertFalse(reloaded.overlapsOlder(older));
+        TimelineData<ActorViewItem> data2 = new TimelineData<>(data, newPage(reloaded));
+        assertEquals("Older page is kept", 2, data2.pages.size());
+        assertSame(reloaded, data2.pages.get(0).params);
+
+        TimelineParameters reloadedOverlapping = loadedParams(WhichPage.YOUNGEST, 10, 9, 40, 70);
+        assertTrue(reloadedOverlapping.overlapsOlder(older));
+        TimelineData<ActorViewItem> data3 = new TimelineData<>(data2, newPage(reloadedOverlapping));
+        assertEquals("Overlapping older page is dropped", 1, data3.pages.size());
+        assertSame(reloadedOverlapping, data3.pages.get(0).params);
+    }
+
+    private static TimelineParameters newParams(WhichPage whichPage) {
+        TimelineParameters params = new TimelineParameters(MyContextHolder.get());
+        params.setTimeline(MyContextHolder.get().timelines().get(TimelineType.EVERYTHING, 0, Origin.EMPTY, ""));
+        params.whichPage = whichPage;
+        return params;
+    }
+
+    private static TimelineParameters loadedParams(WhichPage whichPage, long minDate, long minActivityId,
+                                                   long maxDate, long maxActivityId) {
+        TimelineParameters params = newParams(whichPage);
+        params.rememberItemDateLoaded(minDate, minActivityId);
+        params.rememberItemDateLoaded(maxDate, maxActivityId);
+        params.rowsLoaded = 2;
+        params.isLoaded = true;
+        return params;
+    }
+
+    private static TimelinePage<ActorViewItem> newPage(TimelineParameters params) {
+        List<ActorViewItem> items = new ArrayList<>();
+        items.add(ActorViewItem.newEmpty(params.whichPage + " item"));
+        return new TimelinePage<>(params, items);
+    }
+
+    /** Activity ids are not in the order of dates, so the sort key is really (date, id) */
+    private static SQLiteDatabase newActivitiesDatabase() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE " + ProjectionMap.ACTIVITY_TABLE_ALIAS + " (" + BaseColumns._ID
+                + " INTEGER PRIMARY KEY, " + ActivityTable.UPDATED_DATE + " INTEGER NOT NULL)");
+        for (long id = 1; id <= ROWS_COUNT; id++) {
+            db.execSQL("INSERT INTO " + ProjectionMap.ACTIVITY_TABLE_ALIAS + " VALUES (" + id + ", "
+                    + (MIN_DATE + ((id * 37) % ROWS_COUNT) / ROWS_PER_DATE) + ")");
+        }
+        return db;
+    }
+
+    /** The same as {@link TimelineLoader} does with a page of the timeline */
+    private static List<Long> loadPage(SQLiteDatabase db, TimelineParameters params) {
+        params.prepareQueryParameters();
+        List<Long> ids = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + BaseColumns._ID + ", " + ActivityTable.UPDATED_DATE
+                + " FROM " + ProjectionMap.ACTIVITY_TABLE_ALIAS
+                + " WHERE " + params.selectionAndArgs.selection
+                + " ORDER BY " + params.sortOrderAndLimit, params.selectionAndArgs.selectionArgs);
+        try {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                params.rememberItemDateLoaded(cursor.getLong(1), id);
+                ids.add(id);
+            }
+        } finally {
+            DbUtils.closeSilently(cursor);
+        }
+        params.rowsLoaded = ids.size();
+        params.isLoaded = true;
+        return ids;
+    }
+
+    private static void assertAllRowsOnce(List<Long> ids) {
+        Set<Long> unique = new HashSet<>(ids);
+        assertEquals("No duplicates", ids.size(), unique.size());
+        assertEquals("Nothing skipped", ROWS_COUNT, unique.size());
+    }
+}
@@ -23,6 +23,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -70,6 +72,28 @@ public class MyLogTest {
         }
     }
 
+    @Test
+    public void testLinesAreAppendedInOrder() throws IOException {
+        final String method = "testLinesAreAppendedInOrder";
+        boolean isLogEnabled = MyLog.isLogToFileEnabled();
+        MyLog.setLogToFile(false);
+        MyLog.setLogToFile(true);
+        File file = MyLog.getFileInLogDir(MyLog.getLogFilename(), true);
+        final int count = 1000;
+        for (int i = 1; i <= count; i++) {
+            MyLog.logToFile(MyLog.VERBOSE, method, "line " + i, null);
+        }
+        MyLog.flushLogFile();
+        String content = new String(FileUtils.getBytes(file), StandardCharsets.UTF_8);
+        int indexLast = content.indexOf(method + ": line " + count + "\n");
+        assertTrue("Last line not found", indexLast > 0);
+        assertTrue("Wrong order", content.indexOf(method + ": line 1\n") < indexLast);
+        MyLog.setLogToFile(false);
+        if (isLogEnabled) {
+            MyLog.setLogToFile(true);
+        }
+    }
+
     @Test
     public void testUniqueDateTimeFormatted() {
         String string1 = "";
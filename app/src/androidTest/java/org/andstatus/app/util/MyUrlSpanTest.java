@@ -17,6 +17,7 @@
 package org.andstatus.app.util;
 
 import android.text.SpannableString;
+import android.text.Spanned;
 import android.text.style.URLSpan;
 import android.widget.TextView;
 import android.widget.ViewFlipper;
@@ -27,6 +28,9 @@ import org.andstatus.app.context.ActivityTest;
 import org.andstatus.app.data.DbUtils;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /** See https://github.com/andstatus/andstatus/issues/300 */
@@ -72,6 +76,21 @@ public class MyUrlSpanTest extends ActivityTest<HelpActivity> {
         DbUtils.waitMs(method, 1000);
     }
 
+    @Test
+    public void testToSpannedOffUiThread() {
+        Spanned spanned = MyUrlSpan.toSpanned("<p>See http://example.com/page and <a href=\"https://example.org/\">this</a></p>", true);
+        URLSpan[] spans = spanned.getSpans(0, spanned.length(), URLSpan.class);
+        assertEquals("Links: " + Arrays.toString(spans), 1, spans.length);
+        assertTrue(spans[0] instanceof MyUrlSpan);
+        assertEquals("https://example.org/", spans[0].getURL());
+
+        spanned = MyUrlSpan.toSpanned("Plain text with http://example.com/page", true);
+        spans = spanned.getSpans(0, spanned.length(), URLSpan.class);
+        assertEquals(1, spans.length);
+        assertEquals("http://example.com/page", spans[0].getURL());
+        assertEquals(0, MyUrlSpan.toSpanned(MyUrlSpan.SOFT_HYPHEN, true).toString().indexOf("-"));
+    }
+
     @Test
     public void testSoftHyphen() {
         String text = MyUrlSpan.SOFT_HYPHEN;
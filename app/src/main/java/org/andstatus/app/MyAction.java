@@ -40,6 +40,8 @@ public enum MyAction {
     BOOT_COMPLETED("android.intent.action.BOOT_COMPLETED"),
     ACTION_SHUTDOWN("android.intent.action.ACTION_SHUTDOWN"),
     SYNC("SYNC"),
+    /** Alarm, which wakes up {@link MyService} when a command of the Retry queue is due */
+    RETRY("RETRY"),
     UNKNOWN("UNKNOWN");
     
     private final String action;
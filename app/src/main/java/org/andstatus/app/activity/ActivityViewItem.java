@@ -20,9 +20,11 @@ import android.content.Context;
 import android.database.Cursor;
 import android.support.annotation.NonNull;
 
+import org.andstatus.app.context.MyContext;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.ImageFile;
 import org.andstatus.app.database.table.ActivityTable;
 import org.andstatus.app.note.NoteViewItem;
 import org.andstatus.app.net.social.ActivityType;
@@ -36,6 +38,12 @@ import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
 /** View on ActivityStream
  * @author yvolk@yurivolkov.com
  */
@@ -113,6 +121,12 @@ public class ActivityViewItem extends ViewItem<ActivityViewItem> implements Comp
         return new ActivityViewItem(false);
     }
 
+    @Override
+    public void loadForPage(@NonNull MyContext myContext, @NonNull List<ActivityViewItem> items) {
+        NoteViewItem.EMPTY.loadForPage(myContext, items.stream().map(item -> item.noteViewItem)
+                .filter(item -> !item.isEmpty()).collect(toList()));
+    }
+
     @Override
     public boolean matches(TimelineFilter filter) {
         if (noteId !=0) {
@@ -165,6 +179,15 @@ public class ActivityViewItem extends ViewItem<ActivityViewItem> implements Comp
         );
     }
 
+    @NonNull
+    @Override
+    public Collection<ImageFile> getImageFiles() {
+        List<ImageFile> imageFiles = new ArrayList<>(actor.getImageFiles());
+        imageFiles.addAll(noteViewItem.getImageFiles());
+        imageFiles.addAll(objActorItem.getImageFiles());
+        return imageFiles;
+    }
+
     public ActorViewItem getObjActorItem() {
         return objActorItem;
     }
@@ -61,6 +61,7 @@ public class ActorListLoader extends SyncLoader<ActorViewItem> {
         }
         mProgress = publisher;
         loadInternal();
+        ActorViewItem.EMPTY.loadForPage(MyContextHolder.get(), items);
         if (MyLog.isDebugEnabled()) {
             MyLog.d(this, "Loaded " + size() + " items, " + stopWatch.getTime() + "ms");
         }
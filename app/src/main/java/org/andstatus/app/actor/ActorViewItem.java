@@ -23,10 +23,12 @@ import android.text.TextUtils;
 
 import org.andstatus.app.MyActivity;
 import org.andstatus.app.account.MyAccount;
+import org.andstatus.app.context.MyContext;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.AvatarFile;
 import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.ImageFile;
 import org.andstatus.app.data.MyQuery;
 import org.andstatus.app.database.table.DownloadTable;
 import org.andstatus.app.database.table.ActorTable;
@@ -37,9 +39,16 @@ import org.andstatus.app.timeline.TimelineFilter;
 import org.andstatus.app.timeline.ViewItem;
 import org.andstatus.app.util.I18n;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
 public class ActorViewItem extends ViewItem<ActorViewItem> implements Comparable<ActorViewItem> {
     public static final ActorViewItem EMPTY = new ActorViewItem(Actor.EMPTY, true);
     boolean populated = false;
@@ -141,6 +150,12 @@ public class ActorViewItem extends ViewItem<ActorViewItem> implements Comparable
         this.avatarFile = avatarFile;
     }
 
+    @NonNull
+    @Override
+    public Collection<ImageFile> getImageFiles() {
+        return avatarFile == null ? Collections.emptyList() : Collections.singletonList(avatarFile);
+    }
+
     public void showAvatar(MyActivity myActivity, AvatarView imageView) {
         if (avatarFile != null) {
             avatarFile.showImage(myActivity, imageView);
@@ -174,13 +189,25 @@ public class ActorViewItem extends ViewItem<ActorViewItem> implements Comparable
 
         ActorViewItem item = new ActorViewItem(actor, false);
 
-        item.myFollowers = MyQuery.getMyFollowersOf(actor.actorId);
         AvatarFile avatarFile = AvatarFile.fromCursor(actor.actorId, cursor, DownloadTable.AVATAR_FILE_NAME);
         item.setAvatarFile(avatarFile);
         item.populated = true;
         return item;
     }
 
+    @Override
+    public void loadForPage(@NonNull MyContext myContext, @NonNull List<ActorViewItem> items) {
+        List<ActorViewItem> populatedItems = items.stream().filter(item -> item.populated).collect(toList());
+        Map<Long, Set<Long>> followers = MyQuery.getMyFollowersOf(myContext,
+                populatedItems.stream().map(ActorViewItem::getActorId).collect(toSet()));
+        for (ActorViewItem item : populatedItems) {
+            Set<Long> myFollowers = followers.get(item.getActorId());
+            if (myFollowers != null) {
+                item.myFollowers = myFollowers;
+            }
+        }
+    }
+
     @Override
     public boolean matches(TimelineFilter filter) {
         // TODO: implement filtering
@@ -135,6 +135,7 @@ public class MyBackupAgent extends BackupAgent {
         sharedPreferencesBackedUp = backupFile(data,
                 SHARED_PREFERENCES_KEY,
                 SharedPreferencesUtil.defaultSharedPreferencesPath(MyContextHolder.get().context()));
+        DbUtils.checkpoint(MyContextHolder.get().getDatabase());
         databasesBackedUp = backupFile(data,
                 DATABASE_KEY + "_" + DatabaseHolder.DATABASE_NAME,
                 MyStorage.getDatabasePath(DatabaseHolder.DATABASE_NAME));
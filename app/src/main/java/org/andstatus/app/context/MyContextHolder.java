@@ -28,6 +28,7 @@ import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
 
 import org.andstatus.app.FirstActivity;
+import org.andstatus.app.data.OidCache;
 import org.andstatus.app.data.converter.DatabaseConverterController;
 import org.andstatus.app.graphics.ImageCaches;
 import org.andstatus.app.os.AsyncTaskLauncher;
@@ -207,6 +208,8 @@ public final class MyContextHolder {
         builder.append("\n");
         builder.append(ImageCaches.getCacheInfo());
         builder.append("\n");
+        builder.append(OidCache.getStatistics());
+        builder.append("\n");
         builder.append(AsyncTaskLauncher.threadPoolInfo());
         return builder.toString();
     }
@@ -27,6 +27,8 @@ import net.jcip.annotations.ThreadSafe;
 
 import org.andstatus.app.ClassInApplicationPackage;
 import org.andstatus.app.account.MyAccounts;
+import org.andstatus.app.data.OidCache;
+import org.andstatus.app.data.StatementCache;
 import org.andstatus.app.data.converter.DatabaseConverterController;
 import org.andstatus.app.database.DatabaseHolder;
 import org.andstatus.app.graphics.ImageCaches;
@@ -127,6 +129,8 @@ public class MyContextImpl implements MyContext {
             tryToSetExternalStorageOnDataCreation();
         }
         preferencesChangeTime = MyPreferences.getPreferencesChangeTime();
+        OidCache.clear();
+        StatementCache.clear();
         initializeDatabase(createApplicationData);
 
         switch (state) {
@@ -259,6 +263,7 @@ public class MyContextImpl implements MyContext {
      */
     @Override
     public void release() {
+        StatementCache.clear();
         db = null;
     }
 
@@ -22,7 +22,9 @@ import android.support.annotation.NonNull;
 
 import org.andstatus.app.FirstActivity;
 import org.andstatus.app.HelpActivity;
+import org.andstatus.app.net.http.MyHttpClientFactory;
 import org.andstatus.app.net.http.TlsSniSocketFactory;
+import org.andstatus.app.note.NoteBodyCache;
 import org.andstatus.app.os.AsyncTaskLauncher;
 import org.andstatus.app.os.ExceptionsCounter;
 import org.andstatus.app.os.MyAsyncTask;
@@ -76,8 +78,10 @@ public class MyFutureContext extends MyAsyncTask<Object, Void, MyContext> {
     private void releaseGlobal() {
         SyncInitiator.unregister(previousContext);
         TlsSniSocketFactory.forget();
+        MyHttpClientFactory.forget();
         AsyncTaskLauncher.forget();
         ExceptionsCounter.forget();
+        NoteBodyCache.clear();
         MyLog.forget();
         SharedPreferencesUtil.forget();
         previousContext.release();
@@ -79,7 +79,17 @@ public class MyPreferences {
     public static final String KEY_SYNC_AFTER_NOTE_WAS_SENT = "sync_after_message_was_sent";
     public static final String KEY_DONT_SYNCHRONIZE_OLD_NOTES = "dont_synchronize_old_messages";
     public static final String KEY_CONNECTION_TIMEOUT_SECONDS = "connection_timeout";
+    /** How many commands of different Origins may be executed in parallel */
+    public static final String KEY_SYNC_MAX_PARALLEL_LANES = "sync_max_parallel_lanes";
     private static final long CONNECTION_TIMEOUT_DEFAULT_SECONDS = 30;
+    private static final long SYNC_MAX_PARALLEL_LANES_DEFAULT = 4;
+    /** Limits of the pool of HTTP connections of one Origin, see {@link org.andstatus.app.net.http.MyHttpClientFactory} */
+    public static final String KEY_HTTP_MAX_CONNECTIONS_PER_ROUTE = "http_max_connections_per_route";
+    private static final long HTTP_MAX_CONNECTIONS_PER_ROUTE_DEFAULT = 4;
+    public static final String KEY_HTTP_MAX_CONNECTIONS_TOTAL = "http_max_connections_total";
+    private static final long HTTP_MAX_CONNECTIONS_TOTAL_DEFAULT = 8;
+    /** Limited by the size of {@link org.andstatus.app.os.MyAsyncTask.PoolEnum#SYNC} pool */
+    public static final int SYNC_MAX_PARALLEL_LANES_LIMIT = 4;
 
     // ----------------------------------------------------------
     // Filters
@@ -139,6 +149,21 @@ public class MyPreferences {
                 KEY_CONNECTION_TIMEOUT_SECONDS, CONNECTION_TIMEOUT_DEFAULT_SECONDS));
     }
 
+    public static int getHttpMaxConnectionsPerRoute() {
+        return (int) Math.max(1, SharedPreferencesUtil.getLongStoredAsString(KEY_HTTP_MAX_CONNECTIONS_PER_ROUTE,
+                HTTP_MAX_CONNECTIONS_PER_ROUTE_DEFAULT));
+    }
+
+    public static int getHttpMaxConnectionsTotal() {
+        return (int) Math.max(getHttpMaxConnectionsPerRoute(), SharedPreferencesUtil.getLongStoredAsString(
+                KEY_HTTP_MAX_CONNECTIONS_TOTAL, HTTP_MAX_CONNECTIONS_TOTAL_DEFAULT));
+    }
+
+    public static int getSyncMaxParallelLanes() {
+        return (int) Math.min(SYNC_MAX_PARALLEL_LANES_LIMIT,
+                SharedPreferencesUtil.getLongStoredAsString(KEY_SYNC_MAX_PARALLEL_LANES, SYNC_MAX_PARALLEL_LANES_DEFAULT));
+    }
+
     /**
      * @return the number of seconds between two sync ("fetch"...) actions.
      */
@@ -18,6 +18,7 @@ package org.andstatus.app.context;
 
 import android.app.ProgressDialog;
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
 import android.widget.Toast;
 
 import net.jcip.annotations.GuardedBy;
@@ -217,6 +218,7 @@ public class StorageSwitch {
                         MyLog.v(this, method + " to: " + dbFileNew.getPath());
                     }
                     try {
+                        DbUtils.checkpoint(MyContextHolder.get().getDatabase());
                         if (copyFile(dbFileOld, dbFileNew)) {
                             copied = true;
                             succeeded = true;
@@ -237,7 +239,7 @@ public class StorageSwitch {
                     if (succeeded) {
                         if ( copied && dbFileOld != null
                                 && dbFileOld.exists()
-                                && !dbFileOld.delete()) {
+                                && !SQLiteDatabase.deleteDatabase(dbFileOld)) {
                             messageToAppend.append(method + " couldn't delete old files. ");
                         }
                     } else {
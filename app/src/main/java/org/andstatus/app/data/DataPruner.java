@@ -29,6 +29,7 @@ import org.andstatus.app.database.table.ActivityTable;
 import org.andstatus.app.database.table.DownloadTable;
 import org.andstatus.app.database.table.NoteTable;
 import org.andstatus.app.database.table.ActorTable;
+import org.andstatus.app.database.table.TimelineItemTable;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
 import org.andstatus.app.util.SelectionAndArgs;
@@ -133,6 +134,7 @@ public class DataPruner {
         if (mDeleted > 0) {
             pruneAttachments();
         }
+        pruneTimelineItems();
         pruneLogs(MAX_DAYS_LOGS_TO_KEEP);
         setDataPrunedNow();
         if (MyLog.isVerboseEnabled()) {
@@ -179,6 +181,26 @@ public class DataPruner {
         return nDeleted;
     }
 
+    /** Timeline items of deleted activities are removed by a trigger, this is a safety net for missed ones */
+    long pruneTimelineItems() {
+        final String method = "pruneTimelineItems";
+        SQLiteDatabase db = MyContextHolder.get().getDatabase();
+        if (db == null) {
+            MyLog.v(this, method + "; Database is null");
+            return 0;
+        }
+        long nDeleted = 0;
+        try {
+            nDeleted = TimelineItemTable.pruneOrphans(db);
+        } catch (Exception e) {
+            MyLog.i(this, method + " failed", e);
+        }
+        if (nDeleted > 0) {
+            MyLog.v(this, method + "; Deleted " + nDeleted + " items");
+        }
+        return nDeleted;
+    }
+
     public static void setDataPrunedNow() {
         SharedPreferencesUtil.putLong(MyPreferences.KEY_DATA_PRUNED_DATE, System.currentTimeMillis());
     }
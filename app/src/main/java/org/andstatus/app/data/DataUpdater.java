@@ -17,6 +17,7 @@
 package org.andstatus.app.data;
 
 import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
@@ -68,9 +69,11 @@ public class DataUpdater {
 
     public static void onActivities(CommandExecutionContext execContext, List<AActivity> activities) {
         DataUpdater dataUpdater = new DataUpdater(execContext);
-        for (AActivity mbActivity : activities) {
-            dataUpdater.onActivity(mbActivity);
-        }
+        dataUpdater.inTransaction(() -> {
+            for (AActivity mbActivity : activities) {
+                dataUpdater.onActivity(mbActivity);
+            }
+        });
     }
 
     public DataUpdater(MyAccount ma) {
@@ -110,6 +113,41 @@ public class DataUpdater {
         return activity;
     }
 
+    /**
+     * Stores a downloaded page of activities in one database transaction, instead of committing each row,
+     * and rolls back the whole page on failure. Latest actor activities are saved by {@link #saveLum()}
+     */
+    public void onActivities(List<AActivity> activities) {
+        inTransaction(() -> {
+            for (AActivity activity : activities) {
+                onActivity(activity, false);
+            }
+        });
+    }
+
+    /** Rows are written via {@link MyProvider} and {@link DbUtils} to the same database on this thread,
+     * so they join the transaction. Transactions may be nested */
+    private void inTransaction(Runnable runnable) {
+        SQLiteDatabase db = execContext.getMyContext().getDatabase();
+        if (db == null) {
+            runnable.run();
+            return;
+        }
+        boolean committed = false;
+        db.beginTransactionNonExclusive();
+        try {
+            runnable.run();
+            db.setTransactionSuccessful();
+            committed = true;
+        } finally {
+            db.endTransaction();
+            if (!committed) {
+                // Ids of rolled back rows might be cached
+                OidCache.clear();
+            }
+        }
+    }
+
     private void updateActivity(AActivity activity) {
         if (!activity.isSubscribedByMe().equals(TriState.FALSE)
             && activity.getUpdatedDate() > 0
@@ -244,6 +282,9 @@ public class DataUpdater {
                 execContext.getContext().getContentResolver().update(msgUri, values, null, null);
                 MyLog.v("Note", "Updated " + note);
             }
+            if (values.containsKey(NoteTable.NOTE_OID)) {
+                OidCache.onSaved(OidCache.Key.NOTE_OID, note.origin.getId(), note.oid, note.noteId);
+            }
             note.audience().save(execContext.getMyContext(), note.origin, note.noteId);
 
             if (isFirstTimeLoaded || isDraftUpdated) {
@@ -421,6 +462,7 @@ public class DataUpdater {
             } else if (values.size() > 0) {
                 execContext.getContext().getContentResolver().update(actorUri, values, null, null);
             }
+            onActorSaved(actor, values);
             if (actor.hasLatestNote()) {
                 updateNote(actor.getLatestActivity(), false);
             }
@@ -433,6 +475,16 @@ public class DataUpdater {
         MyLog.v(this, method + "; actorId=" + actor.actorId + "; oid=" + actorOid);
     }
 
+    /** Keeps {@link OidCache} consistent with identifying columns of the actor, which were just written */
+    private static void onActorSaved(Actor actor, ContentValues values) {
+        if (values.containsKey(ActorTable.ACTOR_OID) || values.containsKey(ActorTable.WEBFINGER_ID)
+                || values.containsKey(ActorTable.USERNAME)) {
+            OidCache.onChanged(OidCache.Key.ACTOR_OID, actor.origin.getId(), actor.actorId);
+            OidCache.onSaved(OidCache.Key.ACTOR_OID, actor.origin.getId(),
+                    values.getAsString(ActorTable.ACTOR_OID), actor.actorId);
+        }
+    }
+
     public void downloadOneNoteBy(String actorOid) throws ConnectionException {
         List<AActivity> activities = execContext.getConnection().getTimeline(
                 TimelineType.SENT.getConnectionApiRoutine(), TimelinePosition.EMPTY,
@@ -241,6 +241,21 @@ public final class DbUtils {
         db.execSQL(sql);
     }
 
+    /** Moves all content of the Write-Ahead Log into the database file, so the file may be copied alone */
+    public static void checkpoint(SQLiteDatabase db) {
+        if (db == null || !db.isOpen() || !db.isWriteAheadLoggingEnabled()) return;
+
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null);
+            cursor.moveToFirst();
+        } catch (Exception e) {
+            MyLog.w(TAG, "checkpoint", e);
+        } finally {
+            closeSilently(cursor);
+        }
+    }
+
     public static String sqlZeroToNull(long value) {
         return value == 0 ? null : Long.toString(value);
     }
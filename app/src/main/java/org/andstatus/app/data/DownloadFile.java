@@ -20,6 +20,7 @@ import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import org.andstatus.app.context.MyStorage;
+import org.andstatus.app.graphics.ImageThumbnails;
 import org.andstatus.app.util.MyLog;
 
 import java.io.File;
@@ -66,8 +67,9 @@ public class DownloadFile {
         return filename;
     }
 
-    /** returns true if the file existed and was deleted */
+    /** returns true if the file existed and was deleted. Thumbnails of the file are deleted also */
     public boolean delete() {
+        ImageThumbnails.deleteOf(filename);
         return deleteFileLogged(file);
     }
     
@@ -20,17 +20,25 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabaseLockedException;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
 
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.database.table.FriendshipTable;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.SharedPreferencesUtil;
 
+import java.util.Collection;
+
 /**
  * Helper class to update the "Friendship" information (see {@link FriendshipTable})
  * @author yvolk@yurivolkov.com
  */
 public class FriendshipValues {
+    private static final String TAG = FriendshipValues.class.getSimpleName();
+    /** Ids of the new set of followers or friends, see {@link #setFollowers(SQLiteDatabase, long, Collection)} */
+    private static final String NEW_IDS_TABLE = "temp.friendship_new_ids";
+    private static final String NEW_ID = "new_id";
     public long actorId;
     public long friendId;
     private ContentValues contentValues = new ContentValues();
@@ -62,6 +70,66 @@ public class FriendshipValues {
         fu.update(MyContextHolder.get().getDatabase());
     }
 
+    /** Makes the actors followers of the friend, and the friend not followed by all other actors */
+    public static void setFollowers(SQLiteDatabase db, long friendId, @NonNull Collection<Long> followerIds) {
+        replaceAll(db, FriendshipTable.FRIEND_ID, friendId, FriendshipTable.ACTOR_ID, followerIds);
+    }
+
+    /** Makes the actors friends of the follower, and all other actors not followed by the follower */
+    public static void setFriends(SQLiteDatabase db, long followerId, @NonNull Collection<Long> friendIds) {
+        replaceAll(db, FriendshipTable.ACTOR_ID, followerId, FriendshipTable.FRIEND_ID, friendIds);
+    }
+
+    /**
+     * The new ids are bulk loaded into a temporary table, and then both "unfollow" and "follow" changes
+     * are applied by two set-based statements in one transaction.
+     * The temporary table is visible to the connection of the transaction only
+     */
+    private static void replaceAll(SQLiteDatabase db, String fixedColumn, long fixedId, String idColumn,
+                                   Collection<Long> ids) {
+        if (db == null || fixedId == 0) return;
+
+        db.beginTransaction();
+        try {
+            DbUtils.execSQL(db, "CREATE TABLE IF NOT EXISTS " + NEW_IDS_TABLE
+                    + " (" + NEW_ID + " INTEGER PRIMARY KEY)");
+            DbUtils.execSQL(db, "DELETE FROM " + NEW_IDS_TABLE);
+            try (SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO " + NEW_IDS_TABLE
+                    + " (" + NEW_ID + ") VALUES (?)")) {
+                for (long id : ids) {
+                    if (id == 0) continue;
+                    insert.bindLong(1, id);
+                    insert.executeInsert();
+                }
+            }
+            int unfollowed;
+            try (SQLiteStatement unfollow = db.compileStatement("UPDATE " + FriendshipTable.TABLE_NAME
+                    + " SET " + FriendshipTable.FOLLOWED + "=0"
+                    + " WHERE " + fixedColumn + "=" + fixedId
+                    + " AND " + FriendshipTable.FOLLOWED + "=1"
+                    + " AND " + idColumn + " NOT IN (SELECT " + NEW_ID + " FROM " + NEW_IDS_TABLE + ")")) {
+                unfollowed = unfollow.executeUpdateDelete();
+            }
+            int followed;
+            try (SQLiteStatement follow = db.compileStatement("INSERT OR REPLACE INTO "
+                    + FriendshipTable.TABLE_NAME + " ("
+                    + fixedColumn + ", " + idColumn + ", " + FriendshipTable.FOLLOWED + ")"
+                    + " SELECT " + fixedId + ", " + NEW_ID + ", 1 FROM " + NEW_IDS_TABLE
+                    + " WHERE " + NEW_ID + " NOT IN (SELECT " + idColumn
+                    + " FROM " + FriendshipTable.TABLE_NAME
+                    + " WHERE " + fixedColumn + "=" + fixedId
+                    + " AND " + FriendshipTable.FOLLOWED + "=1)")) {
+                followed = follow.executeUpdateDelete();
+            }
+            MyLog.v(TAG, fixedColumn + "=" + fixedId + ", " + ids.size() + " new " + idColumn
+                    + "; followed:" + followed + ", unfollowed:" + unfollowed);
+            DbUtils.execSQL(db, "DROP TABLE " + NEW_IDS_TABLE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     public FriendshipValues(long actorId, long friendId) {
         this.actorId = actorId;
         this.friendId = friendId;
@@ -97,14 +97,25 @@ public abstract class ImageFile {
         return ImageCaches.getCachedImage(getCacheName(), this, getId(), downloadFile.getFilePath());
     }
 
-    public void preloadImageAsync() {
-        CachedImage image = getImageFromCache();
-        if (image != null) {
-            return;
-        }
-        if (downloadFile.existed) {
-            preloadAsync();
+    /** @return true if the image was downloaded, but it is not in the memory cache yet */
+    public boolean isToPrefetch() {
+        return downloadFile.existed && !ImageCaches.isCached(getCacheName(), downloadFile.getFilePath());
+    }
+
+    /** Loads the image into the memory cache. To be called in a background thread
+     * @return true if the image is in the cache now */
+    public boolean prefetch(Object objTag) {
+        if (!downloadFile.existed) {
+            return false;
         }
+        CachedImage image = ImageCaches.loadAndGetImage(getCacheName(), objTag, getId(), downloadFile.getFilePath());
+        return image != null && image != CachedImage.BROKEN;
+    }
+
+    /** The key to find duplicated requests */
+    @NonNull
+    public String getFilePath() {
+        return downloadFile.getFilePath();
     }
 
     public CachedImage loadAndGetImage() {
@@ -192,27 +203,6 @@ public abstract class ImageFile {
     }
 
 
-    private void preloadAsync() {
-        final String taskSuffix = "-prel";
-        AsyncTaskLauncher.execute(this, false,
-                new MyAsyncTask<Void, Void, Void>(getTaskId(taskSuffix), MyAsyncTask.PoolEnum.QUICK_UI) {
-
-                    @Override
-                    protected Void doInBackground2(Void... params) {
-                        CachedImage image = ImageCaches.loadAndGetImage(getCacheName(), this, getId(),
-                                downloadFile.getFilePath());
-                        if (image == null) {
-                            logResult("Failed to preload", taskSuffix);
-                        } else if (image.id != getId()) {
-                            logResult("Loaded wrong image.id:" + image.id, taskSuffix);
-                        } else {
-                            logResult("Preloaded", taskSuffix);
-                        }
-                        return null;
-                    }
-                });
-    }
-
     private void logResult(String msgLog, String taskSuffix) {
         if (MyLog.isVerboseEnabled()) {
             MyLog.v(ImageFile.this, getMsgLog(msgLog, taskSuffix));
@@ -100,7 +100,8 @@ public class MyProvider extends ContentProvider {
                 break;
 
             case ACTOR_ITEM:
-                count = deleteActors(db, BaseColumns._ID + "=" + uriParser.getActorId(), null);
+                count = db.delete(ActorTable.TABLE_NAME, BaseColumns._ID + "=" + uriParser.getActorId(), null);
+                OidCache.onDeleted(OidCache.Key.ACTOR_OID, uriParser.getActorId());
                 break;
 
             default:
@@ -171,6 +172,8 @@ public class MyProvider extends ContentProvider {
             if (!inTransaction) {
                 db.endTransaction();
             }
+            OidCache.clear(OidCache.Key.ACTIVITY_OID);
+            OidCache.clear(OidCache.Key.NOTE_OID);
         }
         return count;
     }
@@ -179,6 +182,7 @@ public class MyProvider extends ContentProvider {
         int count;
         // TODO: Delete related records also... 
         count = db.delete(ActorTable.TABLE_NAME, selection, selectionArgs);
+        OidCache.clear(OidCache.Key.ACTOR_OID);
         return count;
     }
 
@@ -196,6 +200,19 @@ public class MyProvider extends ContentProvider {
         }
         try {
             db.delete(tableName, where, null);
+            switch (tableName) {
+                case NoteTable.TABLE_NAME:
+                    OidCache.clear(OidCache.Key.NOTE_OID);
+                    break;
+                case ActorTable.TABLE_NAME:
+                    OidCache.clear(OidCache.Key.ACTOR_OID);
+                    break;
+                case ActivityTable.TABLE_NAME:
+                    OidCache.clear(OidCache.Key.ACTIVITY_OID);
+                    break;
+                default:
+                    break;
+            }
         } catch (Exception e) {
             MyLog.w(TAG, method + "; table:'" + tableName + "', where:'" + where + "'", e);
         }
@@ -222,6 +239,7 @@ public class MyProvider extends ContentProvider {
         } else {
             // Delete this activity only
             count = db.delete(ActivityTable.TABLE_NAME, BaseColumns._ID + "=" + activityId, null);
+            OidCache.onDeleted(OidCache.Key.ACTIVITY_OID, activityId);
             updateNoteFavorited(myContext, origin, noteId);
             updateNoteReblogged(myContext, origin, noteId);
         }
@@ -250,7 +268,7 @@ public class MyProvider extends ContentProvider {
         update(myContext, ActivityTable.TABLE_NAME,
                 ActivityTable.NEW_NOTIFICATION_EVENT + "=0",
                 timeline.isEmpty() ? "" : ActivityTable.NEW_NOTIFICATION_EVENT +
-                        SqlActorIds.fromIds(NotificationEventType.idsOfShownOn(timeline.getTimelineType())).getSql());
+                        SqlIds.fromIds(NotificationEventType.idsOfShownOn(timeline.getTimelineType())).getSql());
     }
 
     public static void setUnsentActivityNotification(@NonNull MyContext myContext, long activityId) {
@@ -410,11 +428,17 @@ public class MyProvider extends ContentProvider {
                         selection = "";
                     }
                     KeywordsFilter searchQuery  = new KeywordsFilter(rawQuery);
-                    selection = "(" + ActorTable.AUTHOR_NAME + " LIKE ?  OR "
-                            + searchQuery.getSqlSelection(NoteTable.BODY_TO_SEARCH)
-                            + ")" + selection;
-                    selectionArgs = searchQuery.prependSqlSelectionArgs(selectionArgs);
+                    // Notes are found by their ids, so the search doesn't scan all notes
+                    String noteIds = searchQuery.getSqlNoteIds();
+                    selection = "(" + ProjectionMap.ACTIVITY_TABLE_ALIAS + "." + ActivityTable.NOTE_ID + " IN ("
+                            + (noteIds.isEmpty() ? "" : noteIds + " UNION ")
+                            + "SELECT " + BaseColumns._ID + " FROM " + NoteTable.TABLE_NAME
+                            + " WHERE " + NoteTable.AUTHOR_ID + " IN ("
+                            + "SELECT " + BaseColumns._ID + " FROM " + ActorTable.TABLE_NAME
+                            + " WHERE " + TimelineSql.usernameField() + " LIKE ?)"
+                            + "))" + selection;
                     selectionArgs = StringUtils.addBeforeArray(selectionArgs, "%" + rawQuery + "%");
+                    selectionArgs = searchQuery.prependSqlSelectionArgs(selectionArgs);
                 }
                 break;
 
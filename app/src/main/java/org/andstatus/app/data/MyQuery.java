@@ -19,7 +19,6 @@ package org.andstatus.app.data;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDoneException;
-import android.database.sqlite.SQLiteStatement;
 import android.provider.BaseColumns;
 import android.support.annotation.NonNull;
 import android.support.v4.util.Pair;
@@ -44,11 +43,16 @@ import org.andstatus.app.util.StringUtils;
 import org.andstatus.app.util.TriState;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 
 public class MyQuery {
     private static final String TAG = MyQuery.class.getSimpleName();
@@ -90,29 +94,31 @@ public class MyQuery {
         }
         String msgLog = "oidToId; " + oidEnum + ", origin=" + originId + ", oid=" + oid;
         String sql;
+        OidCache.Key key;
         switch (oidEnum) {
             case NOTE_OID:
+                key = OidCache.Key.NOTE_OID;
                 sql = "SELECT " + BaseColumns._ID + " FROM " + NoteTable.TABLE_NAME
-                        + " WHERE " + NoteTable.ORIGIN_ID + "=" + originId + " AND " + NoteTable.NOTE_OID
-                        + "=" + quoteIfNotQuoted(oid);
+                        + " WHERE " + NoteTable.ORIGIN_ID + "=? AND " + NoteTable.NOTE_OID + "=?";
                 break;
             case ACTOR_OID:
+                key = OidCache.Key.ACTOR_OID;
                 sql = "SELECT " + BaseColumns._ID + " FROM " + ActorTable.TABLE_NAME
-                        + " WHERE " + ActorTable.ORIGIN_ID + "=" + originId + " AND " + ActorTable.ACTOR_OID
-                        + "=" + quoteIfNotQuoted(oid);
+                        + " WHERE " + ActorTable.ORIGIN_ID + "=? AND " + ActorTable.ACTOR_OID + "=?";
                 break;
             case ACTIVITY_OID:
+                key = OidCache.Key.ACTIVITY_OID;
                 sql = "SELECT " + BaseColumns._ID + " FROM " + ActivityTable.TABLE_NAME
-                        + " WHERE " + ActivityTable.ORIGIN_ID + "=" + originId + " AND " + ActivityTable.ACTIVITY_OID
-                        + "=" + quoteIfNotQuoted(oid);
+                        + " WHERE " + ActivityTable.ORIGIN_ID + "=? AND " + ActivityTable.ACTIVITY_OID + "=?";
                 break;
             default:
                 throw new IllegalArgumentException(msgLog + "; Unknown oidEnum");
         }
-        return sqlToLong(myContext.getDatabase(), msgLog, sql);
+        return OidCache.get(key, originId, oid, () -> sqlToLong(myContext.getDatabase(), msgLog, sql, originId, oid));
     }
 
-    public static long sqlToLong(SQLiteDatabase databaseIn, String msgLogIn, String sql) {
+    /** @param args values of "?" placeholders in the sql. Such statements are reused, see {@link StatementCache} */
+    public static long sqlToLong(SQLiteDatabase databaseIn, String msgLogIn, String sql, Object... args) {
         String msgLog = StringUtils.notNull(msgLogIn);
         SQLiteDatabase db = databaseIn == null ? MyContextHolder.get().getDatabase() : databaseIn;
         if (db == null) {
@@ -123,20 +129,17 @@ public class MyQuery {
             MyLog.v(TAG, msgLog + "; sql is empty");
             return 0;
         }
-        String msgLogSql = msgLog + (msgLog.contains(sql) ? "" : "; sql='" + sql +"'");
+        String msgLogSql = msgLog + (msgLog.contains(sql) ? "" : "; sql='" + sql +"'")
+                + (args.length == 0 ? "" : "; args:" + Arrays.toString(args));
         long value = 0;
-        SQLiteStatement statement = null;
         try {
-            statement = db.compileStatement(sql);
-            value = statement.simpleQueryForLong();
+            value = StatementCache.simpleQueryForLong(db, sql, args);
         } catch (SQLiteDoneException e) {
             MyLog.ignored(TAG, e);
             value = 0;
         } catch (Exception e) {
             MyLog.e(TAG, msgLogSql, e);
             value = 0;
-        } finally {
-            DbUtils.closeSilently(statement);
         }
         if (MyLog.isVerboseEnabled()) {
             MyLog.v(TAG, msgLogSql + " -> " + value);
@@ -199,21 +202,20 @@ public class MyQuery {
     public static String idToOid(SQLiteDatabase db, OidEnum oe, long entityId, long rebloggerActorId) {
         String method = "idToOid";
         String oid = "";
-        SQLiteStatement prog = null;
         String sql = "";
+        Object[] args = {entityId};
     
         if (entityId > 0) {
             try {
                 switch (oe) {
                     case NOTE_OID:
                         sql = "SELECT " + NoteTable.NOTE_OID + " FROM "
-                                + NoteTable.TABLE_NAME + " WHERE " + BaseColumns._ID + "=" + entityId;
+                                + NoteTable.TABLE_NAME + " WHERE " + BaseColumns._ID + "=?";
                         break;
     
                     case ACTOR_OID:
                         sql = "SELECT " + ActorTable.ACTOR_OID + " FROM "
-                                + ActorTable.TABLE_NAME + " WHERE " + BaseColumns._ID + "="
-                                + entityId;
+                                + ActorTable.TABLE_NAME + " WHERE " + BaseColumns._ID + "=?";
                         break;
     
                     case REBLOG_OID:
@@ -222,16 +224,16 @@ public class MyQuery {
                         }
                         sql = "SELECT " + ActivityTable.ACTIVITY_OID + " FROM "
                                 + ActivityTable.TABLE_NAME + " WHERE "
-                                + ActivityTable.NOTE_ID + "=" + entityId + " AND "
+                                + ActivityTable.NOTE_ID + "=? AND "
                                 + ActivityTable.ACTIVITY_TYPE + "=" + ActivityType.ANNOUNCE.id + " AND "
-                                + ActivityTable.ACTOR_ID + "=" + rebloggerActorId;
+                                + ActivityTable.ACTOR_ID + "=?";
+                        args = new Object[]{entityId, rebloggerActorId};
                         break;
     
                     default:
                         throw new IllegalArgumentException(method + "; Unknown parameter: " + oe);
                 }
-                prog = db.compileStatement(sql);
-                oid = prog.simpleQueryForString();
+                oid = StatementCache.simpleQueryForString(db, sql, args);
                 
                 if (TextUtils.isEmpty(oid) && oe == OidEnum.REBLOG_OID) {
                     // This not reblogged note
@@ -244,8 +246,6 @@ public class MyQuery {
             } catch (Exception e) {
                 MyLog.e(TAG, method, e);
                 oid = "";
-            } finally {
-                DbUtils.closeSilently(prog);
             }
             if (MyLog.isVerboseEnabled()) {
                 MyLog.v(TAG, method + ": " + oe + " + " + entityId + " -> " + oid);
@@ -298,35 +298,55 @@ public class MyQuery {
         return noteIdToActors(db, origin, noteId, ActivityType.ANNOUNCE, ActivityType.UNDO_ANNOUNCE);
     }
 
+    /** Rebloggers of each of the notes (noteId is a key), found by one query */
+    @NonNull
+    public static Map<Long, List<Actor>> getRebloggers(@NonNull MyContext myContext, @NonNull Collection<Long> noteIds) {
+        return noteIdsToActors(myContext.getDatabase(), originId -> myContext.origins().fromId(originId), noteIds,
+                ActivityType.ANNOUNCE, ActivityType.UNDO_ANNOUNCE);
+    }
+
     /** @return for each actor (actorId is a key): ID of the last type1 or type2 activity
      *  and the type of the activity */
     @NonNull
     public static List<Actor> noteIdToActors(
             SQLiteDatabase db, @NonNull Origin origin, long noteId, ActivityType typeToReturn, ActivityType undoType) {
-        String method = "noteIdToLastOfTypes";
-        final List<Long> foundActors = new ArrayList<>();
-        final List<Actor> actors = new ArrayList<>();
-        if (db == null || !origin.isValid() || noteId == 0) {
+        if (!origin.isValid() || noteId == 0) {
+            return new ArrayList<>();
+        }
+        List<Actor> actors = noteIdsToActors(db, originId -> origin, Collections.singletonList(noteId),
+                typeToReturn, undoType).get(noteId);
+        return actors == null ? new ArrayList<>() : actors;
+    }
+
+    @NonNull
+    private static Map<Long, List<Actor>> noteIdsToActors(SQLiteDatabase db, LongFunction<Origin> originFromId,
+            @NonNull Collection<Long> noteIds, ActivityType typeToReturn, ActivityType undoType) {
+        String method = "noteIdsToActors";
+        final Map<Long, Set<Long>> foundActors = new HashMap<>();
+        final Map<Long, List<Actor>> actors = new HashMap<>();
+        if (db == null || noteIds.isEmpty()) {
             return actors;
         }
-        String sql = "SELECT " + ActivityTable.ACTIVITY_TYPE + ", " + ActivityTable.ACTOR_ID + ", "
+        String sql = "SELECT " + ActivityTable.NOTE_ID + ", " + ActivityTable.ORIGIN_ID + ", "
+                + ActivityTable.ACTIVITY_TYPE + ", " + ActivityTable.ACTOR_ID + ", "
                 + ActorTable.WEBFINGER_ID + ", " + TimelineSql.usernameField() + " AS " + ActorTable.ACTIVITY_ACTOR_NAME
                 + " FROM " + ActivityTable.TABLE_NAME + " INNER JOIN " + ActorTable.TABLE_NAME
                 + " ON " + ActivityTable.ACTOR_ID + "=" + ActorTable.TABLE_NAME + "." + ActorTable._ID
-                + " WHERE " + ActivityTable.NOTE_ID + "=" + noteId + " AND "
+                + " WHERE " + ActivityTable.NOTE_ID + SqlIds.fromIds(noteIds).getSql() + " AND "
                 + ActivityTable.ACTIVITY_TYPE + " IN(" + typeToReturn.id + "," + undoType.id + ")"
                 + " ORDER BY " + ActivityTable.UPDATED_DATE + " DESC";
         try (Cursor cursor = db.rawQuery(sql, null)) {
             while(cursor.moveToNext()) {
+                long noteId = DbUtils.getLong(cursor, ActivityTable.NOTE_ID);
                 long actorId = DbUtils.getLong(cursor, ActivityTable.ACTOR_ID);
-                if (!foundActors.contains(actorId)) {
-                    foundActors.add(actorId);
+                if (foundActors.computeIfAbsent(noteId, id -> new HashSet<>()).add(actorId)) {
                     ActivityType activityType = ActivityType.fromId(DbUtils.getLong(cursor, ActivityTable.ACTIVITY_TYPE));
                     if (activityType.equals(typeToReturn)) {
-                        Actor actor = Actor.fromOriginAndActorId(origin, actorId);
+                        Actor actor = Actor.fromOriginAndActorId(
+                                originFromId.apply(DbUtils.getLong(cursor, ActivityTable.ORIGIN_ID)), actorId);
                         actor.setRealName(DbUtils.getString(cursor, ActorTable.ACTIVITY_ACTOR_NAME));
                         actor.setWebFingerId(DbUtils.getString(cursor, ActorTable.WEBFINGER_ID));
-                        actors.add(actor);
+                        actors.computeIfAbsent(noteId, id -> new ArrayList<>()).add(actor);
                     }
                 }
             }
@@ -387,7 +407,6 @@ public class MyQuery {
         final String method = "noteIdToUsername";
         String username = "";
         if (noteId != 0) {
-            SQLiteStatement prog = null;
             String sql = "";
             try {
                 if (actorIdColumnName.contentEquals(ActivityTable.ACTOR_ID)) {
@@ -398,7 +417,7 @@ public class MyQuery {
                     sql = "SELECT " + usernameField(actorInTimeline) + " FROM " + ActorTable.TABLE_NAME
                             + " INNER JOIN " + NoteTable.TABLE_NAME + " ON "
                             + NoteTable.TABLE_NAME + "." + actorIdColumnName + "=" + ActorTable.TABLE_NAME + "." + BaseColumns._ID
-                            + " WHERE " + NoteTable.TABLE_NAME + "." + BaseColumns._ID + "=" + noteId;
+                            + " WHERE " + NoteTable.TABLE_NAME + "." + BaseColumns._ID + "=?";
                 } else {
                     throw new IllegalArgumentException( method + "; Unknown name \"" + actorIdColumnName + "\"");
                 }
@@ -407,16 +426,13 @@ public class MyQuery {
                     MyLog.v(TAG, method + "; Database is null");
                     return "";
                 }
-                prog = db.compileStatement(sql);
-                username = prog.simpleQueryForString();
+                username = StatementCache.simpleQueryForString(db, sql, noteId);
             } catch (SQLiteDoneException e) {
                 MyLog.ignored(TAG, e);
                 username = "";
             } catch (Exception e) {
                 MyLog.e(TAG, method, e);
                 username = "";
-            } finally {
-                DbUtils.closeSilently(prog);
             }
             if (MyLog.isVerboseEnabled()) {
                 MyLog.v(TAG, method + "; " + actorIdColumnName + ": " + noteId + " -> " + username );
@@ -449,7 +465,7 @@ public class MyQuery {
         if (systemId == 0) {
             return 0;
         } else {
-            return conditionToLongColumnValue(databaseIn, null, tableName, columnName, "t._id=" + systemId);
+            return conditionToLongColumnValue(databaseIn, null, tableName, columnName, "t._id=?", systemId);
         }
     }
 
@@ -464,8 +480,10 @@ public class MyQuery {
         return conditionToLongColumnValue(null, columnName, tableName, columnName, condition);
     }
 
+    /** @param args values of "?" placeholders in the condition */
     public static long conditionToLongColumnValue(SQLiteDatabase databaseIn, String msgLog,
-                                                  String tableName, String columnName, String condition) {
+                                                  String tableName, String columnName, String condition,
+                                                  Object... args) {
         String sql = "SELECT t." + columnName +
                 " FROM " + tableName + " AS t" +
                 (TextUtils.isEmpty(condition) ? "" : " WHERE " + condition);
@@ -475,7 +493,7 @@ public class MyQuery {
         } else if (TextUtils.isEmpty(columnName)) {
             throw new IllegalArgumentException("columnName is empty: " + sql);
         } else {
-            columnValue = sqlToLong(databaseIn, msgLog, sql);
+            columnValue = sqlToLong(databaseIn, msgLog, sql, args);
         }
         return columnValue;
     }
@@ -501,11 +519,13 @@ public class MyQuery {
      */
     @NonNull
     public static String idToStringColumnValue(SQLiteDatabase db, String tableName, String columnName, long systemId) {
-        return (systemId == 0) ? "" : conditionToStringColumnValue(db, tableName, columnName, "_id=" + systemId);
+        return (systemId == 0) ? "" : conditionToStringColumnValue(db, tableName, columnName, "_id=?", systemId);
     }
 
+    /** @param args values of "?" placeholders in the condition */
     @NonNull
-    public static String conditionToStringColumnValue(SQLiteDatabase dbIn, String tableName, String columnName, String condition) {
+    public static String conditionToStringColumnValue(SQLiteDatabase dbIn, String tableName, String columnName,
+                                                      String condition, Object... args) {
         String method = "cond2str";
         SQLiteDatabase db = dbIn == null ? MyContextHolder.get().getDatabase() : dbIn;
         if (db == null) {
@@ -519,8 +539,8 @@ public class MyQuery {
         } else if (TextUtils.isEmpty(columnName)) {
             throw new IllegalArgumentException("columnName is empty: " + sql);
         } else {
-            try (SQLiteStatement prog = db.compileStatement(sql)) {
-                columnValue = prog.simpleQueryForString();
+            try {
+                columnValue = StatementCache.simpleQueryForString(db, sql, args);
             } catch (SQLiteDoneException e) {
                 MyLog.ignored(TAG, e);
             } catch (Exception e) {
@@ -528,7 +548,8 @@ public class MyQuery {
                 return "";
             }
             if (MyLog.isVerboseEnabled()) {
-                MyLog.v(TAG, method + "; '" + sql + "' -> " + columnValue );
+                MyLog.v(TAG, method + "; '" + sql + "'" + (args.length == 0 ? "" : " " + Arrays.toString(args))
+                        + " -> " + columnValue );
             }
         }
         return TextUtils.isEmpty(columnValue) ? "" : columnValue;
@@ -624,12 +645,13 @@ public class MyQuery {
                 throw new IllegalArgumentException( method + "; Illegal column '" + columnNameIn + "'");
         }
         return MyQuery.conditionToLongColumnValue(databaseIn, method, ActivityTable.TABLE_NAME, columnName,
-                ActivityTable.NOTE_ID + "=" + noteId +  " AND " + condition
-                        + " ORDER BY " + ActivityTable.UPDATED_DATE + " DESC LIMIT 1");
+                ActivityTable.NOTE_ID + "=? AND " + condition
+                        + " ORDER BY " + ActivityTable.UPDATED_DATE + " DESC LIMIT 1", noteId);
     }
 
     public static long webFingerIdToId(long originId, String webFingerId) {
-        return actorColumnValueToId(originId, ActorTable.WEBFINGER_ID, webFingerId);
+        return OidCache.get(OidCache.Key.WEBFINGER_ID, originId, webFingerId,
+                () -> actorColumnValueToId(originId, ActorTable.WEBFINGER_ID, webFingerId));
     }
     
     /**
@@ -641,7 +663,8 @@ public class MyQuery {
      *         {@link ActorTable#_ID} ), 0 if not found
      */
     public static long usernameToId(long originId, String username) {
-        return actorColumnValueToId(originId, ActorTable.USERNAME, username);
+        return OidCache.get(OidCache.Key.USERNAME, originId, username,
+                () -> actorColumnValueToId(originId, ActorTable.USERNAME, username));
     }
 
     private static long actorColumnValueToId(long originId, String columnName, String columnValue) {
@@ -652,23 +675,19 @@ public class MyQuery {
             return 0;
         }
         long id = 0;
-        SQLiteStatement prog = null;
         String sql = "";
         try {
             sql = "SELECT " + BaseColumns._ID + " FROM " + ActorTable.TABLE_NAME
                     + " WHERE "
                     + (originId == 0 ? "" : ActorTable.ORIGIN_ID + "=" + originId + " AND ")
-                    + columnName + "='" + columnValue + "'";
-            prog = db.compileStatement(sql);
-            id = prog.simpleQueryForLong();
+                    + columnName + "=?";
+            id = StatementCache.simpleQueryForLong(db, sql, columnValue);
         } catch (SQLiteDoneException e) {
             MyLog.ignored(MyQuery.TAG, e);
             id = 0;
         } catch (Exception e) {
             MyLog.e(MyQuery.TAG, method + ": SQL:'" + sql + "'", e);
             id = 0;
-        } finally {
-            DbUtils.closeSilently(prog);
         }
         if (MyLog.isVerboseEnabled()) {
             MyLog.v(MyQuery.TAG, method + ":" + originId + "+" + columnValue + " -> " + id);
@@ -739,16 +758,30 @@ public class MyQuery {
         return set;
     }
 
-    /** IDs of my users' actors, who follow the specified Actor */
+    /** IDs of my users' actors, who follow each of the specified Actors (friendId is a key), found by one query */
     @NonNull
-    public static Set<Long> getMyFollowersOf(long friendId) {
+    public static Map<Long, Set<Long>> getMyFollowersOf(@NonNull MyContext myContext,
+                                                        @NonNull Collection<Long> friendIds) {
+        final String method = "getMyFollowersOf";
+        final Map<Long, Set<Long>> followers = new HashMap<>();
+        SQLiteDatabase db = myContext.getDatabase();
+        if (db == null || friendIds.isEmpty()) {
+            return followers;
+        }
         String where = FriendshipTable.ACTOR_ID + SqlActorIds.forTimelineActor(Timeline.EMPTY).getSql()
-                + " AND " + FriendshipTable.FRIEND_ID + "=" + friendId
+                + " AND " + FriendshipTable.FRIEND_ID + SqlActorIds.fromIds(friendIds).getSql()
                 + " AND " + FriendshipTable.FOLLOWED + "=1";
-        String sql = "SELECT " + FriendshipTable.ACTOR_ID
+        String sql = "SELECT " + FriendshipTable.FRIEND_ID + ", " + FriendshipTable.ACTOR_ID
                 + " FROM " + FriendshipTable.TABLE_NAME
                 + " WHERE " + where;
-        return getLongs(sql);
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            while (cursor.moveToNext()) {
+                followers.computeIfAbsent(cursor.getLong(0), id -> new HashSet<>()).add(cursor.getLong(1));
+            }
+        } catch (Exception e) {
+            MyLog.i(TAG, method + "; SQL:'" + sql + "'", e);
+        }
+        return followers;
     }
 
     public static boolean isFollowing(long followerId, long friendId) {
@@ -775,9 +808,9 @@ public class MyQuery {
     }
 
     public static long conversationOidToId(long originId, String conversationOid) {
-        return conditionToLongColumnValue(NoteTable.TABLE_NAME, NoteTable.CONVERSATION_ID,
-                NoteTable.ORIGIN_ID + "=" + originId
-                + " AND " + NoteTable.CONVERSATION_OID + "=" + quoteIfNotQuoted(conversationOid));
+        return conditionToLongColumnValue(null, "conversationOidToId", NoteTable.TABLE_NAME,
+                NoteTable.CONVERSATION_ID,
+                NoteTable.ORIGIN_ID + "=? AND " + NoteTable.CONVERSATION_OID + "=?", originId, conversationOid);
     }
 
     @NonNull
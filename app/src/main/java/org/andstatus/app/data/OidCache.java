@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.andstatus.app.util.MyLog;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded LRU cache of resolved ids of notes, actors and activities by their oids (and actors also by
+ * webfinger ids and usernames), one per Origin. Only found ids are cached.
+ * Entries are added, when a row is found or saved, and are removed, when identifying columns of the row change
+ * or the row is deleted. Deletion by an arbitrary selection clears entries of the table,
+ * and a rolled back transaction clears the whole cache
+ * @author yvolk@yurivolkov.com
+ */
+public class OidCache {
+    private static final String TAG = OidCache.class.getSimpleName();
+    static final int MAX_ENTRIES_PER_ORIGIN = 2000;
+
+    public enum Key {
+        NOTE_OID,
+        ACTOR_OID,
+        ACTIVITY_OID,
+        WEBFINGER_ID,
+        USERNAME;
+
+        /** Keys, which resolve to ids of the same table */
+        boolean isOfTheSameTable(Key other) {
+            return this == other || (isOfActor() && other.isOfActor());
+        }
+
+        boolean isOfActor() {
+            return this == ACTOR_OID || this == WEBFINGER_ID || this == USERNAME;
+        }
+
+        /** The same for all keys of one table */
+        Key ofTable() {
+            return isOfActor() ? ACTOR_OID : this;
+        }
+    }
+
+    private static final Map<Long, OriginEntries> origins = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    /** LRU map of entry keys to ids and the reverse map of ids (of a table) to their entry keys */
+    private static class OriginEntries extends LinkedHashMap<String, Long> {
+        private final Map<String, Set<String>> entryKeysOfIds = new HashMap<>();
+
+        OriginEntries() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            if (size() <= MAX_ENTRIES_PER_ORIGIN) return false;
+
+            unlink(eldest.getKey(), eldest.getValue());
+            evictions.incrementAndGet();
+            return true;
+        }
+
+        void putEntry(String entryKey, long id) {
+            Long oldId = put(entryKey, id);
+            if (oldId != null && oldId != id) {
+                unlink(entryKey, oldId);
+            }
+            Set<String> entryKeys = entryKeysOfIds.get(toIdKey(keyOf(entryKey), id));
+            if (entryKeys == null) {
+                entryKeys = new HashSet<>();
+                entryKeysOfIds.put(toIdKey(keyOf(entryKey), id), entryKeys);
+            }
+            entryKeys.add(entryKey);
+        }
+
+        /** Removes entries of the id with the key or, if ofTheSameTable, with any key of its table */
+        void removeId(Key key, long id, boolean ofTheSameTable) {
+            String idKey = toIdKey(key, id);
+            Set<String> entryKeys = entryKeysOfIds.get(idKey);
+            if (entryKeys == null) return;
+
+            Iterator<String> iterator = entryKeys.iterator();
+            while (iterator.hasNext()) {
+                String entryKey = iterator.next();
+                if (ofTheSameTable || keyOf(entryKey) == key) {
+                    remove(entryKey);
+                    iterator.remove();
+                }
+            }
+            if (entryKeys.isEmpty()) {
+                entryKeysOfIds.remove(idKey);
+            }
+        }
+
+        void removeTable(Key key) {
+            Iterator<Map.Entry<String, Long>> iterator = entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Long> entry = iterator.next();
+                if (key.isOfTheSameTable(keyOf(entry.getKey()))) {
+                    entryKeysOfIds.remove(toIdKey(key, entry.getValue()));
+                    iterator.remove();
+                }
+            }
+        }
+
+        private void unlink(String entryKey, long id) {
+            String idKey = toIdKey(keyOf(entryKey), id);
+            Set<String> entryKeys = entryKeysOfIds.get(idKey);
+            if (entryKeys != null && entryKeys.remove(entryKey) && entryKeys.isEmpty()) {
+                entryKeysOfIds.remove(idKey);
+            }
+        }
+
+        private static String toIdKey(Key key, long id) {
+            return String.valueOf(key.ofTable().ordinal()) + id;
+        }
+    }
+
+    private OidCache() {
+        // Empty
+    }
+
+    /** @return The cached id or the id, found by the loader. 0 if not found */
+    static long get(@NonNull Key key, long originId, String value, @NonNull LongSupplier loader) {
+        if (originId == 0 || TextUtils.isEmpty(value)) return loader.getAsLong();
+
+        OriginEntries entries = origins.computeIfAbsent(originId, id -> new OriginEntries());
+        String entryKey = toEntryKey(key, value);
+        Long cached;
+        synchronized (entries) {
+            cached = entries.get(entryKey);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        long id = loader.getAsLong();
+        if (id != 0) {
+            synchronized (entries) {
+                entries.putEntry(entryKey, id);
+            }
+        }
+        return id;
+    }
+
+    /** The row with the id was saved. Its old key of the same kind, if any, is removed */
+    public static void onSaved(@NonNull Key key, long originId, String value, long id) {
+        if (originId == 0 || id == 0) return;
+
+        OriginEntries entries = origins.computeIfAbsent(originId, oid -> new OriginEntries());
+        synchronized (entries) {
+            entries.removeId(key, id, false);
+            if (!TextUtils.isEmpty(value)) {
+                entries.putEntry(toEntryKey(key, value), id);
+            }
+        }
+    }
+
+    /** Identifying columns of the row might change, so all keys of its table, pointing to it, are removed */
+    public static void onChanged(@NonNull Key key, long originId, long id) {
+        OriginEntries entries = origins.get(originId);
+        if (entries == null || id == 0) return;
+
+        synchronized (entries) {
+            entries.removeId(key, id, true);
+        }
+    }
+
+    /** The row of the table of the key was deleted. Its Origin may be unknown, so all Origins are checked */
+    public static void onDeleted(@NonNull Key key, long id) {
+        if (id == 0) return;
+
+        for (OriginEntries entries : origins.values()) {
+            synchronized (entries) {
+                entries.removeId(key, id, true);
+            }
+        }
+    }
+
+    /** Rows of the table of the key were deleted by a selection, so all entries of the table are removed */
+    public static void clear(@NonNull Key key) {
+        for (OriginEntries entries : origins.values()) {
+            synchronized (entries) {
+                entries.removeTable(key);
+            }
+        }
+    }
+
+    private static String toEntryKey(Key key, String value) {
+        return String.valueOf(key.ordinal()) + value;
+    }
+
+    private static Key keyOf(String entryKey) {
+        return Key.values()[entryKey.charAt(0) - '0'];
+    }
+
+    public static void clear() {
+        origins.clear();
+        MyLog.v(TAG, "Cleared; " + getStatistics());
+    }
+
+    /** @return Number of cached entries of all Origins */
+    public static int size() {
+        int size = 0;
+        for (OriginEntries entries : origins.values()) {
+            synchronized (entries) {
+                size += entries.size();
+            }
+        }
+        return size;
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    @NonNull
+    public static String getStatistics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return "Oid cache: " + size() + " entries, hits:" + hitCount + ", misses:" + (total - hitCount)
+                + (total == 0 ? "" : ", hit ratio:" + (hitCount * 100 / total) + "%")
+                + ", evictions:" + evictions.get();
+    }
+}
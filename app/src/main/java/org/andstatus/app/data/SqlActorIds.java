@@ -22,10 +22,7 @@ import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.net.social.Actor;
 import org.andstatus.app.timeline.meta.Timeline;
 
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
 
@@ -33,9 +30,8 @@ import static java.util.stream.Collectors.toList;
  * Helper class to construct sql WHERE clause selecting by UserIds
  * @author yvolk@yurivolkov.com
  */
-public class SqlActorIds {
+public class SqlActorIds extends SqlIds {
     public static final SqlActorIds EMPTY = new SqlActorIds();
-    private final Set<Long> ids;
 
     public static SqlActorIds forTimelineActor(@NonNull Timeline timeline) {
         if (timeline.isCombined()) {
@@ -64,45 +60,10 @@ public class SqlActorIds {
     }
 
     private SqlActorIds(@NonNull Collection<Long> ids) {
-        this.ids = new HashSet<>(ids);
+        super(ids);
     }
 
     private SqlActorIds(Long ... id) {
-        this.ids = new HashSet<>(Arrays.asList(id));
-    }
-
-    public int size() {
-        return ids.size();
-    }
-
-    public String getList() {
-        StringBuilder sb = new StringBuilder();
-        for (long id : ids) {
-            if (sb.length() > 0) {
-                sb.append(", ");
-            }
-            sb.append(Long.toString(id));
-        }
-        return sb.toString();
-    }
-
-    public String getSql() {
-        if (size() == 0) {
-            return "";
-        } else if (size() == 1) {
-            return "=" + ids.iterator().next();
-        } else {
-            return " IN (" + getList() + ")";
-        }
-    }
-
-    public String getNotSql() {
-        if (size() == 0) {
-            return "";
-        } else if (size() == 1) {
-            return "!=" + ids.iterator().next();
-        } else {
-            return " NOT IN (" + getList() + ")";
-        }
+        super(id);
     }
 }
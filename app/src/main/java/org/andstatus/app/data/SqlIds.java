@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Helper class to construct sql WHERE clause selecting by ids of rows of any table, e.g. by note ids.
+ * See {@link SqlActorIds} for ids of actors
+ * @author yvolk@yurivolkov.com
+ */
+public class SqlIds {
+    public static final SqlIds EMPTY = new SqlIds();
+    private final Set<Long> ids;
+
+    public static SqlIds fromIds(@NonNull Collection<Long> ids) {
+        return new SqlIds(ids);
+    }
+
+    protected SqlIds(@NonNull Collection<Long> ids) {
+        this.ids = new HashSet<>(ids);
+    }
+
+    protected SqlIds(Long ... id) {
+        this.ids = new HashSet<>(Arrays.asList(id));
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public String getList() {
+        StringBuilder sb = new StringBuilder();
+        for (long id : ids) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(Long.toString(id));
+        }
+        return sb.toString();
+    }
+
+    public String getSql() {
+        if (size() == 0) {
+            return "";
+        } else if (size() == 1) {
+            return "=" + ids.iterator().next();
+        } else {
+            return " IN (" + getList() + ")";
+        }
+    }
+
+    public String getNotSql() {
+        if (size() == 0) {
+            return "";
+        } else if (size() == 1) {
+            return "!=" + ids.iterator().next();
+        } else {
+            return " NOT IN (" + getList() + ")";
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+
+import org.andstatus.app.util.MyLog;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiled single value queries of the current database, keyed by their SQL with "?" placeholders,
+ * so frequent lookups by id or oid are parsed once. Arguments are bound on each call.
+ * Queries without arguments have their literals inlined, so they are not cached
+ * @author yvolk@yurivolkov.com
+ */
+public class StatementCache {
+    static final int MAX_STATEMENTS = 48;
+
+    private static SQLiteDatabase database = null;
+    private static final Map<String, SQLiteStatement> statements = new LinkedHashMap<String, SQLiteStatement>(
+            16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+            if (size() > MAX_STATEMENTS) {
+                DbUtils.closeSilently(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private StatementCache() {
+        // Empty
+    }
+
+    /** @throws android.database.sqlite.SQLiteDoneException if nothing found */
+    static long simpleQueryForLong(@NonNull SQLiteDatabase db, @NonNull String sql, Object... args) {
+        return query(db, sql, args, SQLiteStatement::simpleQueryForLong);
+    }
+
+    /** @throws android.database.sqlite.SQLiteDoneException if nothing found */
+    static String simpleQueryForString(@NonNull SQLiteDatabase db, @NonNull String sql, Object... args) {
+        return query(db, sql, args, SQLiteStatement::simpleQueryForString);
+    }
+
+    private static <T> T query(SQLiteDatabase db, String sql, Object[] args, Function<SQLiteStatement, T> query) {
+        if (args.length > 0) {
+            SQLiteStatement statement = getStatement(db, sql);
+            synchronized (statement) {
+                try {
+                    bind(statement, args);
+                    return query.apply(statement);
+                } catch (IllegalStateException e) {
+                    // The statement was evicted and closed by another thread, so we compile it anew below
+                    MyLog.ignored(StatementCache.class, e);
+                } finally {
+                    statement.clearBindings();
+                }
+            }
+        }
+        try (SQLiteStatement statement = db.compileStatement(sql)) {
+            bind(statement, args);
+            return query.apply(statement);
+        }
+    }
+
+    private static synchronized SQLiteStatement getStatement(SQLiteDatabase db, String sql) {
+        if (db != database) {
+            clear();
+            database = db;
+        }
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    private static void bind(SQLiteStatement statement, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg == null) {
+                statement.bindNull(i + 1);
+            } else if (arg instanceof Long || arg instanceof Integer) {
+                statement.bindLong(i + 1, ((Number) arg).longValue());
+            } else {
+                statement.bindString(i + 1, arg.toString());
+            }
+        }
+    }
+
+    /** Called, when the database is closed or released.
+     * Statements, which are still executed by other threads, are released after that */
+    public static synchronized void clear() {
+        for (SQLiteStatement statement : statements.values()) {
+            DbUtils.closeSilently(statement);
+        }
+        statements.clear();
+        database = null;
+    }
+
+    static synchronized int size() {
+        return statements.size();
+    }
+}
@@ -31,6 +31,7 @@ import org.andstatus.app.database.table.ActorTable;
 import org.andstatus.app.database.table.DownloadTable;
 import org.andstatus.app.database.table.FriendshipTable;
 import org.andstatus.app.database.table.NoteTable;
+import org.andstatus.app.database.table.TimelineItemTable;
 import org.andstatus.app.origin.Origin;
 import org.andstatus.app.origin.OriginType;
 import org.andstatus.app.timeline.meta.Timeline;
@@ -60,7 +61,10 @@ public class TimelineSql {
     static String tablesForTimeline(Uri uri, String[] projection) {
         Timeline timeline = Timeline.fromParsedUri(MyContextHolder.get(), ParsedUri.fromUri(uri), "");
         Collection<String> columns = new java.util.HashSet<>(Arrays.asList(projection));
+        final boolean isMaterialized = TimelineItemTable.isMaterialized(timeline.getTimelineType());
         SqlWhere actWhere = new SqlWhere().append(ActivityTable.UPDATED_DATE, ">0");
+        SqlWhere itemWhere = new SqlWhere().append(TimelineItemTable.TABLE_NAME + "." + TimelineItemTable.TIMELINE_TYPE,
+                "='" + timeline.getTimelineType().save() + "'");
         SqlWhere noteWhere = new SqlWhere();
 
         switch (timeline.getTimelineType()) {
@@ -84,8 +88,7 @@ public class TimelineSql {
                 actWhere.append(BaseColumns._ID + " IN (" + activityIds + ")");
                 break;
             case HOME:
-                actWhere.append(ActivityTable.SUBSCRIBED + "=" + TriState.TRUE.id)
-                        .append(ActivityTable.ACCOUNT_ID, SqlActorIds.forTimelineAccount(timeline));
+                itemWhere.append(TimelineItemTable.ACTOR_ID, SqlActorIds.forTimelineAccount(timeline));
                 noteWhere.append(NOTE_TABLE_ALIAS + "." + NoteTable.PRIVATE, "!=" + TriState.TRUE.id);
                 break;
             case PRIVATE:
@@ -97,8 +100,7 @@ public class TimelineSql {
                 noteWhere.append(NOTE_TABLE_ALIAS + "." + NoteTable.FAVORITED, "=" + TriState.TRUE.id);
                 break;
             case INTERACTIONS:
-                actWhere.append(ActivityTable.INTERACTED, "=" + TriState.TRUE.id)
-                        .append(ActivityTable.NOTIFIED_ACTOR_ID, SqlActorIds.forTimelineActor(timeline));
+                itemWhere.append(TimelineItemTable.ACTOR_ID, SqlActorIds.forTimelineActor(timeline));
                 break;
             case PUBLIC:
                 noteWhere.append(NOTE_TABLE_ALIAS + "." + NoteTable.PRIVATE, "!=" + TriState.TRUE.id);
@@ -115,19 +117,27 @@ public class TimelineSql {
                 actWhere.append(ActivityTable.ACTOR_ID, SqlActorIds.forTimelineActor(timeline));
                 break;
             case NOTIFICATIONS:
-                actWhere.append(ActivityTable.NOTIFIED, "=" + TriState.TRUE.id)
-                        .append(ActivityTable.NOTIFIED_ACTOR_ID, SqlActorIds.forTimelineActor(timeline));
+                itemWhere.append(TimelineItemTable.ACTOR_ID, SqlActorIds.forTimelineActor(timeline));
                 break;
             default:
                 break;
         }
 
         if (timeline.getTimelineType().isAtOrigin() && !timeline.isCombined()) {
-            actWhere.append(ActivityTable.ORIGIN_ID, "=" + timeline.getOrigin().getId());
+            (isMaterialized ? itemWhere : actWhere).append(ActivityTable.ORIGIN_ID, "=" + timeline.getOrigin().getId());
         }
-        String  tables = "(SELECT * FROM " + ActivityTable.TABLE_NAME + actWhere.getWhere()
-                + ") AS " + ProjectionMap.ACTIVITY_TABLE_ALIAS
-                + (noteWhere.isEmpty() ? " LEFT" : " INNER") + " JOIN "
+        String tables;
+        if (isMaterialized) {
+            // Index range scan of the timeline's items, followed by lookups of their activities
+            tables = TimelineItemTable.TABLE_NAME + " INNER JOIN " + ActivityTable.TABLE_NAME
+                    + " AS " + ProjectionMap.ACTIVITY_TABLE_ALIAS
+                    + " ON (" + ProjectionMap.ACTIVITY_TABLE_ALIAS + "." + BaseColumns._ID + "="
+                        + TimelineItemTable.ACTIVITY_ID + itemWhere.getAndWhere() + ")";
+        } else {
+            tables = "(SELECT * FROM " + ActivityTable.TABLE_NAME + actWhere.getWhere()
+                    + ") AS " + ProjectionMap.ACTIVITY_TABLE_ALIAS;
+        }
+        tables += (noteWhere.isEmpty() ? " LEFT" : " INNER") + " JOIN "
                 + NoteTable.TABLE_NAME + " AS " + NOTE_TABLE_ALIAS
                 + " ON (" + NOTE_TABLE_ALIAS + "." + BaseColumns._ID + "="
                     + ProjectionMap.ACTIVITY_TABLE_ALIAS + "." + ActivityTable.NOTE_ID
@@ -18,6 +18,7 @@ package org.andstatus.app.data.checker;
 
 import android.database.Cursor;
 
+import org.andstatus.app.database.table.NoteSearchTable;
 import org.andstatus.app.database.table.NoteTable;
 import org.andstatus.app.service.MyServiceManager;
 import org.andstatus.app.util.MyHtml;
@@ -73,6 +74,17 @@ class SearchIndexUpdate extends DataChecker {
             logger.logProgress(logMsg);
             MyLog.e(this, logMsg, e);
         }
+        if (!countOnly) {
+            logger.logProgress("Rebuilding full text search index of " + rowsCount + " notes");
+            MyServiceManager.setServiceUnavailable();
+            try {
+                NoteSearchTable.rebuild(myContext.getDatabase());
+            } catch (Exception e) {
+                String logMsg = "Error rebuilding full text search index: " + e.getMessage();
+                logger.logProgress(logMsg);
+                MyLog.e(this, logMsg, e);
+            }
+        }
         logger.logProgress(changedCount == 0
                 ? "No changes to search index were needed. " + rowsCount + " notes"
                 : "Changed search index for " + changedCount + " of " + rowsCount + " notes");
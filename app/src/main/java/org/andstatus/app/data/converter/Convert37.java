@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data.converter;
+
+import org.andstatus.app.data.DbUtils;
+
+class Convert37 extends ConvertOneStep {
+    Convert37() {
+        versionTo = 38;
+    }
+
+    @Override
+    protected void execute2() {
+        progressLogger.logProgress(stepTitle + ": Creating search index of notes");
+
+        sql = "CREATE INDEX idx_note_author ON note (note_author_id)";
+        DbUtils.execSQL(db, sql);
+
+        sql = "CREATE VIRTUAL TABLE note_search USING fts4(content=\"note\", body_to_search)";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE TRIGGER note_search_before_update BEFORE UPDATE OF body_to_search ON note BEGIN DELETE FROM note_search WHERE docid=old._id; END";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE TRIGGER note_search_before_delete BEFORE DELETE ON note BEGIN DELETE FROM note_search WHERE docid=old._id; END";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE TRIGGER note_search_after_update AFTER UPDATE OF body_to_search ON note BEGIN INSERT INTO note_search (docid, body_to_search) VALUES (new._id, new.body_to_search); END";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE TRIGGER note_search_after_insert AFTER INSERT ON note BEGIN INSERT INTO note_search (docid, body_to_search) VALUES (new._id, new.body_to_search); END";
+        DbUtils.execSQL(db, sql);
+
+        progressLogger.logProgress(stepTitle + ": Indexing notes");
+        sql = "INSERT INTO note_search(note_search) VALUES('rebuild')";
+        DbUtils.execSQL(db, sql);
+    }
+}
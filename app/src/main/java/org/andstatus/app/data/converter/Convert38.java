@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.data.converter;
+
+import org.andstatus.app.data.DbUtils;
+
+class Convert38 extends ConvertOneStep {
+    Convert38() {
+        versionTo = 39;
+    }
+
+    @Override
+    protected void execute2() {
+        progressLogger.logProgress(stepTitle + ": Materializing timelines");
+
+        sql = "CREATE TABLE timeline_item (item_timeline_type TEXT NOT NULL,item_actor_id INTEGER NOT NULL,item_activity_id INTEGER NOT NULL,item_note_id INTEGER NOT NULL DEFAULT 0,item_date INTEGER NOT NULL, CONSTRAINT pk_timeline_item PRIMARY KEY (item_timeline_type, item_actor_id, item_activity_id))";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE INDEX idx_timeline_item_date ON timeline_item (item_timeline_type, item_actor_id, item_date, item_activity_id)";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE INDEX idx_timeline_item_activity ON timeline_item (item_activity_id)";
+        DbUtils.execSQL(db, sql);
+
+        String insertHome = "INSERT INTO timeline_item (item_timeline_type, item_actor_id, item_activity_id, item_note_id, item_date) SELECT 'home', new.account_id, new._id, new.activity_note_id, new.activity_updated_date WHERE new.subscribed=2 AND new.account_id!=0 AND new.activity_updated_date>0;";
+        String insertInteractions = "INSERT INTO timeline_item (item_timeline_type, item_actor_id, item_activity_id, item_note_id, item_date) SELECT 'interactions', new.notified_actor_id, new._id, new.activity_note_id, new.activity_updated_date WHERE new.interacted=2 AND new.notified_actor_id!=0 AND new.activity_updated_date>0;";
+        String insertNotifications = "INSERT INTO timeline_item (item_timeline_type, item_actor_id, item_activity_id, item_note_id, item_date) SELECT 'notifications', new.notified_actor_id, new._id, new.activity_note_id, new.activity_updated_date WHERE new.notified=2 AND new.notified_actor_id!=0 AND new.activity_updated_date>0;";
+        String deleteOld = "DELETE FROM timeline_item WHERE item_activity_id=old._id;";
+        sql = "CREATE TRIGGER timeline_item_after_insert AFTER INSERT ON activity BEGIN "
+                + insertHome + insertInteractions + insertNotifications + " END";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE TRIGGER timeline_item_after_update AFTER UPDATE OF account_id, activity_note_id, subscribed, interacted, notified, notified_actor_id, activity_updated_date ON activity BEGIN "
+                + deleteOld + insertHome + insertInteractions + insertNotifications + " END";
+        DbUtils.execSQL(db, sql);
+        sql = "CREATE TRIGGER timeline_item_after_delete AFTER DELETE ON activity BEGIN " + deleteOld + " END";
+        DbUtils.execSQL(db, sql);
+
+        progressLogger.logProgress(stepTitle + ": Filling timelines");
+        sql = "INSERT INTO timeline_item (item_timeline_type, item_actor_id, item_activity_id, item_note_id, item_date) SELECT 'home', account_id, _id, activity_note_id, activity_updated_date FROM activity WHERE subscribed=2 AND account_id!=0 AND activity_updated_date>0";
+        DbUtils.execSQL(db, sql);
+        sql = "INSERT INTO timeline_item (item_timeline_type, item_actor_id, item_activity_id, item_note_id, item_date) SELECT 'interactions', notified_actor_id, _id, activity_note_id, activity_updated_date FROM activity WHERE interacted=2 AND notified_actor_id!=0 AND activity_updated_date>0";
+        DbUtils.execSQL(db, sql);
+        sql = "INSERT INTO timeline_item (item_timeline_type, item_actor_id, item_activity_id, item_note_id, item_date) SELECT 'notifications', notified_actor_id, _id, activity_note_id, activity_updated_date FROM activity WHERE notified=2 AND notified_actor_id!=0 AND activity_updated_date>0";
+        DbUtils.execSQL(db, sql);
+    }
+}
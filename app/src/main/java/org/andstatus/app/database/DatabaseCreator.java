@@ -26,8 +26,10 @@ import org.andstatus.app.database.table.AudienceTable;
 import org.andstatus.app.database.table.CommandTable;
 import org.andstatus.app.database.table.DownloadTable;
 import org.andstatus.app.database.table.FriendshipTable;
+import org.andstatus.app.database.table.NoteSearchTable;
 import org.andstatus.app.database.table.NoteTable;
 import org.andstatus.app.database.table.OriginTable;
+import org.andstatus.app.database.table.TimelineItemTable;
 import org.andstatus.app.database.table.TimelineTable;
 import org.andstatus.app.database.table.UserTable;
 import org.andstatus.app.util.MyLog;
@@ -40,6 +42,8 @@ public class DatabaseCreator {
      * Current database scheme version, defined by AndStatus developers.
      * This is used to check (and upgrade if necessary) existing database after application update.
      *
+     * v.39 2018-03-17 app.v.38 Materialized timelines {@link TimelineItemTable} added.
+     * v.38 2018-03-10 app.v.38 Full text search index of notes {@link NoteSearchTable} added.
      * v.37 2018-02-19 app.v.37 UserTable added, one-to-many linked to ActorTable. Renaming fields.
      * v.27 2017-11-04 app.v.36 Moving to ActivityStreams data model.
      *                 ActivityTable and AudienceTable added, MsOfUserTable dropped. Others refactored.
@@ -66,7 +70,7 @@ public class DatabaseCreator {
      *      All messages are in the same table.
      *      Allows to have multiple User Accounts in different Originating systems (twitter.com etc. )
      */
-    public static final int DATABASE_VERSION = 37;
+    public static final int DATABASE_VERSION = 39;
     public static final long ORIGIN_ID_TWITTER =  1L;
 
     private final SQLiteDatabase db;
@@ -83,6 +87,7 @@ public class DatabaseCreator {
         MyLog.i(this, "Creating tables");
         OriginTable.create(db);
         NoteTable.create(db);
+        NoteSearchTable.create(db);
         UserTable.create(db);
         ActorTable.create(db);
         AudienceTable.create(db);
@@ -90,6 +95,7 @@ public class DatabaseCreator {
         DownloadTable.create(db);
         TimelineTable.create(db);
         ActivityTable.create(db);
+        TimelineItemTable.create(db);
         CommandTable.create(db);
         return this;
     }
@@ -22,6 +22,7 @@ import android.database.sqlite.SQLiteOpenHelper;
 
 import org.andstatus.app.context.MyContextState;
 import org.andstatus.app.context.MyStorage;
+import org.andstatus.app.data.StatementCache;
 import org.andstatus.app.data.converter.ApplicationUpgradeException;
 import org.andstatus.app.data.converter.DatabaseConverterController;
 import org.andstatus.app.util.MyLog;
@@ -37,6 +38,8 @@ public final class DatabaseHolder extends SQLiteOpenHelper  {
     public DatabaseHolder(Context context, boolean creationEnabled) {
         super(context, DATABASE_NAME, null, DatabaseCreator.DATABASE_VERSION);
         this.creationEnabled = creationEnabled;
+        // Readers are not blocked by transactions, e.g. while a page of a timeline is being stored
+        setWriteAheadLoggingEnabled(true);
         File databasePath = context.getDatabasePath(DATABASE_NAME);
         if (databasePath == null || (!creationEnabled && !databasePath.exists())) {
             wasNotCreated = true;
@@ -44,6 +47,13 @@ public final class DatabaseHolder extends SQLiteOpenHelper  {
     }
 
     private final ThreadLocal<Boolean> onUpgradeTriggered = new ThreadLocal<>();
+
+    @Override
+    public synchronized void close() {
+        StatementCache.clear();
+        super.close();
+    }
+
     public MyContextState checkState() {
         if (wasNotCreated) {
             return MyContextState.DATABASE_UNAVAILABLE;
@@ -21,6 +21,7 @@ import android.provider.BaseColumns;
 import android.support.annotation.NonNull;
 
 import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.data.ProjectionMap;
 import org.andstatus.app.net.social.AActivity;
 import org.andstatus.app.net.social.ActivityType;
 import org.andstatus.app.notification.NotificationEventType;
@@ -67,12 +68,21 @@ public final class ActivityTable implements BaseColumns {
     public static final String AUTHOR_ID = "author_id";
     public static final String LAST_UPDATE_ID = "last_update_id";
 
+    /** Timelines are sorted by the date and then by the activity id, so the sort key is unique for keyset paging */
     public static String getTimeSortOrder(TimelineType timelineType, boolean ascending) {
-        return getTimeSortField(timelineType) + (ascending ? " ASC" : " DESC");
+        final String direction = ascending ? " ASC" : " DESC";
+        return getTimeSortField(timelineType) + direction + ", " + getTimeSortIdField(timelineType) + direction;
     }
 
+    /** Materialized timelines are sorted by the same date, copied to their index, see {@link TimelineItemTable} */
     public static String getTimeSortField(@NonNull TimelineType timelineType) {
-        return UPDATED_DATE;
+        return TimelineItemTable.isMaterialized(timelineType) ? TimelineItemTable.ITEM_DATE : UPDATED_DATE;
+    }
+
+    public static String getTimeSortIdField(@NonNull TimelineType timelineType) {
+        return TimelineItemTable.isMaterialized(timelineType)
+                ? TimelineItemTable.ACTIVITY_ID
+                : ProjectionMap.ACTIVITY_TABLE_ALIAS + "." + _ID;
     }
 
     private ActivityTable() {
@@ -121,6 +131,8 @@ public final class ActivityTable implements BaseColumns {
                 + ")"
         );
 
+        // Entries of an SQLite index end with the rowid, so the date indexes below are (date, _id) indexes,
+        // matching the sort order of timelines
         DbUtils.execSQL(db, "CREATE INDEX idx_activity_timeline ON " + TABLE_NAME + " ("
                 + UPDATED_DATE
                 + ")"
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.database.table;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.andstatus.app.data.DbUtils;
+
+/**
+ * Full text search index of {@link NoteTable#BODY_TO_SEARCH}, see <a href="https://www.sqlite.org/fts3.html">FTS4</a>.
+ * This is an "external content" table: it stores the index only, its rowid ("docid") is {@link NoteTable#_ID}.
+ * The index is maintained by triggers on the {@link NoteTable}
+ * @author yvolk@yurivolkov.com
+ */
+public final class NoteSearchTable {
+    public static final String TABLE_NAME = "note_search";
+    public static final String DOCID = "docid";
+
+    private NoteSearchTable() {
+    }
+
+    public static void create(SQLiteDatabase db) {
+        DbUtils.execSQL(db, "CREATE VIRTUAL TABLE " + TABLE_NAME + " USING fts4("
+                + "content=\"" + NoteTable.TABLE_NAME + "\", "
+                + NoteTable.BODY_TO_SEARCH
+                + ")");
+
+        DbUtils.execSQL(db, "CREATE TRIGGER note_search_before_update BEFORE UPDATE OF "
+                + NoteTable.BODY_TO_SEARCH + " ON " + NoteTable.TABLE_NAME + " BEGIN "
+                + deleteOldRow() + " END");
+        DbUtils.execSQL(db, "CREATE TRIGGER note_search_before_delete BEFORE DELETE ON "
+                + NoteTable.TABLE_NAME + " BEGIN "
+                + deleteOldRow() + " END");
+        DbUtils.execSQL(db, "CREATE TRIGGER note_search_after_update AFTER UPDATE OF "
+                + NoteTable.BODY_TO_SEARCH + " ON " + NoteTable.TABLE_NAME + " BEGIN "
+                + insertNewRow() + " END");
+        DbUtils.execSQL(db, "CREATE TRIGGER note_search_after_insert AFTER INSERT ON "
+                + NoteTable.TABLE_NAME + " BEGIN "
+                + insertNewRow() + " END");
+    }
+
+    private static String deleteOldRow() {
+        return "DELETE FROM " + TABLE_NAME + " WHERE " + DOCID + "=old." + NoteTable._ID + ";";
+    }
+
+    private static String insertNewRow() {
+        return "INSERT INTO " + TABLE_NAME + " (" + DOCID + ", " + NoteTable.BODY_TO_SEARCH + ")"
+                + " VALUES (new." + NoteTable._ID + ", new." + NoteTable.BODY_TO_SEARCH + ");";
+    }
+
+    /** Rebuilds the whole index from the content of the {@link NoteTable} */
+    public static void rebuild(SQLiteDatabase db) {
+        DbUtils.execSQL(db, "INSERT INTO " + TABLE_NAME + "(" + TABLE_NAME + ") VALUES('rebuild')");
+    }
+}
@@ -164,5 +164,10 @@ public final class NoteTable implements BaseColumns {
                 + ")"
         );
 
+        DbUtils.execSQL(db, "CREATE INDEX idx_note_author ON " + TABLE_NAME + " ("
+                + AUTHOR_ID
+                + ")"
+        );
+
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.database.table;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.timeline.meta.TimelineType;
+import org.andstatus.app.util.TriState;
+
+/**
+ * Materialized membership of activities in the {@link TimelineType#HOME}, {@link TimelineType#INTERACTIONS}
+ * and {@link TimelineType#NOTIFICATIONS} timelines, so a page of these timelines is read by an index range scan.
+ * Rows are keyed by the timeline type and the actor, whose timeline this is, because combined timelines
+ * don't have their own ids. The table is maintained by triggers on the {@link ActivityTable}
+ * @author yvolk@yurivolkov.com
+ */
+public final class TimelineItemTable {
+    public static final String TABLE_NAME = "timeline_item";
+
+    /** {@link TimelineType#save()} */
+    public static final String TIMELINE_TYPE = "item_timeline_type";
+    /** {@link ActivityTable#ACCOUNT_ID} for the Home timeline, {@link ActivityTable#NOTIFIED_ACTOR_ID} for others */
+    public static final String ACTOR_ID = "item_actor_id";
+    public static final String ACTIVITY_ID = "item_activity_id";
+    public static final String NOTE_ID = "item_note_id";
+    /** Copy of {@link ActivityTable#UPDATED_DATE} */
+    public static final String ITEM_DATE = "item_date";
+
+    private TimelineItemTable() {
+    }
+
+    public static boolean isMaterialized(@NonNull TimelineType timelineType) {
+        switch (timelineType) {
+            case HOME:
+            case INTERACTIONS:
+            case NOTIFICATIONS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static void create(SQLiteDatabase db) {
+        DbUtils.execSQL(db, "CREATE TABLE " + TABLE_NAME + " ("
+                + TIMELINE_TYPE + " TEXT NOT NULL,"
+                + ACTOR_ID + " INTEGER NOT NULL,"
+                + ACTIVITY_ID + " INTEGER NOT NULL,"
+                + NOTE_ID + " INTEGER NOT NULL DEFAULT 0,"
+                + ITEM_DATE + " INTEGER NOT NULL,"
+                + " CONSTRAINT pk_timeline_item PRIMARY KEY (" + TIMELINE_TYPE + ", " + ACTOR_ID + ", "
+                + ACTIVITY_ID + ")"
+                + ")");
+
+        DbUtils.execSQL(db, "CREATE INDEX idx_timeline_item_date ON " + TABLE_NAME + " ("
+                + TIMELINE_TYPE + ", "
+                + ACTOR_ID + ", "
+                + ITEM_DATE + ", "
+                + ACTIVITY_ID
+                + ")"
+        );
+
+        DbUtils.execSQL(db, "CREATE INDEX idx_timeline_item_activity ON " + TABLE_NAME + " ("
+                + ACTIVITY_ID
+                + ")"
+        );
+
+        DbUtils.execSQL(db, "CREATE TRIGGER timeline_item_after_insert AFTER INSERT ON "
+                + ActivityTable.TABLE_NAME + " BEGIN "
+                + insertRows() + " END");
+        DbUtils.execSQL(db, "CREATE TRIGGER timeline_item_after_update AFTER UPDATE OF "
+                + ActivityTable.ACCOUNT_ID + ", "
+                + ActivityTable.NOTE_ID + ", "
+                + ActivityTable.SUBSCRIBED + ", "
+                + ActivityTable.INTERACTED + ", "
+                + ActivityTable.NOTIFIED + ", "
+                + ActivityTable.NOTIFIED_ACTOR_ID + ", "
+                + ActivityTable.UPDATED_DATE
+                + " ON " + ActivityTable.TABLE_NAME + " BEGIN "
+                + deleteOldRows() + insertRows() + " END");
+        DbUtils.execSQL(db, "CREATE TRIGGER timeline_item_after_delete AFTER DELETE ON "
+                + ActivityTable.TABLE_NAME + " BEGIN "
+                + deleteOldRows() + " END");
+    }
+
+    private static String deleteOldRows() {
+        return "DELETE FROM " + TABLE_NAME + " WHERE " + ACTIVITY_ID + "=old." + ActivityTable._ID + ";";
+    }
+
+    private static String insertRows() {
+        return insertRows(TimelineType.HOME, ActivityTable.ACCOUNT_ID, ActivityTable.SUBSCRIBED)
+                + insertRows(TimelineType.INTERACTIONS, ActivityTable.NOTIFIED_ACTOR_ID, ActivityTable.INTERACTED)
+                + insertRows(TimelineType.NOTIFICATIONS, ActivityTable.NOTIFIED_ACTOR_ID, ActivityTable.NOTIFIED);
+    }
+
+    private static String insertRows(TimelineType timelineType, String actorIdColumn, String flagColumn) {
+        return "INSERT INTO " + TABLE_NAME + " ("
+                + TIMELINE_TYPE + ", " + ACTOR_ID + ", " + ACTIVITY_ID + ", " + NOTE_ID + ", " + ITEM_DATE + ")"
+                + " SELECT '" + timelineType.save() + "', "
+                + "new." + actorIdColumn + ", "
+                + "new." + ActivityTable._ID + ", "
+                + "new." + ActivityTable.NOTE_ID + ", "
+                + "new." + ActivityTable.UPDATED_DATE
+                + " WHERE new." + flagColumn + "=" + TriState.TRUE.id
+                + " AND new." + actorIdColumn + "!=0"
+                + " AND new." + ActivityTable.UPDATED_DATE + ">0;";
+    }
+
+    /** Removes rows, whose activities don't exist anymore
+     * @return Number of rows deleted */
+    public static int pruneOrphans(SQLiteDatabase db) {
+        return db.delete(TABLE_NAME, ACTIVITY_ID + " NOT IN (SELECT " + ActivityTable._ID
+                + " FROM " + ActivityTable.TABLE_NAME + ")", null);
+    }
+}
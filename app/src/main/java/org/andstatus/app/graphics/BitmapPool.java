@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.graphics;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.DisplayMetrics;
+
+import net.jcip.annotations.GuardedBy;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmaps for an {@link ImageCache}, bucketed by size classes. Bitmaps are created on demand,
+ * while the total size of the bitmaps, allocated by the pool, fits its memory budget.
+ * A request is served by the smallest free bitmap, which fits it.
+ * Free bitmaps are never recycled: a drawable of an evicted image may still be drawing its bitmap,
+ * so the pool only drops its references to them and leaves the memory to the garbage collector
+ * @author yvolk@yurivolkov.com
+ */
+class BitmapPool {
+    /** Number of size classes per side of the largest bitmap */
+    static final int SIZE_CLASSES_PER_SIDE = 8;
+
+    private final DisplayMetrics displayMetrics;
+    private final int maxWidth;
+    private final int maxHeight;
+    private final int stepX;
+    private final int stepY;
+
+    /** Free bitmaps by size class, ordered by their size in bytes */
+    @GuardedBy("this")
+    private final TreeMap<Long, Deque<Bitmap>> free = new TreeMap<>();
+    @GuardedBy("this")
+    private long budgetBytes;
+    @GuardedBy("this")
+    private long allocatedBytes = 0;
+    @GuardedBy("this")
+    private int freeCount = 0;
+
+    BitmapPool(DisplayMetrics displayMetrics, int maxWidth, int maxHeight, long budgetBytes) {
+        this.displayMetrics = displayMetrics;
+        this.maxWidth = Math.max(1, maxWidth);
+        this.maxHeight = Math.max(1, maxHeight);
+        this.budgetBytes = budgetBytes;
+        stepX = Math.max(1, (this.maxWidth + SIZE_CLASSES_PER_SIDE - 1) / SIZE_CLASSES_PER_SIDE);
+        stepY = Math.max(1, (this.maxHeight + SIZE_CLASSES_PER_SIDE - 1) / SIZE_CLASSES_PER_SIDE);
+    }
+
+    /** @return A cleared bitmap of at least the requested size or null if the memory budget is exhausted */
+    @Nullable
+    synchronized Bitmap get(int width, int height) {
+        int classWidth = Math.min(maxWidth, roundUp(Math.max(1, width), stepX));
+        int classHeight = Math.min(maxHeight, roundUp(Math.max(1, height), stepY));
+        Bitmap bitmap = pollSmallestFitting(classWidth, classHeight);
+        if (bitmap != null) {
+            bitmap.eraseColor(0);
+            return bitmap;
+        }
+        long bytes = (long) classWidth * classHeight * ImageCache.BYTES_PER_PIXEL;
+        while (allocatedBytes + bytes > budgetBytes && freeCount > 0) {
+            drop(pollLargest());
+        }
+        if (allocatedBytes + bytes > budgetBytes) {
+            return null;
+        }
+        bitmap = Bitmap.createBitmap(displayMetrics, classWidth, classHeight, CachedImage.BITMAP_CONFIG);
+        allocatedBytes += bitmap.getAllocationByteCount();
+        return bitmap;
+    }
+
+    synchronized void release(@NonNull Bitmap bitmap) {
+        if (bitmap.isRecycled()) return;
+        free.computeIfAbsent(sizeClassKey(bitmap.getWidth(), bitmap.getHeight()), key -> new ArrayDeque<>())
+                .add(bitmap);
+        freeCount++;
+    }
+
+    /** Drops the free bitmaps, except for the number to keep */
+    synchronized void trim(int freeToKeep) {
+        while (freeCount > Math.max(0, freeToKeep)) {
+            drop(pollLargest());
+        }
+    }
+
+    private Bitmap pollSmallestFitting(int width, int height) {
+        Iterator<Map.Entry<Long, Deque<Bitmap>>> iterator =
+                free.tailMap(sizeClassKey(width, height), true).entrySet().iterator();
+        while (iterator.hasNext()) {
+            Deque<Bitmap> bitmaps = iterator.next().getValue();
+            Bitmap first = bitmaps.peek();
+            if (first != null && first.getWidth() >= width && first.getHeight() >= height) {
+                return pollFrom(bitmaps, iterator);
+            }
+        }
+        return null;
+    }
+
+    private Bitmap pollLargest() {
+        Iterator<Map.Entry<Long, Deque<Bitmap>>> iterator = free.descendingMap().entrySet().iterator();
+        return pollFrom(iterator.next().getValue(), iterator);
+    }
+
+    private Bitmap pollFrom(Deque<Bitmap> bitmaps, Iterator<Map.Entry<Long, Deque<Bitmap>>> iterator) {
+        Bitmap bitmap = bitmaps.poll();
+        if (bitmaps.isEmpty()) {
+            iterator.remove();
+        }
+        freeCount--;
+        return bitmap;
+    }
+
+    private void drop(Bitmap bitmap) {
+        allocatedBytes -= bitmap.getAllocationByteCount();
+    }
+
+    /** Free bitmaps are dropped, while allocated memory exceeds the new budget */
+    synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        while (allocatedBytes > budgetBytes && freeCount > 0) {
+            drop(pollLargest());
+        }
+    }
+
+    /** Ordered by size in bytes first, so a bigger key never means a smaller bitmap */
+    private static long sizeClassKey(int width, int height) {
+        return ((long) width * height << 32) | ((long) width << 16) | height;
+    }
+
+    private static int roundUp(int value, int step) {
+        return ((value + step - 1) / step) * step;
+    }
+
+    synchronized int getFreeCount() {
+        return freeCount;
+    }
+
+    synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+}
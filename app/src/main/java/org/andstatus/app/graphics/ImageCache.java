@@ -34,13 +34,16 @@ import android.util.DisplayMetrics;
 import android.util.LruCache;
 
 import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyLog;
 
 import java.io.File;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -57,47 +60,80 @@ public class ImageCache extends LruCache<String, CachedImage> {
     private volatile int maxBitmapWidth;
     final AtomicLong hits = new AtomicLong();
     final AtomicLong misses = new AtomicLong();
+    /** Requests, which cannot wait for loading, i.e. the image is being shown right now */
+    final AtomicLong immediateHits = new AtomicLong();
+    final AtomicLong immediateMisses = new AtomicLong();
+    /** Loads, which joined a decoding of the same path, that was already in progress */
+    final AtomicLong sharedLoads = new AtomicLong();
+    private final Map<String, CompletableFuture<CachedImage>> loadsInProgress = new ConcurrentHashMap<>();
     final Set<String> brokenBitmaps = new ConcurrentSkipListSet<>();
-    final Queue<Bitmap> recycledBitmaps;
+    /** Free bitmaps, which are kept for reuse after a cache trim */
+    static final int FREE_BITMAPS_TO_KEEP = 2;
+    final BitmapPool bitmapPool;
+    final ImageThumbnails thumbnails;
     final DisplayMetrics displayMetrics;
     volatile boolean rounded = false;
 
     @Override
     public void resize(int maxSize) {
-        throw new IllegalStateException("Cache cannot be resized");
+        throw new IllegalStateException("Cache cannot be resized. Use setCapacityPercent");
     }
 
     public ImageCache(Context context, CacheName name, int maxBitmapHeightWidthIn, int requestedCacheSizeIn) {
         super(requestedCacheSizeIn);
         this.name = name;
         displayMetrics = context.getResources().getDisplayMetrics();
+        thumbnails = new ImageThumbnails(name, displayMetrics.densityDpi);
         int maxBitmapHeightWidth = maxBitmapHeightWidthIn;
         this.setMaxBounds(maxBitmapHeightWidth, maxBitmapHeightWidth);
         this.requestedCacheSize = requestedCacheSizeIn;
         this.currentCacheSize = this.requestedCacheSize;
-        recycledBitmaps = new ConcurrentLinkedQueue<>();
-        try {
-            for (int i = 0; i < currentCacheSize + 2; i++) {
-                recycledBitmaps.add(newBlankBitmap());
-            }
-        } catch (OutOfMemoryError e) {
-            MyLog.w(this, getInfo(), e);
-            currentCacheSize = recycledBitmaps.size() - 2;
-            if (currentCacheSize < 0) {
-                currentCacheSize = 0;
-            }
-            super.resize(currentCacheSize);
+        bitmapPool = new BitmapPool(displayMetrics, maxBitmapWidth, maxBitmapHeight, getBudgetBytes(currentCacheSize));
+    }
+
+    /** The same memory, as for the cache full of the largest bitmaps, but allocated on demand */
+    private long getBudgetBytes(int cacheSize) {
+        return (long) (cacheSize + FREE_BITMAPS_TO_KEEP) * maxBitmapWidth * maxBitmapHeight * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Shrinks the cache and the memory budget of its bitmaps under memory pressure or grows them back.
+     * At least one image is kept, so the cache continues to work.
+     * Shrinking only releases references: evicted images may still be shown, see {@link BitmapPool}
+     */
+    synchronized void setCapacityPercent(int percentToKeep) {
+        int newCacheSize = Math.max(1, requestedCacheSize * Math.min(percentToKeep, 100) / 100);
+        if (newCacheSize == currentCacheSize) return;
+
+        boolean shrinking = newCacheSize < currentCacheSize;
+        currentCacheSize = newCacheSize;
+        super.resize(newCacheSize);
+        bitmapPool.setBudgetBytes(getBudgetBytes(newCacheSize));
+        if (shrinking) {
+            bitmapPool.trim(FREE_BITMAPS_TO_KEEP);
         }
+        MyLog.v(this, "Capacity set to " + percentToKeep + "%. " + getInfo());
     }
 
-    private Bitmap newBlankBitmap() {
-        return Bitmap.createBitmap(displayMetrics, maxBitmapWidth,
-                maxBitmapHeight, CachedImage.BITMAP_CONFIG);
+    /** Free bitmaps are released, when the cache is trimmed below its capacity (or evicted) */
+    @Override
+    public void trimToSize(int maxSize) {
+        super.trimToSize(maxSize);
+        if (maxSize < maxSize()) {
+            bitmapPool.trim(maxSize < 0 ? 0 : FREE_BITMAPS_TO_KEEP);
+        }
     }
 
     @Nullable
     CachedImage getCachedImage(Object objTag, long imageId, String path) {
-        return getImage(objTag, imageId, path, true);
+        CachedImage image = getImage(objTag, imageId, path, true);
+        (image == null ? immediateMisses : immediateHits).incrementAndGet();
+        return image;
+    }
+
+    /** Doesn't change hit/miss counters */
+    boolean isCached(String path) {
+        return !TextUtils.isEmpty(path) && (get(path) != null || brokenBitmaps.contains(path));
     }
 
     @Nullable
@@ -109,7 +145,7 @@ public class ImageCache extends LruCache<String, CachedImage> {
     protected void entryRemoved(boolean evicted, String key, CachedImage oldValue, CachedImage newValue) {
         if (oldValue.isBitmapRecyclable()) {
             oldValue.makeExpired();
-            recycledBitmaps.add(oldValue.getBitmap());
+            bitmapPool.release(oldValue.getBitmap());
         }
     }
 
@@ -127,6 +163,34 @@ public class ImageCache extends LruCache<String, CachedImage> {
         } else {
             misses.incrementAndGet();
             if (!fromCacheOnly && (new File(path)).exists()) {
+                image = loadShared(objTag, imageId, path);
+            }
+        }
+        return image;
+    }
+
+    /** Identical paths, requested concurrently (e.g. by a prefetch and by a view), share one decoding */
+    @Nullable
+    private CachedImage loadShared(Object objTag, long imageId, String path) {
+        CompletableFuture<CachedImage> load = new CompletableFuture<>();
+        CompletableFuture<CachedImage> loadInProgress = loadsInProgress.putIfAbsent(path, load);
+        if (loadInProgress != null) {
+            sharedLoads.incrementAndGet();
+            try {
+                return loadInProgress.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                MyLog.v(objTag, "Shared load failed '" + path + "'", e);
+                return null;
+            }
+        }
+        CachedImage image = null;
+        try {
+            // The image could be loaded after our check and before the load was registered
+            image = get(path);
+            if (image == null) {
                 image = loadImage(objTag, imageId, path);
                 if (image != null) {
                     if (currentCacheSize > 0) {
@@ -136,13 +200,26 @@ public class ImageCache extends LruCache<String, CachedImage> {
                     brokenBitmaps.add(path);
                 }
             }
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInProgress.remove(path, load);
+            load.complete(image);
         }
         return image;
     }
 
     @Nullable
     private CachedImage loadImage(Object objTag, long imageId, String path) {
-        Bitmap bitmap = loadBitmap(objTag, imageId, path);
+        final boolean roundedNow = rounded;
+        Bitmap bitmap = thumbnails.load(objTag, path, maxBitmapWidth, maxBitmapHeight, roundedNow);
+        final boolean fromThumbnail = bitmap != null;
+        BitmapFactory.Options options = null;
+        if (!fromThumbnail) {
+            options = calculateScaling(objTag, getImageSize(imageId, path));
+            bitmap = loadBitmap(objTag, path, options);
+        }
         if (bitmap == null) {
             return null;
         }
@@ -151,16 +228,23 @@ public class ImageCache extends LruCache<String, CachedImage> {
         if (background == null) {
             MyLog.w(objTag, "No suitable bitmap found to cache "
                     + srcRect.width() + "x" + srcRect.height() + " '" + path + "'");
+            bitmap.recycle();
             return null ;
         }
         Canvas canvas = new Canvas(background);
         canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
-        if (rounded) {
+        if (roundedNow && !fromThumbnail) {
             drawRoundedBitmap(canvas, bitmap);
         } else {
             canvas.drawBitmap(bitmap, 0 , 0, null);
         }
+        final boolean hasAlpha = bitmap.hasAlpha();
         bitmap.recycle();
+        if (!fromThumbnail && (roundedNow || options.inSampleSize > 1)) {
+            // Only the work, which is worth saving: full size images are decoded as quickly as thumbnails
+            thumbnails.saveLater(objTag, path, maxBitmapWidth, maxBitmapHeight, roundedNow, background, srcRect,
+                    hasAlpha);
+        }
         return new CachedImage(imageId, background, srcRect);
     }
 
@@ -177,20 +261,31 @@ public class ImageCache extends LruCache<String, CachedImage> {
         canvas.drawOval(rectF, paint);
     }
 
+    /** If the memory budget is exhausted, least recently used images are evicted to free their bitmaps */
+    @Nullable
     private Bitmap getSuitableRecycledBitmap(Rect srcRect) {
-        return recycledBitmaps.poll();
+        try {
+            Bitmap bitmap = bitmapPool.get(srcRect.width(), srcRect.height());
+            while (bitmap == null && size() > 0) {
+                super.trimToSize(size() - 1);
+                bitmap = bitmapPool.get(srcRect.width(), srcRect.height());
+            }
+            return bitmap;
+        } catch (OutOfMemoryError e) {
+            MyLog.w(this, getInfo(), e);
+            evictAll();
+            return null;
+        }
     }
 
     @Nullable
-    private Bitmap loadBitmap(Object objTag, long imageId, String path) {
+    private Bitmap loadBitmap(Object objTag, String path, BitmapFactory.Options options) {
         Bitmap bitmap = null;
         if (MyPreferences.isShowDebuggingInfoInUi()) {
-            bitmap = BitmapFactory
-                    .decodeFile(path, calculateScaling(objTag, getImageSize(imageId, path)));
+            bitmap = BitmapFactory.decodeFile(path, options);
         } else {
             try {
-                bitmap = BitmapFactory
-                        .decodeFile(path, calculateScaling(objTag, getImageSize(imageId, path)));
+                bitmap = BitmapFactory.decodeFile(path, options);
             } catch (OutOfMemoryError e) {
                 MyLog.w(objTag, getInfo(), e);
                 evictAll();
@@ -243,9 +338,18 @@ public class ImageCache extends LruCache<String, CachedImage> {
         builder.append(": " + maxBitmapWidth + "x" + maxBitmapHeight + ", "
                 + size() + " of " + currentCacheSize);
         if (requestedCacheSize != currentCacheSize) {
-            builder.append(" (initially capacity was " + requestedCacheSize + ")");
+            builder.append(" (normal capacity is " + requestedCacheSize + ")");
+        }
+        builder.append(", free: " + bitmapPool.getFreeCount()
+                + ", allocated: " + I18n.formatBytes(bitmapPool.getAllocatedBytes())
+                + " of " + I18n.formatBytes(bitmapPool.getBudgetBytes()));
+        long immediateRequests = immediateHits.get() + immediateMisses.get();
+        if (immediateRequests > 0) {
+            builder.append(", immediate hit rate: " + (immediateHits.get() * 100 / immediateRequests) + "%");
+        }
+        if (sharedLoads.get() > 0) {
+            builder.append(", shared loads: " + sharedLoads.get());
         }
-        builder.append(", free: " + recycledBitmaps.size());
         if (!brokenBitmaps.isEmpty()) {
             builder.append(", broken: " + brokenBitmaps.size());
         }
@@ -105,6 +105,14 @@ public class ImageCaches {
         avatarsCache.rounded = SharedPreferencesUtil.getBoolean(MyPreferences.KEY_ROUNDED_AVATARS, true);
     }
 
+    /** See {@link org.andstatus.app.os.MemoryTrimmer} */
+    public static void onTrimMemory(int percentToKeep) {
+        if (avatarsCache == null || attachedImagesCache == null) return;
+
+        attachedImagesCache.setCapacityPercent(percentToKeep);
+        avatarsCache.setCapacityPercent(percentToKeep);
+    }
+
     private static int calcCacheSize(Context context, int imageSize, float partOfAvailableMemory) {
         return Math.round(partOfAvailableMemory * getTotalAppMemory(context)
                 / imageSize / imageSize / ImageCache.BYTES_PER_PIXEL);
@@ -139,6 +147,10 @@ public class ImageCaches {
         return getCache(cacheName).loadAndGetImage(objTag, imageId, path);
     }
 
+    public static boolean isCached(CacheName cacheName, String path) {
+        return getCache(cacheName).isCached(path);
+    }
+
     public static CachedImage getCachedImage(CacheName cacheName, Object objTag, long imageId, String path) {
         return getCache(cacheName).getCachedImage(objTag, imageId, path);
     }
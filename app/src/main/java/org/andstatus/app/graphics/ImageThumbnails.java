@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.util.MyLog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disk tier of an {@link ImageCache}: already scaled (and rounded, if needed) copies of downloaded images,
+ * so a memory cache miss costs decoding of a small file only.
+ * Thumbnails of a downloaded file are kept in a directory, named after that file, because a name
+ * of a downloaded file is unique for each download. So a new download never sees stale thumbnails,
+ * and deletion of the file deletes its thumbnails, see {@link #deleteOf(String)}.
+ * Thumbnails are written in the background, so loading of an image is not slowed down by the write
+ * @author yvolk@yurivolkov.com
+ */
+public class ImageThumbnails {
+    static final String DIRECTORY_THUMBNAILS = "thumbnails";
+    private static final int JPEG_QUALITY = 90;
+    /** Thumbnails, which are waiting to be written. Others are dropped: a thumbnail is optional */
+    private static final int WRITE_QUEUE_SIZE = 32;
+    private static final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(WRITE_QUEUE_SIZE), runnable -> {
+                Thread thread = new Thread(runnable, "ThumbnailWriter");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+
+    private final CacheName cacheName;
+    private final int densityDpi;
+
+    ImageThumbnails(CacheName cacheName, int densityDpi) {
+        this.cacheName = cacheName;
+        this.densityDpi = densityDpi;
+    }
+
+    /** @return The thumbnail or null if it is absent or older than the downloaded file */
+    @Nullable
+    Bitmap load(Object objTag, @NonNull String path, int maxWidth, int maxHeight, boolean rounded) {
+        File thumbnail = getFile(path, maxWidth, maxHeight, rounded);
+        if (thumbnail == null || !thumbnail.isFile()) {
+            return null;
+        }
+        if (thumbnail.lastModified() < new File(path).lastModified()) {
+            deleteFile(thumbnail);
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = CachedImage.BITMAP_CONFIG;
+        Bitmap bitmap = null;
+        try {
+            bitmap = BitmapFactory.decodeFile(thumbnail.getAbsolutePath(), options);
+        } catch (OutOfMemoryError e) {
+            MyLog.w(objTag, "Failed to load thumbnail '" + thumbnail + "'", e);
+        }
+        if (bitmap == null || bitmap.getWidth() > maxWidth || bitmap.getHeight() > maxHeight) {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+            deleteFile(thumbnail);
+            return null;
+        }
+        if (MyLog.isVerboseEnabled()) {
+            MyLog.v(objTag, "Loaded " + cacheName + "'s thumbnail " + bitmap.getWidth()
+                    + "x" + bitmap.getHeight() + " '" + path + "'");
+        }
+        return bitmap;
+    }
+
+    /** Stores a copy of the srcRect part of the bitmap in the background,
+     * so the bitmap may be used and recycled right after the call */
+    void saveLater(Object objTag, @NonNull String path, int maxWidth, int maxHeight, boolean rounded,
+                   Bitmap bitmap, Rect srcRect, boolean hasAlpha) {
+        File thumbnail = getFile(path, maxWidth, maxHeight, rounded);
+        if (thumbnail == null) {
+            return;
+        }
+        final Bitmap part;
+        try {
+            part = Bitmap.createBitmap(bitmap, srcRect.left, srcRect.top, srcRect.width(), srcRect.height());
+        } catch (OutOfMemoryError e) {
+            MyLog.w(objTag, "No memory to copy thumbnail '" + thumbnail + "'", e);
+            return;
+        }
+        try {
+            writer.execute(() -> {
+                try {
+                    save(objTag, path, thumbnail, part, hasAlpha || rounded);
+                } finally {
+                    part.recycle();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            MyLog.v(objTag, "Thumbnail skipped, writer is busy '" + thumbnail + "'");
+            part.recycle();
+        }
+    }
+
+    /** Write failures are only logged: the thumbnail is optional */
+    private static void save(Object objTag, @NonNull String path, File thumbnail, Bitmap part, boolean lossless) {
+        if (!new File(path).exists()) {
+            return;
+        }
+        File dir = thumbnail.getParentFile();
+        if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            MyLog.v(objTag, "Couldn't create " + dir);
+            return;
+        }
+        File tmpFile = new File(dir, thumbnail.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmpFile)) {
+            if (lossless) {
+                part.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } else {
+                part.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+        } catch (IOException e) {
+            MyLog.v(objTag, "Couldn't save thumbnail '" + thumbnail + "'", e);
+            deleteFile(tmpFile);
+            return;
+        }
+        // The downloaded file might have been deleted with its thumbnails while this one was written
+        if (!new File(path).exists() || !tmpFile.renameTo(thumbnail)) {
+            deleteFile(tmpFile);
+        }
+    }
+
+    /** Waits till queued thumbnails are written */
+    static void awaitWritten(long timeoutMillis) throws Exception {
+        writer.submit(() -> { }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Nullable
+    private File getFile(@NonNull String path, int maxWidth, int maxHeight, boolean rounded) {
+        File dir = getDir(new File(path).getName());
+        return dir == null ? null : new File(dir, cacheName.name().toLowerCase(Locale.US) + "_" + densityDpi + "dpi_"
+                + maxWidth + "x" + maxHeight + (rounded ? "_rounded" : ""));
+    }
+
+    /** Deletes thumbnails of the downloaded file */
+    public static void deleteOf(String downloadFilename) {
+        File dir = getDir(downloadFilename);
+        if (dir == null || !dir.exists()) {
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteFile(file);
+            }
+        }
+        deleteFile(dir);
+    }
+
+    @Nullable
+    private static File getDir(String downloadFilename) {
+        if (TextUtils.isEmpty(downloadFilename) || MyContextHolder.get().context() == null) {
+            return null;
+        }
+        return new File(new File(MyContextHolder.get().context().getCacheDir(), DIRECTORY_THUMBNAILS),
+                downloadFilename);
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete() && file.exists()) {
+            MyLog.v(ImageThumbnails.class, "Couldn't delete " + file);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.http;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.andstatus.app.util.MyLog;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Keep-alive of HTTP connections per host. Connections are kept alive and reused by default.
+ * A host, which closes most connections anyway (responds with "Connection: close"),
+ * is asked to close them, so connections to it are not kept in the pool in vain.
+ * Older responses count less, and keep-alive is probed again after {@link #PROBE_AFTER_REQUESTS} requests
+ * or {@link #PROBE_AFTER_MS}, because responses to our "close" requests tell nothing about the host
+ * @author yvolk@yurivolkov.com
+ */
+class HostKeepAlive {
+    private static final String TAG = HostKeepAlive.class.getSimpleName();
+    static final int MIN_RESPONSES_TO_DECIDE = 4;
+    /** Counts are halved, when this number of responses is reached */
+    static final int RESPONSES_WINDOW = 32;
+    static final int PROBE_AFTER_REQUESTS = 50;
+    static final long PROBE_AFTER_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Map<String, HostKeepAlive> hosts = new ConcurrentHashMap<>();
+    private int responses = 0;
+    private int closed = 0;
+    /** 0 if keep-alive is enabled */
+    private long disabledAt = 0;
+    private int requestsWhileDisabled = 0;
+
+    private HostKeepAlive() {
+        // Empty
+    }
+
+    /** @param headerSetter sets a request header by its name and value */
+    static void setRequestHeader(@NonNull URL url, @NonNull BiConsumer<String, String> headerSetter) {
+        HostKeepAlive host = hosts.get(url.getHost());
+        headerSetter.accept("Connection", host == null || host.onRequest() ? "keep-alive" : "close");
+    }
+
+    static boolean isEnabled(@NonNull URL url) {
+        HostKeepAlive host = hosts.get(url.getHost());
+        return host == null || host.isEnabled();
+    }
+
+    /** @return true if keep-alive is enabled for the request */
+    private synchronized boolean onRequest() {
+        if (isEnabled()) return true;
+        requestsWhileDisabled++;
+        return false;
+    }
+
+    private synchronized boolean isEnabled() {
+        if (disabledAt == 0) return true;
+        if (requestsWhileDisabled >= PROBE_AFTER_REQUESTS
+                || System.currentTimeMillis() - disabledAt >= PROBE_AFTER_MS) {
+            MyLog.v(TAG, "Probing keep-alive again, " + this);
+            responses = 0;
+            closed = 0;
+            disabledAt = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /** @param headerReader returns a value of the response header by its name or null */
+    static void onResponse(@NonNull URL url, @NonNull Function<String, String> headerReader) {
+        String connection = headerReader.apply("Connection");
+        hosts.computeIfAbsent(url.getHost(), key -> new HostKeepAlive())
+                .onResponse(url, !TextUtils.isEmpty(connection) && "close".equalsIgnoreCase(connection.trim()));
+    }
+
+    private synchronized void onResponse(URL url, boolean isClosed) {
+        if (disabledAt != 0) return;
+
+        if (responses >= RESPONSES_WINDOW) {
+            responses /= 2;
+            closed /= 2;
+        }
+        responses++;
+        if (isClosed) closed++;
+        if (responses >= MIN_RESPONSES_TO_DECIDE && closed * 2 > responses) {
+            disabledAt = System.currentTimeMillis();
+            requestsWhileDisabled = 0;
+            MyLog.v(TAG, "Keep-alive disabled for " + url.getHost() + ", " + this);
+        }
+    }
+
+    static void clear() {
+        hosts.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "responses:" + responses + ", closed:" + closed
+                + (disabledAt == 0 ? "" : ", disabled, requests:" + requestsWhileDisabled);
+    }
+}
@@ -17,10 +17,12 @@
 package org.andstatus.app.net.http;
 
 import android.net.Uri;
+import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import org.andstatus.app.account.AccountDataWriter;
 import org.andstatus.app.net.http.ConnectionException.StatusCode;
+import org.andstatus.app.net.social.RateLimitBudget;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.TriState;
 import org.andstatus.app.util.UrlUtils;
@@ -88,6 +90,7 @@ public abstract class HttpConnection {
             MyLog.logNetworkLevelMessage("post_form", data.getLogName(), result.getFormParams());
         }
         postRequest(result);
+        onRequestDone(result);
         MyLog.logNetworkLevelMessage("post_response", data.getLogName(), result.strResponse);
         result.parseAndThrow();
         return result.getJsonObject();
@@ -104,12 +107,18 @@ public abstract class HttpConnection {
     }
     
     private HttpReadResult getRequestCommon(String path, boolean authenticated) throws ConnectionException {
+        return getRequestCommon(path, authenticated, "", null);
+    }
+
+    private HttpReadResult getRequestCommon(String path, boolean authenticated, String arrayKey,
+                                            JsonItemConsumer itemConsumer) throws ConnectionException {
         if (TextUtils.isEmpty(path)) {
             throw new IllegalArgumentException("path is empty");
         }
-        HttpReadResult result = new HttpReadResult(pathToUrlString(path));
+        HttpReadResult result = new HttpReadResult(pathToUrlString(path)).setItemConsumer(arrayKey, itemConsumer);
         result.authenticate = authenticated;
         getRequest(result);
+        onRequestDone(result);
         MyLog.logNetworkLevelMessage("get_response", data.getLogName(), result.strResponse);
         result.parseAndThrow();
         return result;
@@ -123,6 +132,26 @@ public abstract class HttpConnection {
         return getRequestCommon(path, true).getJsonArray(parentKey);
     }
 
+    /**
+     * Items of the array are passed to the consumer as they are read from the network, so neither the whole
+     * response, nor its JSON tree are kept in memory. If this connection doesn't stream a response,
+     * the items are taken from the parsed response
+     */
+    public final void getRequestAsArray(String path, String parentKey, @NonNull JsonItemConsumer itemConsumer)
+            throws ConnectionException {
+        HttpReadResult result = getRequestCommon(path, true, parentKey, itemConsumer);
+        if (result.isStreamed()) return;
+
+        JSONArray jArr = result.getJsonArray(parentKey);
+        for (int index = 0; jArr != null && index < jArr.length(); index++) {
+            try {
+                itemConsumer.accept(jArr.getJSONObject(index));
+            } catch (JSONException e) {
+                throw ConnectionException.loggedJsonException(this, "Item " + index + " of " + result, e, null);
+            }
+        }
+    }
+
     public final void downloadFile(String url, File file) throws ConnectionException {
         HttpReadResult result = new HttpReadResult(url, file);
         getRequest(result);
@@ -130,6 +159,14 @@ public abstract class HttpConnection {
     }
     
     protected abstract void getRequest(HttpReadResult result) throws ConnectionException;
+
+    /** Each API request of the account takes a part of the {@link RateLimitBudget} of its resource family */
+    private void onRequestDone(HttpReadResult result) {
+        if (data.getAccountName() != null) {
+            RateLimitBudget.of(data.getAccountName().getName(), RateLimitBudget.familyOf(result.getUrl()))
+                    .onRequest(result.getRateLimitStatus());
+        }
+    }
     
     public abstract void clearAuthInformation();
 
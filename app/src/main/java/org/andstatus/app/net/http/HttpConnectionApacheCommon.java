@@ -48,6 +48,7 @@ import cz.msebera.android.httpclient.entity.ContentType;
 import cz.msebera.android.httpclient.entity.mime.MultipartEntityBuilder;
 import cz.msebera.android.httpclient.message.BasicNameValuePair;
 import cz.msebera.android.httpclient.protocol.HTTP;
+import cz.msebera.android.httpclient.util.EntityUtils;
 
 public class HttpConnectionApacheCommon {
     private HttpConnectionApacheSpecific specific;
@@ -134,10 +135,10 @@ public class HttpConnectionApacheCommon {
         return formParams;
     }
 
-    public static HttpClient getHttpClient(SslModeEnum sslMode) {
-        return sslMode == SslModeEnum.MISCONFIGURED ?
+    public static HttpClient getHttpClient(HttpConnectionData data) {
+        return data.getSslMode() == SslModeEnum.MISCONFIGURED ?
                 MisconfiguredSslHttpClientFactory.getHttpClient() :
-                    MyHttpClientFactory.getHttpClient(sslMode) ;
+                    MyHttpClientFactory.getHttpClient(data.getSslMode(), data.originUrl) ;
     }
 
     protected void getRequest(HttpReadResult result) {
@@ -155,6 +156,7 @@ public class HttpConnectionApacheCommon {
                 StatusLine statusLine = httpResponse.getStatusLine();
                 result.statusLine = statusLine.toString();
                 result.setStatusCode(statusLine.getStatusCode());
+                setRateLimitHeaders(result, httpResponse);
                 switch (result.getStatusCode()) {
                     case OK:
                     case UNKNOWN:
@@ -163,7 +165,7 @@ public class HttpConnectionApacheCommon {
                             if (result.fileResult != null) {
                                 FileUtils.readStreamToFile(entity.getContent(), result.fileResult);
                             } else {
-                                result.strResponse = HttpConnectionUtils.readStreamToString(entity.getContent());
+                                result.readStream(entity.getContent());
                             }
                         }
                         stop = true;
@@ -181,6 +183,10 @@ public class HttpConnectionApacheCommon {
                             }
                             MyLog.v(this, message.toString());
                         }
+                        // Release the pooled connection before the next request
+                        EntityUtils.consumeQuietly(httpResponse.getEntity());
+                        DbUtils.closeSilently(httpResponse);
+                        httpResponse = null;
                         break;
                     default:
                         result.appendToLog( "statusLine:'" + statusLine + "'");
@@ -213,6 +219,13 @@ public class HttpConnectionApacheCommon {
         return httpGet;
     }
 
+    static void setRateLimitHeaders(HttpReadResult result, HttpResponse httpResponse) {
+        result.setRateLimitHeaders(name -> {
+            Header header = httpResponse.getFirstHeader(name);
+            return header == null ? null : header.getValue();
+        });
+    }
+
     public static String readHttpResponseToString(HttpResponse httpResponse) throws IOException {
         HttpEntity httpEntity = httpResponse.getEntity();
         if (httpEntity != null) {
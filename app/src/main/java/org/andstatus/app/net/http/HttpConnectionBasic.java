@@ -50,7 +50,7 @@ public class HttpConnectionBasic extends HttpConnection implements HttpConnectio
     @Override
     public void httpApachePostRequest(HttpPost postMethod, HttpReadResult result) throws ConnectionException {
         try {
-            HttpClient client = HttpConnectionApacheCommon.getHttpClient(data.getSslMode());
+            HttpClient client = HttpConnectionApacheCommon.getHttpClient(data);
             postMethod.setHeader("User-Agent", HttpConnection.USER_AGENT);
             if (getCredentialsPresent()) {
                 postMethod.addHeader("Authorization", "Basic " + getCredentials());
@@ -59,6 +59,7 @@ public class HttpConnectionBasic extends HttpConnection implements HttpConnectio
             StatusLine statusLine = httpResponse.getStatusLine();
             result.statusLine = statusLine.toString();
             result.setStatusCode(statusLine.getStatusCode());
+            HttpConnectionApacheCommon.setRateLimitHeaders(result, httpResponse);
             result.strResponse = HttpConnectionApacheCommon.readHttpResponseToString(httpResponse);
         } catch (Exception e) {
             result.e1 = e;
@@ -69,7 +70,7 @@ public class HttpConnectionBasic extends HttpConnection implements HttpConnectio
 
     @Override
     public HttpResponse httpApacheGetResponse(HttpGet httpGet) throws IOException {
-        HttpClient client = HttpConnectionApacheCommon.getHttpClient(data.getSslMode());
+        HttpClient client = HttpConnectionApacheCommon.getHttpClient(data);
         return client.execute(httpGet);
     }
 
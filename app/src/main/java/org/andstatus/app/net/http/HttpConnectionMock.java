@@ -25,11 +25,15 @@ import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.UrlUtils;
 import org.json.JSONObject;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
 
 public class HttpConnectionMock extends HttpConnection {
     
@@ -156,6 +160,24 @@ public class HttpConnectionMock extends HttpConnection {
     private void getRequestInner(String method, HttpReadResult result) throws ConnectionException {
         onRequest(method, result);
         throwExceptionIfSet();
+        String response = responseString;
+        if (result.fileResult == null && response != null) {
+            // The response is sent compressed, as a real server would do, see HttpConnectionUtils.decode
+            try {
+                result.readStream(HttpConnectionUtils.decode(new ByteArrayInputStream(gzip(response)), "gzip",
+                        result));
+            } catch (IOException e) {
+                result.setException(e);
+            }
+        }
+    }
+
+    private static byte[] gzip(String response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(response.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
     }
 
     @Override
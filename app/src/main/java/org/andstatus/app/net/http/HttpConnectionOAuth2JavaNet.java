@@ -34,7 +34,10 @@ import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -102,15 +105,17 @@ public class HttpConnectionOAuth2JavaNet extends HttpConnectionOAuthJavaNet {
                     request.addBodyParameter(key, result.getFormParams().optString(key));
                 }
             }
+            setRequestHeaders(request);
             signRequest(request, service, false);
             final Response response = service.execute(request);
             result.setStatusCode(response.getCode());
+            onResponse(request, response, result);
             switch(result.getStatusCode()) {
                 case OK:
-                    result.strResponse = HttpConnectionUtils.readStreamToString(response.getStream());
+                    result.strResponse = HttpConnectionUtils.readStreamToString(decode(response, result));
                     break;
                 default:
-                    result.strResponse = HttpConnectionUtils.readStreamToString(response.getStream());
+                    result.strResponse = HttpConnectionUtils.readStreamToString(decode(response, result));
                     throw result.getExceptionFromJsonErrorResponse();
             }
         } catch (IOException | ExecutionException | OAuthException e) {
@@ -140,17 +145,19 @@ public class HttpConnectionOAuth2JavaNet extends HttpConnectionOAuthJavaNet {
             boolean stop = false;
             do {
                 request = new OAuthRequest(Verb.GET, result.getUrlObj().toString());
+                setRequestHeaders(request);
                 if (result.authenticate) {
                     signRequest(request, service, redirected);
                 }
                 Response response = service.execute(request);
                 result.setStatusCode(response.getCode());
+                onResponse(request, response, result);
                 switch(result.getStatusCode()) {
                     case OK:
                         if (result.fileResult != null) {
-                            FileUtils.readStreamToFile(response.getStream(), result.fileResult);
+                            FileUtils.readStreamToFile(decode(response, result), result.fileResult);
                         } else {
-                            result.strResponse = HttpConnectionUtils.readStreamToString(response.getStream());
+                            result.readStream(decode(response, result));
                         }
                         stop = true;
                         break;
@@ -168,10 +175,10 @@ public class HttpConnectionOAuth2JavaNet extends HttpConnectionOAuthJavaNet {
                             }
                             MyLog.v(this, message.toString());
                         }
-                        // TODO: ?! ...disconnect();
+                        HttpConnectionUtils.discard(response.getStream());
                         break;
                     default:
-                        result.strResponse = HttpConnectionUtils.readStreamToString(response.getStream());
+                        result.strResponse = HttpConnectionUtils.readStreamToString(decode(response, result));
                         stop = result.fileResult == null || !result.authenticate;
                         if (!stop) {
                             result.authenticate = false;
@@ -192,6 +199,21 @@ public class HttpConnectionOAuth2JavaNet extends HttpConnectionOAuthJavaNet {
         }
     }
 
+    private static void setRequestHeaders(OAuthRequest request) throws MalformedURLException {
+        request.addHeader("Accept-Encoding", HttpConnectionUtils.ACCEPT_ENCODING);
+        HostKeepAlive.setRequestHeader(new URL(request.getUrl()), request::addHeader);
+    }
+
+    private static void onResponse(OAuthRequest request, Response response, HttpReadResult result)
+            throws MalformedURLException {
+        result.setRateLimitHeaders(response::getHeader);
+        HostKeepAlive.onResponse(new URL(request.getUrl()), response::getHeader);
+    }
+
+    private static InputStream decode(Response response, HttpReadResult result) throws IOException {
+        return HttpConnectionUtils.decode(response.getStream(), response.getHeader("Content-Encoding"), result);
+    }
+
     @Override
     public OAuth20Service getService(boolean redirect) {
         final JDKHttpClientConfig clientConfig = JDKHttpClientConfig.defaultConfig();
@@ -123,6 +123,7 @@ public class HttpConnectionOAuthJavaNet extends HttpConnectionOAuth {
             conn.setDoOutput(true);
             conn.setDoInput(true);
             conn.setRequestMethod("POST");
+            setRequestHeaders(conn);
             
             if (!result.hasFormParams()) {
                 // Nothing to do at this step
@@ -133,12 +134,13 @@ public class HttpConnectionOAuthJavaNet extends HttpConnectionOAuth {
             }
                         
             result.setStatusCode(conn.getResponseCode());
+            onResponse(conn, result);
             switch(result.getStatusCode()) {
                 case OK:
-                    result.strResponse = HttpConnectionUtils.readStreamToString(conn.getInputStream());
+                    result.strResponse = HttpConnectionUtils.readStreamToString(decode(conn.getInputStream(), conn, result));
                     break;
                 default:
-                    result.strResponse = HttpConnectionUtils.readStreamToString(conn.getErrorStream());
+                    result.strResponse = HttpConnectionUtils.readStreamToString(decode(conn.getErrorStream(), conn, result));
                     throw result.getExceptionFromJsonErrorResponse();
             }
         } catch (JSONException | IOException e) {
@@ -208,17 +210,19 @@ public class HttpConnectionOAuthJavaNet extends HttpConnectionOAuth {
             do {
                 conn = (HttpURLConnection) result.getUrlObj().openConnection();
                 conn.setInstanceFollowRedirects(false);
+                setRequestHeaders(conn);
                 if (result.authenticate) {
                     signConnection(conn, consumer, redirected);
                 }
                 conn.connect();
                 result.setStatusCode(conn.getResponseCode());
+                onResponse(conn, result);
                 switch(result.getStatusCode()) {
                     case OK:
                         if (result.fileResult != null) {
-                            FileUtils.readStreamToFile(conn.getInputStream(), result.fileResult);
+                            FileUtils.readStreamToFile(decode(conn.getInputStream(), conn, result), result.fileResult);
                         } else {
-                            result.strResponse = HttpConnectionUtils.readStreamToString(conn.getInputStream());
+                            result.readStream(decode(conn.getInputStream(), conn, result));
                         }
                         stop = true;
                         break;
@@ -238,10 +242,10 @@ public class HttpConnectionOAuthJavaNet extends HttpConnectionOAuth {
                             }
                             MyLog.v(this, message.toString());
                         }
-                        conn.disconnect();
+                        HttpConnectionUtils.discard(conn.getInputStream());
                         break;
                     default:
-                        result.strResponse = HttpConnectionUtils.readStreamToString(conn.getErrorStream());
+                        result.strResponse = HttpConnectionUtils.readStreamToString(decode(conn.getErrorStream(), conn, result));
                         stop = result.fileResult == null || !result.authenticate;
                         if (!stop) {
                             result.authenticate = false;
@@ -259,6 +263,22 @@ public class HttpConnectionOAuthJavaNet extends HttpConnectionOAuth {
         }
     }
 
+    /** We ask for compressed responses and decode them ourselves, see {@link HttpConnectionUtils#decode} */
+    private static void setRequestHeaders(HttpURLConnection conn) {
+        conn.setRequestProperty("Accept-Encoding", HttpConnectionUtils.ACCEPT_ENCODING);
+        HostKeepAlive.setRequestHeader(conn.getURL(), conn::setRequestProperty);
+    }
+
+    private static void onResponse(HttpURLConnection conn, HttpReadResult result) {
+        result.setRateLimitHeaders(conn::getHeaderField);
+        HostKeepAlive.onResponse(conn.getURL(), conn::getHeaderField);
+    }
+
+    private static InputStream decode(InputStream in, HttpURLConnection conn, HttpReadResult result)
+            throws IOException {
+        return HttpConnectionUtils.decode(in, conn.getContentEncoding(), result);
+    }
+
     protected void signConnection(HttpURLConnection conn, OAuthConsumer consumer, boolean redirected)
             throws ConnectionException {
         if (!getCredentialsPresent() || consumer == null) {
@@ -18,16 +18,24 @@ package org.andstatus.app.net.http;
 
 import org.andstatus.app.data.DbUtils;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 public class HttpConnectionUtils {
     public static final String UTF_8 = "UTF-8";
+    /** We decode responses ourselves, so we know the size of a response on the wire */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
 
     private HttpConnectionUtils() {
     }
@@ -51,6 +59,86 @@ public class HttpConnectionUtils {
     }
 
     private static final int BUFFER_LENGTH = 4096;
+
+    /**
+     * Decompresses the stream as it is read, according to the "Content-Encoding" header of the response,
+     * counting bytes received and decoded in the result
+     * @return null if the stream is null
+     */
+    static InputStream decode(InputStream in, String contentEncoding, HttpReadResult result) throws IOException {
+        if (in == null) {
+            return null;
+        }
+        InputStream wire = new CountingInputStream(in, result::addBytesOnWire);
+        String encoding = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.US);
+        InputStream decoded;
+        try {
+            switch (encoding) {
+                case "gzip":
+                case "x-gzip":
+                    decoded = new GZIPInputStream(wire, BUFFER_LENGTH);
+                    break;
+                case "deflate":
+                    decoded = inflate(wire);
+                    break;
+                default:
+                    decoded = wire;
+                    break;
+            }
+        } catch (EOFException e) {
+            // Empty body
+            decoded = wire;
+        }
+        return new CountingInputStream(decoded, result::addBytesDecoded);
+    }
+
+    /** "deflate" should be zlib wrapped, but some servers send raw deflate data */
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        byte[] header = new byte[2];
+        int count = pushback.read(header);
+        if (count <= 0) {
+            return pushback;
+        }
+        pushback.unread(header, 0, count);
+        boolean isZlib = count == 2 && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        return new OwnInflaterInputStream(pushback, new Inflater(!isZlib));
+    }
+
+    /** Releases native memory of its own {@link Inflater} on close, which InflaterInputStream doesn't do */
+    private static class OwnInflaterInputStream extends InflaterInputStream {
+        OwnInflaterInputStream(InputStream in, Inflater inflater) {
+            super(in, inflater, BUFFER_LENGTH);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+
+    /** Reads the rest of the stream and closes it, so its connection may be reused */
+    static void discard(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        byte[] buffer = new byte[BUFFER_LENGTH];
+        try {
+            while (in.read(buffer) != -1) {
+                // Skip
+            }
+        } catch (IOException e) {
+            // Ignored
+        } finally {
+            DbUtils.closeSilently(in);
+        }
+    }
+
     static String readStreamToString(InputStream in) throws IOException {
         if (in == null) {
             return "";
@@ -19,6 +19,7 @@ package org.andstatus.app.net.http;
 import android.text.TextUtils;
 
 import org.andstatus.app.net.http.ConnectionException.StatusCode;
+import org.andstatus.app.net.social.RateLimitStatus;
 import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyLog;
 import org.json.JSONArray;
@@ -27,9 +28,19 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class HttpReadResult {
     private final String urlInitial;
@@ -48,6 +59,14 @@ public class HttpReadResult {
     private StatusCode statusCode = StatusCode.UNKNOWN;
 
     boolean redirected = false;
+    private final RateLimitStatus rateLimitStatus = new RateLimitStatus();
+
+    private String arrayKey = "";
+    private JsonItemConsumer itemConsumer = null;
+    private boolean streamed = false;
+    private int itemsStreamed = 0;
+    private long bytesOnWire = 0;
+    private long bytesDecoded = 0;
 
     public HttpReadResult(String urlIn) throws ConnectionException {
         this (urlIn, null);
@@ -71,6 +90,61 @@ public class HttpReadResult {
         }
     }
     
+    /** Items of the JSON array of a successful response will be passed to the consumer, see {@link #readStream} */
+    HttpReadResult setItemConsumer(String arrayKey, JsonItemConsumer itemConsumer) {
+        this.arrayKey = arrayKey;
+        this.itemConsumer = itemConsumer;
+        return this;
+    }
+
+    boolean isStreamingItems() {
+        return itemConsumer != null;
+    }
+
+    /** @return true if the items were passed to the consumer, so the response is not kept */
+    boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Reads the body of a successful response. If the item consumer is set, items of the JSON array are parsed
+     * and consumed as they arrive, see {@link JsonStreamParser}, otherwise the body is kept as a string
+     */
+    void readStream(InputStream in) throws IOException, ConnectionException {
+        if (!isStreamingItems()) {
+            strResponse = HttpConnectionUtils.readStreamToString(in);
+            return;
+        }
+        if (in == null) {
+            streamed = true;
+            return;
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            itemsStreamed = JsonStreamParser.parseArray(reader, arrayKey, itemConsumer);
+            streamed = true;
+        } catch (JSONException | IllegalStateException | NumberFormatException e) {
+            throw ConnectionException.loggedJsonException(this, "readStream; " + toString(), e, null);
+        }
+    }
+
+    void addBytesOnWire(long count) {
+        bytesOnWire += count;
+    }
+
+    void addBytesDecoded(long count) {
+        bytesDecoded += count;
+    }
+
+    /** @return Bytes of the response body as received, before decompression, see {@link HttpConnectionUtils#decode} */
+    public long getBytesOnWire() {
+        return bytesOnWire;
+    }
+
+    /** @return Bytes of the response body after decompression */
+    public long getBytesDecoded() {
+        return bytesDecoded;
+    }
+
     void setStatusCode(int intStatusCodeIn) {
         intStatusCode = intStatusCodeIn;
         statusCode = ConnectionException.StatusCode.fromResponseCode(intStatusCodeIn);
@@ -79,6 +153,47 @@ public class HttpReadResult {
     public StatusCode getStatusCode() {
         return statusCode;
     }
+
+    /** Reads rate limit headers of a response: "X-Rate-Limit-..." of Twitter or "X-RateLimit-..." of Mastodon
+     * @param headerReader returns a value of the header by its name or null */
+    void setRateLimitHeaders(Function<String, String> headerReader) {
+        for (String prefix : new String[]{"X-Rate-Limit-", "X-RateLimit-"}) {
+            String limit = headerReader.apply(prefix + "Limit");
+            String remaining = headerReader.apply(prefix + "Remaining");
+            if (TextUtils.isEmpty(limit) || TextUtils.isEmpty(remaining)) continue;
+            try {
+                rateLimitStatus.limit = Integer.parseInt(limit.trim());
+                rateLimitStatus.remaining = Integer.parseInt(remaining.trim());
+                rateLimitStatus.resetAt = parseResetTime(headerReader.apply(prefix + "Reset"));
+            } catch (NumberFormatException e) {
+                MyLog.d(this, "Failed to parse rate limit headers, limit:'" + limit
+                        + "', remaining:'" + remaining + "'", e);
+                rateLimitStatus.limit = 0;
+                rateLimitStatus.remaining = 0;
+            }
+            break;
+        }
+    }
+
+    /** @return Unix time, 0 if unknown. The header has seconds since the epoch or ISO 8601 date */
+    private long parseResetTime(String reset) {
+        if (TextUtils.isEmpty(reset)) return 0;
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(reset.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX", Locale.ENGLISH).parse(reset.trim()).getTime();
+            } catch (ParseException e2) {
+                MyLog.ignored(this, e2);
+            }
+        }
+        return 0;
+    }
+
+    /** @return Rate limit status, reported by the server in this response, may be empty */
+    public RateLimitStatus getRateLimitStatus() {
+        return rateLimitStatus;
+    }
     
     public String getUrl() {
         return urlString;
@@ -114,6 +229,8 @@ public class HttpReadResult {
                 + (redirected ? "; redirected from:'" + urlInitial + "'" : "")
                 + ( hasFormParams() ? "; posted:'" + formParams.toString() + "'" : "")
                 + (TextUtils.isEmpty(strResponse) ? "" : "; response:'" + I18n.trimTextAt(strResponse, 40) + "'")
+                + (streamed ? "; streamed " + itemsStreamed + " items" : "")
+                + (bytesDecoded == 0 ? "" : "; bytes on wire/decoded:" + bytesOnWire + "/" + bytesDecoded)
                 + (fileResult == null ? "" : "; saved to file");
     }
     
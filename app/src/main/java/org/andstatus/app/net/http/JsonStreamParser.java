@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.http;
+
+import android.support.annotation.NonNull;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads items of a JSON array from a stream, without keeping the whole response as a string or as a tree:
+ * only the item being read is built as a {@link JSONObject}. The array is found the same way,
+ * as {@link HttpReadResult#getJsonArray(String)} does it: it is either the root element, or the value
+ * of the "arrayKey" member of the root object, or the first array member of the root object
+ * @author yvolk@yurivolkov.com
+ */
+class JsonStreamParser {
+
+    private JsonStreamParser() {
+        // Empty
+    }
+
+    /** @return Number of items, passed to the consumer. An empty stream has no items */
+    static int parseArray(@NonNull Reader in, String arrayKey, @NonNull JsonItemConsumer consumer)
+            throws IOException, JSONException, ConnectionException {
+        JsonReader reader = new JsonReader(in);
+        JsonToken token;
+        try {
+            token = reader.peek();
+        } catch (EOFException e) {
+            // An empty response has no items, as in HttpReadResult#getJsonArray
+            return 0;
+        }
+        switch (token) {
+            case BEGIN_ARRAY:
+                return streamArray(reader, consumer);
+            case BEGIN_OBJECT:
+                return streamArrayInObject(reader, arrayKey, consumer);
+            default:
+                throw new JSONException("No array in the response, found " + token);
+        }
+    }
+
+    private static int streamArrayInObject(JsonReader reader, String arrayKey, JsonItemConsumer consumer)
+            throws IOException, JSONException, ConnectionException {
+        JSONArray otherArray = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+            } else if (name.equals(arrayKey)) {
+                return streamArray(reader, consumer);
+            } else if (otherArray == null) {
+                otherArray = readArray(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        if (otherArray == null) {
+            throw new JSONException("No array in the response object");
+        }
+        for (int index = 0; index < otherArray.length(); index++) {
+            consumer.accept(otherArray.getJSONObject(index));
+        }
+        return otherArray.length();
+    }
+
+    private static int streamArray(JsonReader reader, JsonItemConsumer consumer)
+            throws IOException, JSONException, ConnectionException {
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Object item = readValue(reader);
+            if (!(item instanceof JSONObject)) {
+                throw new JSONException("Item " + count + " is not an object: " + item);
+            }
+            consumer.accept((JSONObject) item);
+            count++;
+        }
+        reader.endArray();
+        return count;
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException, JSONException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return readObject(reader);
+            case BEGIN_ARRAY:
+                return readArray(reader);
+            case NUMBER:
+                return toNumber(reader.nextString());
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            default:
+                return reader.nextString();
+        }
+    }
+
+    private static JSONObject readObject(JsonReader reader) throws IOException, JSONException {
+        JSONObject jso = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            jso.put(reader.nextName(), readValue(reader));
+        }
+        reader.endObject();
+        return jso;
+    }
+
+    private static JSONArray readArray(JsonReader reader) throws IOException, JSONException {
+        JSONArray jsa = new JSONArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            jsa.put(readValue(reader));
+        }
+        reader.endArray();
+        return jsa;
+    }
+
+    /** The same types, as {@link org.json.JSONTokener} returns */
+    private static Object toNumber(String literal) {
+        if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0) {
+            try {
+                long longValue = Long.parseLong(literal);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            } catch (NumberFormatException e) {
+                // Too large for a long
+            }
+        }
+        return Double.valueOf(literal);
+    }
+}
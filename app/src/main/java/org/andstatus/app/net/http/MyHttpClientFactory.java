@@ -17,6 +17,15 @@
 package org.andstatus.app.net.http;
 
 import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.util.MyLog;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 import cz.msebera.android.httpclient.client.HttpClient;
 import cz.msebera.android.httpclient.client.config.RequestConfig;
@@ -24,30 +33,103 @@ import cz.msebera.android.httpclient.config.Registry;
 import cz.msebera.android.httpclient.config.RegistryBuilder;
 import cz.msebera.android.httpclient.conn.socket.ConnectionSocketFactory;
 import cz.msebera.android.httpclient.conn.socket.PlainConnectionSocketFactory;
+import cz.msebera.android.httpclient.impl.client.CloseableHttpClient;
 import cz.msebera.android.httpclient.impl.client.HttpClientBuilder;
 import cz.msebera.android.httpclient.impl.client.HttpClients;
 import cz.msebera.android.httpclient.impl.conn.PoolingHttpClientConnectionManager;
 
+/**
+ * One client with its pool of connections per origin host and SSL mode, shared by all connections to that host,
+ * so pooled connections and TLS sessions are reused by all accounts of the host
+ */
 public class MyHttpClientFactory {
+    private static final String TAG = MyHttpClientFactory.class.getSimpleName();
+    static final long MAX_IDLE_SECONDS = 30;
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+
+    private static final Map<String, PooledClient> clients = new ConcurrentHashMap<>();
+    /** Replaced clients, which may still be used by requests in flight. Closed when none of their connections are leased */
+    private static final Queue<PooledClient> retired = new ConcurrentLinkedQueue<>();
+
+    private static class PooledClient {
+        /** Settings, which the client was built with */
+        final String settings;
+        final CloseableHttpClient client;
+        final PoolingHttpClientConnectionManager connectionManager;
+
+        PooledClient(String settings, SslModeEnum sslMode) {
+            this.settings = settings;
+            connectionManager = newConnectionManager(sslMode);
+            client = newHttpClient(connectionManager);
+        }
+
+        int getLeased() {
+            return connectionManager.getTotalStats().getLeased();
+        }
+    }
 
     /** Based on: https://github.com/rfc2822/davdroid/blob/master/src/at/bitfire/davdroid/webdav/DavHttpClient.java */
 
     private MyHttpClientFactory() {
         // Empty
     }
-    
-    public static HttpClient getHttpClient(SslModeEnum sslMode) {
+
+    /** @return The shared client, which is rebuilt if connection preferences changed */
+    public static HttpClient getHttpClient(SslModeEnum sslMode, URL originUrl) {
+        String key = keyOf(sslMode, originUrl);
+        String settings = MyPreferences.getConnectionTimeoutMs() + "," + MyPreferences.getHttpMaxConnectionsTotal()
+                + "," + MyPreferences.getHttpMaxConnectionsPerRoute();
+        PooledClient pooled = clients.compute(key, (k, existing) -> {
+            if (existing != null && existing.settings.equals(settings)) {
+                return existing;
+            }
+            if (existing != null) {
+                retired.add(existing);
+            }
+            MyLog.v(TAG, "New client for '" + k + "', settings:" + settings);
+            return new PooledClient(settings, sslMode);
+        });
+        closeIdleRetired();
+        return pooled.client;
+    }
+
+    private static String keyOf(SslModeEnum sslMode, URL originUrl) {
+        return sslMode + ":" + (originUrl == null ? "" : originUrl.getHost());
+    }
+
+    private static void closeIdleRetired() {
+        for (PooledClient pooled : retired) {
+            if (pooled.getLeased() == 0 && retired.remove(pooled)) {
+                close(pooled);
+            }
+        }
+    }
+
+    /** @return number of connections, which are in use by requests to this host now */
+    static int getLeasedConnections(SslModeEnum sslMode, URL originUrl) {
+        PooledClient pooled = clients.get(keyOf(sslMode, originUrl));
+        return pooled == null ? 0 : pooled.getLeased();
+    }
+
+    static int getRetiredCount() {
+        return retired.size();
+    }
+
+    private static PoolingHttpClientConnectionManager newConnectionManager(SslModeEnum sslMode) {
         Registry<ConnectionSocketFactory> registry = 
                 RegistryBuilder.<ConnectionSocketFactory> create()
                     .register("http", PlainConnectionSocketFactory.getSocketFactory())
                     .register("https", TlsSniSocketFactory.getInstance(sslMode))
                     .build();
         PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
-        // max.  3 connections in total
-        connectionManager.setMaxTotal(3);
-        // max.  2 connections per host
-        connectionManager.setDefaultMaxPerRoute(2);
+        connectionManager.setMaxTotal(MyPreferences.getHttpMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(MyPreferences.getHttpMaxConnectionsPerRoute());
+        // Instead of the stale connection check before each request
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+        return connectionManager;
+    }
 
+    private static CloseableHttpClient newHttpClient(PoolingHttpClientConnectionManager connectionManager) {
         // use request defaults from AndroidHttpClient
         RequestConfig requestConfig = RequestConfig.copy(RequestConfig.DEFAULT)
                 .setConnectTimeout(MyPreferences.getConnectionTimeoutMs())
@@ -59,6 +141,8 @@ public class MyHttpClientFactory {
                 .useSystemProperties()
                 .setConnectionManager(connectionManager)
                 .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(MAX_IDLE_SECONDS, TimeUnit.SECONDS)
                 /* TODO maybe:  
                 .setRetryHandler(DavHttpRequestRetryHandler.INSTANCE)
                 .setRedirectStrategy(DavRedirectStrategy.INSTANCE)  
@@ -69,5 +153,27 @@ public class MyHttpClientFactory {
 
         return builder.build();
     }
-    
+
+    /** Closes all shared clients and their pooled connections, and forgets keep-alive decisions */
+    public static void forget() {
+        HostKeepAlive.clear();
+        for (String key : clients.keySet()) {
+            PooledClient pooled = clients.remove(key);
+            if (pooled != null) {
+                close(pooled);
+            }
+        }
+        PooledClient pooled;
+        while ((pooled = retired.poll()) != null) {
+            close(pooled);
+        }
+    }
+
+    private static void close(PooledClient pooled) {
+        try {
+            pooled.client.close();
+        } catch (IOException e) {
+            MyLog.ignored(TAG, e);
+        }
+    }
 }
@@ -9,8 +9,11 @@
  ******************************************************************************/
 package org.andstatus.app.net.http;
 
+import android.content.Context;
 import android.net.SSLCertificateSocketFactory;
+import android.net.SSLSessionCache;
 
+import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.util.MyLog;
 
@@ -35,10 +38,7 @@ public class TlsSniSocketFactory implements LayeredConnectionSocketFactory {
 
     private static final ConcurrentHashMap<SslModeEnum, TlsSniSocketFactory> instances = new ConcurrentHashMap<SslModeEnum, TlsSniSocketFactory>();
     public static ConnectionSocketFactory getInstance(SslModeEnum sslMode) {
-        if (!instances.containsKey(sslMode)) {
-            instances.put(sslMode, new TlsSniSocketFactory(sslMode));
-        }
-        return instances.get(sslMode);
+        return instances.computeIfAbsent(sslMode, TlsSniSocketFactory::new);
     }
     public static void forget() {
         instances.clear();
@@ -67,16 +67,23 @@ public class TlsSniSocketFactory implements LayeredConnectionSocketFactory {
 
     public TlsSniSocketFactory(SslModeEnum sslMode) {
         secure = sslMode == SslModeEnum.SECURE;
+        // TLS sessions are resumed by the host name and port, which we set before the handshake (SNI)
+        SSLSessionCache sessionCache = newSessionCache();
         if (secure) {
             sslSocketFactory = (SSLCertificateSocketFactory) SSLCertificateSocketFactory
-                    .getDefault(MyPreferences.getConnectionTimeoutMs());
+                    .getDefault(MyPreferences.getConnectionTimeoutMs(), sessionCache);
         } else {
             sslSocketFactory = (SSLCertificateSocketFactory) SSLCertificateSocketFactory
-                    .getInsecure(MyPreferences.getConnectionTimeoutMs(), null);
+                    .getInsecure(MyPreferences.getConnectionTimeoutMs(), sessionCache);
             MyLog.i(this, "Insecure SSL allowed");
         }
     }
     
+    private static SSLSessionCache newSessionCache() {
+        Context context = MyContextHolder.get().context();
+        return context == null ? null : new SSLSessionCache(context);
+    }
+
     @Override
     public Socket createSocket(HttpContext context) throws IOException {
         return sslSocketFactory.createSocket();
@@ -28,6 +28,7 @@ import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.data.DownloadStatus;
 import org.andstatus.app.data.MyProvider;
 import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.data.OidCache;
 import org.andstatus.app.data.OidEnum;
 import org.andstatus.app.database.table.ActivityTable;
 import org.andstatus.app.notification.NotificationEventType;
@@ -343,13 +344,18 @@ public class AActivity extends AObject {
     public long save(MyContext myContext) {
         if (wontSave(myContext)) return id;
         if (updatedDate > 0) calculateInteraction(myContext);
+        ContentValues values = toContentValues();
         if (getId() == 0) {
-            id = DbUtils.addRowWithRetry(myContext, ActivityTable.TABLE_NAME, toContentValues(), 3);
+            id = DbUtils.addRowWithRetry(myContext, ActivityTable.TABLE_NAME, values, 3);
             MyLog.v(this, "Added " + this);
         } else {
-            DbUtils.updateRowWithRetry(myContext, ActivityTable.TABLE_NAME, getId(), toContentValues(), 3);
+            DbUtils.updateRowWithRetry(myContext, ActivityTable.TABLE_NAME, getId(), values, 3);
             MyLog.v(this, "Updated " + this);
         }
+        if (values.containsKey(ActivityTable.ACTIVITY_OID)) {
+            OidCache.onSaved(OidCache.Key.ACTIVITY_OID, accountActor.origin.getId(),
+                    values.getAsString(ActivityTable.ACTIVITY_OID), id);
+        }
         afterSave(myContext);
         return id;
     }
@@ -76,6 +76,8 @@ public abstract class Connection {
         GET_FOLLOWERS_IDS,
         GET_OPEN_INSTANCES,
         GET_ACTOR,
+        /** Many actors at once by their IDs, see {@link #LOOKUP_ACTORS_MAX_COUNT} */
+        LOOKUP_ACTORS,
         UPDATE_NOTE,
         UPDATE_NOTE_WITH_MEDIA,
         UPDATE_PRIVATE_NOTE,
@@ -163,6 +165,13 @@ public abstract class Connection {
         return path;
     }
     
+    /** @return The resource family, which the server limits the rate of requests of the API routine in,
+     * see {@link RateLimitBudget#familyOf(String)} */
+    @NonNull
+    public String getRateLimitFamily(ApiRoutineEnum routine) {
+        return routine == null ? "" : RateLimitBudget.familyOf(getApiPath1(routine));
+    }
+
     /**
      * Use this method to check the connection's (Account's) capability before attempting to use it
      * and even before presenting corresponding action to the User.
@@ -355,6 +364,18 @@ public abstract class Connection {
      * Get information about the specified Actor
      */
     public abstract Actor getActor(String actorOid, String username) throws ConnectionException;
+
+    /** Maximum number of actors in one {@link ApiRoutineEnum#LOOKUP_ACTORS} request */
+    public static final int LOOKUP_ACTORS_MAX_COUNT = 100;
+
+    /**
+     * Get information about up to {@link #LOOKUP_ACTORS_MAX_COUNT} Actors in one request.
+     * Actors, which were not found, are not returned
+     */
+    @NonNull
+    public List<Actor> lookupActors(List<String> actorOids) throws ConnectionException {
+        throw ConnectionException.fromStatusCode(StatusCode.UNSUPPORTED_API, "lookupActors " + actorOids.size());
+    }
     
     protected final String fixSinceId(String sinceId) {
         String out = "";
@@ -198,8 +198,7 @@ public class ConnectionMastodon extends ConnectionTwitterLike {
         Uri.Builder builder = sUri.buildUpon();
         appendPositionParameters(builder, youngestPosition, oldestPosition);
         builder.appendQueryParameter("limit", strFixedDownloadLimit(limit, apiRoutine));
-        JSONArray jArr = http.getRequestAsArray(builder.build().toString());
-        return jArrToTimeline(jArr, apiRoutine, url);
+        return getTimelineStreamed(builder.build().toString(), "items", apiRoutine);
     }
 
     @NonNull
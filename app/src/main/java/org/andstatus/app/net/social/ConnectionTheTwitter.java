@@ -94,6 +94,10 @@ public class ConnectionTheTwitter extends ConnectionTwitterLike {
             case SEARCH_ACTORS:
                 url = "users/search.json?tweet_mode=extended";
                 break;
+            case LOOKUP_ACTORS:
+                // https://developer.twitter.com/en/docs/accounts-and-users/follow-search-get-users/api-reference/get-users-lookup
+                url = "users/lookup.json";
+                break;
             case ACTOR_TIMELINE:
                 url = "statuses/user_timeline.json?tweet_mode=extended";
                 break;
@@ -172,8 +176,7 @@ public class ConnectionTheTwitter extends ConnectionTwitterLike {
         }
         appendPositionParameters(builder, youngestPosition, oldestPosition);
         builder.appendQueryParameter("count", strFixedDownloadLimit(limit, apiRoutine));
-        JSONArray jArr = getRequestArrayInObject(builder.build().toString(), "statuses");
-        return jArrToTimeline(jArr, apiRoutine, url);
+        return getTimelineStreamed(builder.build().toString(), "statuses", apiRoutine);
     }
 
     @NonNull
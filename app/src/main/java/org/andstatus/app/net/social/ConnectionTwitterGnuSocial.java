@@ -158,8 +158,7 @@ public class ConnectionTwitterGnuSocial extends ConnectionTwitterLike {
             return new ArrayList<>();
         } else {
             String url = getApiPathWithNoteId(ApiRoutineEnum.GET_CONVERSATION, conversationOid);
-            JSONArray jArr = http.getRequestAsArray(url);
-            return jArrToTimeline(jArr, ApiRoutineEnum.GET_CONVERSATION, url);
+            return getTimelineStreamed(url, "items", ApiRoutineEnum.GET_CONVERSATION);
         }
     }
 
@@ -31,7 +31,9 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Twitter API implementations
@@ -213,8 +215,7 @@ public abstract class ConnectionTwitterLike extends Connection {
             throws ConnectionException {
         Uri.Builder builder = getTimelineUriBuilder(apiRoutine, limit, actorOid);
         appendPositionParameters(builder, youngestPosition, oldestPosition);
-        JSONArray jArr = http.getRequestAsArray(builder.build().toString());
-        return jArrToTimeline(jArr, apiRoutine, builder.build().toString());
+        return getTimelineStreamed(builder.build().toString(), "items", apiRoutine);
     }
 
     @NonNull
@@ -431,8 +432,7 @@ public abstract class ConnectionTwitterLike extends Connection {
         }
         appendPositionParameters(builder, youngestPosition, oldestPosition);
         builder.appendQueryParameter("count", strFixedDownloadLimit(limit, apiRoutine));
-        JSONArray jArr = http.getRequestAsArray(builder.build().toString());
-        return jArrToTimeline(jArr, apiRoutine, url);
+        return getTimelineStreamed(builder.build().toString(), "items", apiRoutine);
     }
 
     void appendPositionParameters(Uri.Builder builder, TimelinePosition youngest, TimelinePosition oldest) {
@@ -451,6 +451,16 @@ public abstract class ConnectionTwitterLike extends Connection {
         }
     }
 
+    /** Activities are parsed one by one, as they are read from the network */
+    List<AActivity> getTimelineStreamed(String url, String arrayKey, ApiRoutineEnum apiRoutine)
+            throws ConnectionException {
+        List<AActivity> timeline = new ArrayList<>();
+        http.getRequestAsArray(url, arrayKey, jso -> timeline.add(activityFromTwitterLikeJson(jso)));
+        // Read the activities in chronological order
+        Collections.reverse(timeline);
+        return onTimelineRead(timeline, apiRoutine, url);
+    }
+
     List<AActivity> jArrToTimeline(JSONArray jArr, ApiRoutineEnum apiRoutine, String url) throws ConnectionException {
         List<AActivity> timeline = new ArrayList<>();
         if (jArr != null) {
@@ -464,6 +474,10 @@ public abstract class ConnectionTwitterLike extends Connection {
                 }
             }
         }
+        return onTimelineRead(timeline, apiRoutine, url);
+    }
+
+    private List<AActivity> onTimelineRead(List<AActivity> timeline, ApiRoutineEnum apiRoutine, String url) {
         if (apiRoutine.isNotePrivate()) {
             setNotesPrivate(timeline);
         }
@@ -513,6 +527,22 @@ public abstract class ConnectionTwitterLike extends Connection {
         MyLog.v(this, "getActor oid='" + actorOid + "', username='" + username + "' -> " + actor.getRealName());
         return actor;
     }
+
+    /**
+     * @see <a href="https://developer.twitter.com/en/docs/accounts-and-users/follow-search-get-users/api-reference/get-users-lookup">GET users/lookup</a>
+     */
+    @NonNull
+    @Override
+    public List<Actor> lookupActors(List<String> actorOids) throws ConnectionException {
+        if (actorOids.isEmpty()) return new ArrayList<>();
+        if (actorOids.size() > LOOKUP_ACTORS_MAX_COUNT) {
+            throw new IllegalArgumentException("Too many actors: " + actorOids.size());
+        }
+        String url = getApiPath(ApiRoutineEnum.LOOKUP_ACTORS);
+        Uri.Builder builder = Uri.parse(url).buildUpon();
+        builder.appendQueryParameter("user_id", TextUtils.join(",", actorOids));
+        return jArrToActors(http.getRequestAsArray(builder.build().toString()), ApiRoutineEnum.LOOKUP_ACTORS, url);
+    }
     
     @Override
     public AActivity updatePrivateNote(String note, String noteOid, String recipientOid, Uri mediaUri) throws ConnectionException {
@@ -557,6 +587,7 @@ public abstract class ConnectionTwitterLike extends Connection {
                 case GNUSOCIAL:
                     status.remaining = result.optInt("remaining_hits");
                     status.limit = result.optInt("hourly_limit");
+                    status.resetAt = TimeUnit.SECONDS.toMillis(result.optLong("reset_time_in_seconds"));
                     break;
                 default:
                     JSONObject resources = null;
@@ -565,6 +596,7 @@ public abstract class ConnectionTwitterLike extends Connection {
                         JSONObject limitObject = resources.getJSONObject("statuses").getJSONObject("/statuses/home_timeline");
                         status.remaining = limitObject.optInt("remaining");
                         status.limit = limitObject.optInt("limit");
+                        status.resetAt = TimeUnit.SECONDS.toMillis(limitObject.optLong("reset"));
                     } catch (JSONException e) {
                         throw ConnectionException.loggedJsonException(this, "getting rate limits", e, resources);
                     }
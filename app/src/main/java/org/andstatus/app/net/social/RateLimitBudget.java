@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.net.social;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.andstatus.app.util.MyLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Token bucket of API requests of an account to one resource family (e.g. "statuses" or "followers"),
+ * as servers limit each family separately. Seeded by {@link RateLimitStatus},
+ * which we get from the "rate limit status" API or from response headers.
+ * Each request takes a token. If the server didn't tell us, when its window is reset,
+ * tokens are refilled gradually during the {@link #DEFAULT_WINDOW_MILLIS}.
+ * Part of the limit is reserved for foreground requests, so background ones are deferred earlier
+ * @author yvolk@yurivolkov.com
+ */
+public class RateLimitBudget {
+    private static final Map<String, RateLimitBudget> budgets = new ConcurrentHashMap<>();
+    static final long DEFAULT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    /** Part of the limit, which background requests don't use */
+    static final double FOREGROUND_RESERVE = 0.2;
+    private static final Pattern VERSION_SEGMENT = Pattern.compile("v?\\d+(\\.\\d+)*");
+
+    /** Account name and the resource family */
+    private final String name;
+    private int limit = 0;
+    private double tokens = 0;
+    /** When the server will reset the window, 0 if unknown */
+    private long resetAt = 0;
+    private long updatedAt = 0;
+    private long seedRequestedAt = 0;
+
+    private RateLimitBudget(String name) {
+        this.name = name;
+    }
+
+    /** @param family See {@link #familyOf(String)} */
+    @NonNull
+    public static RateLimitBudget of(@NonNull String accountName, @NonNull String family) {
+        return budgets.computeIfAbsent(TextUtils.isEmpty(family) ? accountName : accountName + " " + family,
+                RateLimitBudget::new);
+    }
+
+    /** @return The first segment of the API path after the "api" and version segments, without an extension,
+     * e.g. "statuses" for "https://api.twitter.com/1.1/statuses/home_timeline.json" or for "statuses/update.json" */
+    @NonNull
+    public static String familyOf(String pathOrUrl) {
+        if (TextUtils.isEmpty(pathOrUrl)) return "";
+
+        String path = pathOrUrl;
+        int schemeEnd = path.indexOf("://");
+        if (schemeEnd >= 0) {
+            int pathStart = path.indexOf('/', schemeEnd + 3);
+            path = pathStart < 0 ? "" : path.substring(pathStart);
+        }
+        int queryStart = path.indexOf('?');
+        if (queryStart >= 0) path = path.substring(0, queryStart);
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (segment.equals("api")) {
+                segments.clear();
+            } else if (!segment.isEmpty() && !VERSION_SEGMENT.matcher(segment).matches()) {
+                segments.add(segment);
+            }
+        }
+        if (segments.isEmpty()) return "";
+        String family = segments.get(0);
+        int extensionStart = family.lastIndexOf('.');
+        return extensionStart > 0 ? family.substring(0, extensionStart) : family;
+    }
+
+    /** A request was made and its response may have the current status */
+    public synchronized void onRequest(@NonNull RateLimitStatus status) {
+        if (status.isEmpty()) {
+            refill();
+            if (limit > 0 && tokens >= 1) tokens--;
+        } else {
+            onStatus(status);
+        }
+    }
+
+    public synchronized void onStatus(@NonNull RateLimitStatus status) {
+        if (status.isEmpty()) return;
+        limit = status.limit;
+        tokens = Math.min(status.remaining, status.limit);
+        resetAt = status.resetAt;
+        updatedAt = System.currentTimeMillis();
+        MyLog.v(this, toString());
+    }
+
+    private void refill() {
+        if (limit == 0) return;
+
+        long now = System.currentTimeMillis();
+        if (resetAt > 0) {
+            if (now >= resetAt) {
+                tokens = limit;
+                resetAt = 0;
+                updatedAt = now;
+            }
+        } else if (now > updatedAt) {
+            tokens = Math.min(limit, tokens + (double) limit * (now - updatedAt) / DEFAULT_WINDOW_MILLIS);
+            updatedAt = now;
+        }
+    }
+
+    /** @return true if the limit was not reported yet */
+    public synchronized boolean isUnknown() {
+        return limit == 0;
+    }
+
+    /** @return true once per window, while the limit is unknown, so we may request the rate limit status */
+    public synchronized boolean needsSeeding() {
+        if (limit > 0 || seedRequestedAt > System.currentTimeMillis() - DEFAULT_WINDOW_MILLIS) return false;
+        seedRequestedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    /** @return true if a request is allowed now. Background requests leave the reserve for foreground ones */
+    public synchronized boolean isAvailable(boolean inForeground) {
+        refill();
+        if (limit == 0) return true;
+        return tokens >= (inForeground ? 1 : Math.max(1, limit * FOREGROUND_RESERVE));
+    }
+
+    /** @return The time, when background requests will be allowed, approximately */
+    public synchronized long getAvailableAt() {
+        if (isAvailable(false)) return System.currentTimeMillis();
+        if (resetAt > 0) return resetAt;
+        double missing = Math.max(1, limit * FOREGROUND_RESERVE) - tokens;
+        return updatedAt + Math.round(missing * DEFAULT_WINDOW_MILLIS / limit);
+    }
+
+    public synchronized int getRemaining() {
+        refill();
+        return (int) tokens;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /** @return Budgets, for which we know limits, e.g. "user@Twitter statuses: 120/180" */
+    @NonNull
+    public static String summary() {
+        StringBuilder builder = new StringBuilder();
+        for (RateLimitBudget budget : new TreeMap<>(budgets).values()) {
+            if (budget.isUnknown()) continue;
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(budget.name + ": " + budget.getRemaining() + "/" + budget.getLimit());
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RateLimitBudget{" + name + ", " + (int) tokens + "/" + limit
+                + (resetAt > 0 ? ", reset in " + TimeUnit.MILLISECONDS.toSeconds(resetAt - System.currentTimeMillis())
+                    + "s" : "") + "}";
+    }
+}
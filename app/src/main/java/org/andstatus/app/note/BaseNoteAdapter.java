@@ -34,9 +34,6 @@ import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyUrlSpan;
 import org.andstatus.app.util.SharedPreferencesUtil;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * @author yvolk@yurivolkov.com
  */
@@ -44,7 +41,6 @@ public abstract class BaseNoteAdapter<T extends BaseNoteViewItem<T>> extends Bas
     protected final boolean showButtonsBelowNotes =
             SharedPreferencesUtil.getBoolean(MyPreferences.KEY_SHOW_BUTTONS_BELOW_NOTE, true);
     protected final NoteContextMenu contextMenu;
-    protected Set<Long> preloadedImages = new HashSet<>(100);
 
     public BaseNoteAdapter(@NonNull NoteContextMenu contextMenu, TimelineData<T> listData) {
         super(contextMenu.getMyContext(), listData);
@@ -125,7 +121,7 @@ public abstract class BaseNoteAdapter<T extends BaseNoteViewItem<T>> extends Bas
 
     protected void showNoteBody(View view, T item) {
         TextView body = view.findViewById(R.id.note_body);
-        MyUrlSpan.showText(body, item.getBody(), true, true);
+        MyUrlSpan.showSpanned(body, item.getBodySpanned(), true, true);
     }
 
     protected void showAvatar(View view, T item) {
@@ -134,7 +130,6 @@ public abstract class BaseNoteAdapter<T extends BaseNoteViewItem<T>> extends Bas
     }
 
     protected void showAttachedImage(View view, T item) {
-        preloadedImages.add(item.getNoteId());
         item.getAttachedImageFile().showImage(contextMenu.getActivity(), view.findViewById(R.id.attached_image));
     }
 
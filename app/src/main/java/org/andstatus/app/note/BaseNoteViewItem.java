@@ -18,6 +18,7 @@ package org.andstatus.app.note;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.text.Spanned;
 import android.text.TextUtils;
 
 import org.andstatus.app.R;
@@ -28,19 +29,30 @@ import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.AttachedImageFile;
 import org.andstatus.app.data.AvatarFile;
 import org.andstatus.app.data.DownloadStatus;
+import org.andstatus.app.data.ImageFile;
+import org.andstatus.app.data.MyQuery;
+import org.andstatus.app.net.social.Actor;
 import org.andstatus.app.origin.Origin;
 import org.andstatus.app.timeline.DuplicationLink;
 import org.andstatus.app.timeline.TimelineFilter;
 import org.andstatus.app.timeline.ViewItem;
 import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyHtml;
+import org.andstatus.app.util.MyLog;
+import org.andstatus.app.util.MyUrlSpan;
 import org.andstatus.app.util.RelativeTime;
 import org.andstatus.app.util.SharedPreferencesUtil;
+import org.andstatus.app.util.StopWatch;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static java.util.stream.Collectors.toSet;
+
 public abstract class BaseNoteViewItem<T extends BaseNoteViewItem<T>> extends ViewItem<T> {
     private static final int MIN_LENGTH_TO_COMPARE = 5;
     private MyContext myContext = MyContextHolder.get();
@@ -64,6 +76,7 @@ public abstract class BaseNoteViewItem<T extends BaseNoteViewItem<T>> extends Vi
     String noteSource = "";
 
     private String body = "";
+    private Spanned bodySpanned = null;
     String cleanedBody = "";
 
     boolean favorited = false;
@@ -89,6 +102,25 @@ public abstract class BaseNoteViewItem<T extends BaseNoteViewItem<T>> extends Vi
         this.myContext = myContext;
     }
 
+    /** Loads rebloggers of all the notes with one query */
+    static void loadRebloggers(@NonNull MyContext myContext, @NonNull Collection<? extends BaseNoteViewItem<?>> items) {
+        final StopWatch stopWatch = StopWatch.createStarted();
+        Map<Long, List<Actor>> rebloggers = MyQuery.getRebloggers(myContext,
+                items.stream().map(BaseNoteViewItem::getNoteId).filter(noteId -> noteId != 0).collect(toSet()));
+        for (BaseNoteViewItem<?> item : items) {
+            List<Actor> actors = rebloggers.get(item.getNoteId());
+            if (actors == null) continue;
+
+            for (Actor actor : actors) {
+                item.rebloggers.put(actor.actorId, actor.getWebFingerId());
+            }
+        }
+        if (MyLog.isVerboseEnabled()) {
+            MyLog.v(BaseNoteViewItem.class, "Rebloggers of " + rebloggers.size() + " notes of " + items.size()
+                    + " loaded, " + stopWatch.getTime() + "ms");
+        }
+    }
+
     public long getNoteId() {
         return noteId;
     }
@@ -216,21 +248,41 @@ public abstract class BaseNoteViewItem<T extends BaseNoteViewItem<T>> extends Vi
         }
     }
 
+    @NonNull
+    @Override
+    public Collection<ImageFile> getImageFiles() {
+        return Arrays.asList(avatarFile, attachedImageFile);
+    }
+
     public AttachedImageFile getAttachedImageFile() {
         return attachedImageFile;
     }
 
     public BaseNoteViewItem setBody(String body) {
         this.body = body;
+        bodySpanned = null;
         this.isFavoritingAction = MyHtml.isFavoritingAction(body);
         cleanedBody = MyHtml.getCleanedBody(body);
         return this;
     }
 
+    void setPreparedBody(@NonNull NoteBodyCache.NoteBody noteBody) {
+        setBody(noteBody.body);
+        bodySpanned = noteBody.spanned;
+    }
+
     public String getBody() {
         return body;
     }
 
+    @NonNull
+    public Spanned getBodySpanned() {
+        if (bodySpanned == null) {
+            bodySpanned = MyUrlSpan.toSpanned(body, true);
+        }
+        return bodySpanned;
+    }
+
     @Override
     public long getId() {
         return getNoteId();
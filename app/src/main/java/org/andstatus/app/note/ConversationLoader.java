@@ -29,6 +29,7 @@ import org.andstatus.app.data.MyQuery;
 import org.andstatus.app.list.SyncLoader;
 import org.andstatus.app.net.social.Connection;
 import org.andstatus.app.origin.Origin;
+import org.andstatus.app.os.MemoryTrimmer;
 import org.andstatus.app.service.CommandData;
 import org.andstatus.app.service.CommandEnum;
 import org.andstatus.app.service.MyServiceManager;
@@ -44,8 +45,10 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
-public abstract class ConversationLoader<T extends ConversationItem<T>> extends SyncLoader<T> {
+public abstract class ConversationLoader<T extends ConversationItem<T>> extends SyncLoader<T>
+        implements MemoryTrimmer.Trimmable {
     private static final int MAX_INDENT_LEVEL = 19;
     
     protected final MyContext myContext;
@@ -58,6 +61,8 @@ public abstract class ConversationLoader<T extends ConversationItem<T>> extends
     private final T tFactory;
 
     final Map<Long, T> cachedItems = new ConcurrentHashMap<>();
+    /** Held during loading, so cached items are not trimmed in the middle of it */
+    private final ReentrantLock loadingLock = new ReentrantLock();
     LoadableListActivity.ProgressPublisher mProgress;
 
     final List<Long> idsOfItemsToFind = new ArrayList<>();
@@ -68,21 +73,39 @@ public abstract class ConversationLoader<T extends ConversationItem<T>> extends
         this.ma = ma;
         this.selectedNoteId = selectedNoteId;
         this.sync = sync || MyPreferences.isSyncWhileUsingApplicationEnabled();
+        MemoryTrimmer.register(this);
     }
     
     @Override
     public void load(ProgressPublisher publisher) {
         mProgress = publisher;
-        cachedItems.clear();
-        idsOfItemsToFind.clear();
-        items.clear();
-        if (sync) {
-            requestConversationSync(selectedNoteId);
+        loadingLock.lock();
+        try {
+            cachedItems.clear();
+            idsOfItemsToFind.clear();
+            items.clear();
+            if (sync) {
+                requestConversationSync(selectedNoteId);
+            }
+            load2(newONote(selectedNoteId));
+            addMissedFromCache();
+            tFactory.loadForPage(myContext, items);
+            items.sort(replyLevelComparator);
+            enumerateNotes();
+        } finally {
+            loadingLock.unlock();
+        }
+    }
+
+    /** Cached items are needed during loading only */
+    @Override
+    public void onTrimMemory(int percentToKeep) {
+        if (percentToKeep >= MemoryTrimmer.PERCENT_TO_KEEP_ALL || !loadingLock.tryLock()) return;
+        try {
+            cachedItems.clear();
+        } finally {
+            loadingLock.unlock();
         }
-        load2(newONote(selectedNoteId));
-        addMissedFromCache();
-        items.sort(replyLevelComparator);
-        enumerateNotes();
     }
 
     protected abstract void load2(T oMsg);
@@ -22,23 +22,22 @@ import android.support.annotation.NonNull;
 import android.text.Html;
 import android.text.TextUtils;
 
-import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.MyContext;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.AttachedImageFile;
 import org.andstatus.app.data.AvatarFile;
 import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.data.DownloadStatus;
-import org.andstatus.app.data.MyQuery;
 import org.andstatus.app.data.TimelineSql;
 import org.andstatus.app.database.table.ActivityTable;
 import org.andstatus.app.database.table.ActorTable;
 import org.andstatus.app.database.table.DownloadTable;
 import org.andstatus.app.database.table.NoteTable;
-import org.andstatus.app.net.social.Actor;
 import org.andstatus.app.util.I18n;
-import org.andstatus.app.util.MyHtml;
 import org.andstatus.app.util.TriState;
 
+import java.util.List;
+
 public class ConversationViewItem extends ConversationItem<ConversationViewItem> {
     public static final ConversationViewItem EMPTY = new ConversationViewItem(true);
 
@@ -84,7 +83,7 @@ public class ConversationViewItem extends ConversationItem<ConversationViewItem>
             super.load(cursor);
             noteStatus = DownloadStatus.load(DbUtils.getLong(cursor, NoteTable.NOTE_STATUS));
             authorName = TimelineSql.actorColumnNameToNameAtTimeline(cursor, ActorTable.AUTHOR_NAME, false);
-            setBody(MyHtml.prepareForView(DbUtils.getString(cursor, NoteTable.BODY)));
+            setPreparedBody(NoteBodyCache.get(getNoteId(), updatedDate, DbUtils.getString(cursor, NoteTable.BODY)));
             String via = DbUtils.getString(cursor, NoteTable.VIA);
             if (!TextUtils.isEmpty(via)) {
                 noteSource = Html.fromHtml(via).toString().trim();
@@ -106,9 +105,10 @@ public class ConversationViewItem extends ConversationItem<ConversationViewItem>
 
             ind++;
         } while (cursor.moveToNext());
+    }
 
-        for (Actor actor : MyQuery.getRebloggers(MyContextHolder.get().getDatabase(), getOrigin(), getNoteId())) {
-            rebloggers.put(actor.actorId, actor.getWebFingerId());
-        }
+    @Override
+    public void loadForPage(@NonNull MyContext myContext, @NonNull List<ConversationViewItem> items) {
+        loadRebloggers(myContext, items);
     }
 }
@@ -16,9 +16,12 @@
 
 package org.andstatus.app.note;
 
+import android.provider.BaseColumns;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
+import org.andstatus.app.database.table.NoteSearchTable;
+import org.andstatus.app.database.table.NoteTable;
 import org.andstatus.app.util.MyHtml;
 import org.andstatus.app.util.StringUtils;
 
@@ -114,30 +117,91 @@ public class KeywordsFilter {
         return true;
     }
 
+    /**
+     * @return SELECT of ids of notes, which contain all keywords, using the full text search index,
+     * see {@link NoteSearchTable}. Arguments are added by {@link #prependSqlSelectionArgs(String[])}
+     */
     @NonNull
-    public String getSqlSelection(String fieldName) {
+    public String getSqlNoteIds() {
         if (isEmpty()) {
             return "";
         }
         StringBuilder selection = new StringBuilder();
-        for (int ind=0; ind<keywordsToFilter.size(); ind++) {
-            if (ind > 0) {
-                selection.append(" AND ");
+        for (String keyword : keywordsToFilter) {
+            if (!isIndexable(keyword)) {
+                selection.append((selection.length() == 0 ? "" : " AND ") + NoteTable.BODY_TO_SEARCH + " LIKE ?");
             }
-            selection.append(fieldName + " LIKE ?");
         }
-        return selection.length() == 0 ? "" : "(" + selection.toString() + ")";
+        String match = getMatchQuery().isEmpty() ? "" : "SELECT " + NoteSearchTable.DOCID
+                + " FROM " + NoteSearchTable.TABLE_NAME + " WHERE " + NoteSearchTable.TABLE_NAME + " MATCH ?";
+        if (selection.length() == 0) {
+            return match;
+        }
+        return "SELECT " + BaseColumns._ID + " FROM " + NoteTable.TABLE_NAME + " WHERE " + selection
+                + (match.isEmpty() ? "" : " AND " + BaseColumns._ID + " IN (" + match + ")");
     }
 
     @NonNull
     public String[] prependSqlSelectionArgs(String[] selectionArgs) {
-        String[] selectionArgsOut = selectionArgs;
+        List<String> args = new ArrayList<>();
         for (String keyword : keywordsToFilter) {
-            selectionArgsOut = StringUtils.addBeforeArray(selectionArgsOut, "%" + keyword + "%");
+            if (!isIndexable(keyword)) {
+                args.add("%" + keyword + "%");
+            }
+        }
+        String matchQuery = getMatchQuery();
+        if (!matchQuery.isEmpty()) {
+            args.add(matchQuery);
+        }
+        String[] selectionArgsOut = selectionArgs;
+        for (int ind = args.size() - 1; ind >= 0; ind--) {
+            selectionArgsOut = StringUtils.addBeforeArray(selectionArgsOut, args.get(ind));
         }
         return selectionArgsOut;
     }
 
+    /**
+     * Each keyword is a quoted phrase of its words, e.g. "deleted* notice*", so words should follow each other.
+     * Each word is a prefix, so a search for a part of a word, being typed, finds it, as a LIKE search did
+     * @return FTS query, which matches all indexable keywords, or empty string
+     */
+    @NonNull
+    String getMatchQuery() {
+        StringBuilder query = new StringBuilder();
+        for (String keyword : keywordsToFilter) {
+            if (!isIndexable(keyword)) continue;
+
+            StringBuilder phrase = new StringBuilder();
+            for (String word : keyword.split(",")) {
+                if (StringUtils.nonEmpty(word)) {
+                    phrase.append((phrase.length() == 0 ? "" : " ") + word + (word.endsWith("*") ? "" : "*"));
+                }
+            }
+            if (phrase.length() > 0) {
+                query.append((query.length() == 0 ? "" : " ") + DOUBLE_QUOTE + phrase + DOUBLE_QUOTE);
+            }
+        }
+        return query.toString();
+    }
+
+    /** Words of these scripts are not separated by spaces, so parts of a text are not in the index */
+    private static boolean isIndexable(String keyword) {
+        return keyword.codePoints().noneMatch(codePoint -> {
+            switch (Character.UnicodeScript.of(codePoint)) {
+                case HAN:
+                case HIRAGANA:
+                case KATAKANA:
+                case THAI:
+                case LAO:
+                case KHMER:
+                case MYANMAR:
+                    return true;
+                default:
+                    return false;
+            }
+        });
+    }
+
     @NonNull
     public String getFirstTagOrFirstKeyword() {
         for (String keyword : keywordsRaw) {
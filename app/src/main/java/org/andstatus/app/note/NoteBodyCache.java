@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.note;
+
+import android.support.annotation.NonNull;
+import android.text.Spanned;
+import android.util.LruCache;
+
+import org.andstatus.app.os.MemoryTrimmer;
+import org.andstatus.app.util.MyHtml;
+import org.andstatus.app.util.MyUrlSpan;
+
+/**
+ * Note bodies, prepared to be shown in a list: HTML is parsed and links are found once per version of a note,
+ * when a page is being loaded, and not while the list is being scrolled
+ * @author yvolk@yurivolkov.com
+ */
+public class NoteBodyCache {
+    static final int MAX_SIZE = 500;
+    private static final LruCache<Long, NoteBody> cache = new LruCache<>(MAX_SIZE);
+    private static final MemoryTrimmer.Trimmable trimmer = percentToKeep -> {
+        if (percentToKeep < MemoryTrimmer.PERCENT_TO_KEEP_ALL) {
+            cache.trimToSize(MAX_SIZE * percentToKeep / 100);
+        }
+    };
+
+    static {
+        MemoryTrimmer.register(trimmer);
+    }
+
+    static class NoteBody {
+        final long updatedDate;
+        final String storedBody;
+        final String body;
+        final Spanned spanned;
+
+        private NoteBody(long updatedDate, String storedBody) {
+            this.updatedDate = updatedDate;
+            this.storedBody = storedBody;
+            body = MyHtml.prepareForView(storedBody);
+            spanned = MyUrlSpan.toSpanned(body, true);
+        }
+    }
+
+    private NoteBodyCache() {
+        // Empty
+    }
+
+    /** @param storedBody The body, as it is stored in the database */
+    @NonNull
+    static NoteBody get(long noteId, long updatedDate, String storedBody) {
+        String storedBodyNonNull = storedBody == null ? "" : storedBody;
+        if (noteId == 0) {
+            return new NoteBody(updatedDate, storedBodyNonNull);
+        }
+        NoteBody noteBody = cache.get(noteId);
+        // Drafts may be changed without changing their updated date, so the bodies are compared also
+        if (noteBody == null || noteBody.updatedDate != updatedDate || !noteBody.storedBody.equals(storedBodyNonNull)) {
+            noteBody = new NoteBody(updatedDate, storedBodyNonNull);
+            cache.put(noteId, noteBody);
+        }
+        return noteBody;
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+}
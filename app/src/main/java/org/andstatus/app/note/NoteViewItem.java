@@ -21,24 +21,23 @@ import android.text.Html;
 import android.text.TextUtils;
 
 import org.andstatus.app.context.MyContext;
-import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.AttachedImageFile;
 import org.andstatus.app.data.AvatarFile;
 import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.data.DownloadStatus;
-import org.andstatus.app.data.MyQuery;
 import org.andstatus.app.data.TimelineSql;
 import org.andstatus.app.database.table.ActivityTable;
 import org.andstatus.app.database.table.DownloadTable;
 import org.andstatus.app.database.table.NoteTable;
 import org.andstatus.app.database.table.ActorTable;
-import org.andstatus.app.net.social.Actor;
 import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyHtml;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.TriState;
 
+import java.util.List;
+
 /**
  * @author yvolk@yurivolkov.com
  */
@@ -70,13 +69,13 @@ public class NoteViewItem extends BaseNoteViewItem<NoteViewItem> {
 
         authorName = TimelineSql.actorColumnIndexToNameAtTimeline(cursor,
                 cursor.getColumnIndex(ActorTable.AUTHOR_NAME), MyPreferences.getShowOrigin());
-        setBody(MyHtml.prepareForView(DbUtils.getString(cursor, NoteTable.BODY)));
         inReplyToNoteId = DbUtils.getLong(cursor, NoteTable.IN_REPLY_TO_NOTE_ID);
         inReplyToActorId = DbUtils.getLong(cursor, NoteTable.IN_REPLY_TO_ACTOR_ID);
         inReplyToName = DbUtils.getString(cursor, ActorTable.IN_REPLY_TO_NAME);
         recipientName = DbUtils.getString(cursor, ActorTable.RECIPIENT_NAME);
         activityUpdatedDate = DbUtils.getLong(cursor, ActivityTable.UPDATED_DATE);
         updatedDate = DbUtils.getLong(cursor, NoteTable.UPDATED_DATE);
+        setPreparedBody(NoteBodyCache.get(getNoteId(), updatedDate, DbUtils.getString(cursor, NoteTable.BODY)));
         noteStatus = DownloadStatus.load(DbUtils.getLong(cursor, NoteTable.NOTE_STATUS));
 
         authorId = DbUtils.getLong(cursor, NoteTable.AUTHOR_ID);
@@ -96,17 +95,17 @@ public class NoteViewItem extends BaseNoteViewItem<NoteViewItem> {
                     DbUtils.getString(cursor, DownloadTable.IMAGE_FILE_NAME));
         }
 
-        long beforeRebloggers = System.currentTimeMillis();
-        for (Actor actor : MyQuery.getRebloggers(MyContextHolder.get().getDatabase(), getOrigin(), getNoteId())) {
-            rebloggers.put(actor.actorId, actor.getWebFingerId());
-        }
         if (MyLog.isVerboseEnabled()) {
-            MyLog.v(this, ": " + (System.currentTimeMillis() - startTime) + "ms, "
-                    + rebloggers.size() + " rebloggers: " + (System.currentTimeMillis() - beforeRebloggers) + "ms");
+            MyLog.v(this, ": " + (System.currentTimeMillis() - startTime) + "ms");
         }
         return this;
     }
 
+    @Override
+    public void loadForPage(@NonNull MyContext myContext, @NonNull List<NoteViewItem> items) {
+        loadRebloggers(myContext, items);
+    }
+
     @Override
     public String toString() {
         return MyLog.formatKeyValue(this, I18n.trimTextAt(MyHtml.fromHtml(getBody()), 40) + ","
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.os;
+
+import android.content.ComponentCallbacks2;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import org.andstatus.app.graphics.ImageCaches;
+import org.andstatus.app.util.MyLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Central reaction to memory pressure: caches and in-memory models are shrunk proportionally
+ * to the trim level, reported by the system. The capacity is only lowered by later reports,
+ * and it is allowed to grow back, after no memory pressure was reported for {@link #RESTORE_AFTER_MS}
+ * @author yvolk@yurivolkov.com
+ */
+public class MemoryTrimmer {
+    public static final int PERCENT_TO_KEEP_ALL = 100;
+    static final long RESTORE_AFTER_MS = 60000;
+
+    public interface Trimmable {
+        /**
+         * Called in the main thread
+         * @param percentToKeep Part of the normal capacity to keep, 0...100.
+         *                      {@link #PERCENT_TO_KEEP_ALL} means that memory pressure subsided
+         */
+        void onTrimMemory(int percentToKeep);
+    }
+
+    /** Registered objects are not kept from garbage collection */
+    private static final Set<Trimmable> trimmables = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    private static final Runnable restorer = MemoryTrimmer::restoreIfCalm;
+    private static volatile int percentToKeep = PERCENT_TO_KEEP_ALL;
+    private static volatile long trimmedAt = 0;
+
+    private MemoryTrimmer() {
+        // Empty
+    }
+
+    public static void register(@NonNull Trimmable trimmable) {
+        trimmables.add(trimmable);
+    }
+
+    public static int getPercentToKeep() {
+        return percentToKeep;
+    }
+
+    @MainThread
+    public static void onTrimMemory(int level) {
+        trim(levelToPercentToKeep(level), "level " + level);
+    }
+
+    @MainThread
+    public static void onLowMemory() {
+        trim(0, "low memory");
+    }
+
+    /** @return Non-increasing with the level */
+    static int levelToPercentToKeep(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) return 0;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) return 10;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) return 25;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) return 50;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) return 75;
+        return PERCENT_TO_KEEP_ALL;
+    }
+
+    private static void trim(int percentToKeepNew, String reason) {
+        if (percentToKeepNew >= PERCENT_TO_KEEP_ALL) return;
+
+        trimmedAt = System.currentTimeMillis();
+        if (percentToKeepNew < percentToKeep) {
+            percentToKeep = percentToKeepNew;
+            MyLog.i(MemoryTrimmer.class, "Trimming to " + percentToKeepNew + "% on " + reason);
+            notifyAll(percentToKeepNew);
+        }
+        handler.removeCallbacks(restorer);
+        handler.postDelayed(restorer, RESTORE_AFTER_MS);
+    }
+
+    private static void restoreIfCalm() {
+        long calmMs = System.currentTimeMillis() - trimmedAt;
+        if (calmMs < RESTORE_AFTER_MS) {
+            handler.postDelayed(restorer, RESTORE_AFTER_MS - calmMs);
+        } else if (percentToKeep < PERCENT_TO_KEEP_ALL) {
+            MyLog.i(MemoryTrimmer.class, "Restoring capacity after " + calmMs + "ms without memory pressure");
+            restore();
+        }
+    }
+
+    static void restore() {
+        handler.removeCallbacks(restorer);
+        percentToKeep = PERCENT_TO_KEEP_ALL;
+        notifyAll(PERCENT_TO_KEEP_ALL);
+    }
+
+    private static void notifyAll(int percentToKeep) {
+        ImageCaches.onTrimMemory(percentToKeep);
+        List<Trimmable> toNotify;
+        synchronized (trimmables) {
+            toNotify = new ArrayList<>(trimmables);
+        }
+        for (Trimmable trimmable : toNotify) {
+            try {
+                trimmable.onTrimMemory(percentToKeep);
+            } catch (Exception e) {
+                MyLog.w(MemoryTrimmer.class, "Failed to trim " + MyLog.objToTag(trimmable), e);
+            }
+        }
+    }
+}
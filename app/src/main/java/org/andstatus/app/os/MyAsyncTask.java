@@ -58,7 +58,9 @@ public abstract class MyAsyncTask<Params, Progress, Result> extends AsyncTask<Pa
     volatile boolean hasExecutor = true;
 
     public enum PoolEnum {
-        SYNC(2, MAX_COMMAND_EXECUTION_SECONDS, true),
+        /** HeartBeat plus up to {@link org.andstatus.app.context.MyPreferences#SYNC_MAX_PARALLEL_LANES_LIMIT}
+         * queue executors */
+        SYNC(5, MAX_COMMAND_EXECUTION_SECONDS, true),
         FILE_DOWNLOAD(1, MAX_COMMAND_EXECUTION_SECONDS, true),
         QUICK_UI(0, 20, false),
         LONG_UI(1, MAX_COMMAND_EXECUTION_SECONDS, true);
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import android.support.annotation.NonNull;
+
+import org.andstatus.app.util.MyLog;
+
+/**
+ * The stage in front of the Main queue, which reduces the number of commands to execute:
+ * merges equal commands (e.g. requests of the same timeline, see {@link CommandData#equals(Object)}),
+ * drops commands, superseded by later ones
+ * (e.g. FOLLOW followed by UNDO_FOLLOW of the same actor),
+ * and folds bursts of download requests into batches, executed in one executor pass
+ * @author yvolk@yurivolkov.com
+ */
+class CommandCoalescer {
+    static final int DOWNLOAD_BATCH_SIZE = 20;
+
+    private CommandCoalescer() {
+        // Empty
+    }
+
+    /** @return true if the command was added to the queue or merged with the equal command in it */
+    static boolean addToQueue(@NonNull IndexedCommandQueue queue, @NonNull CommandData commandData) {
+        CommandData queued = queue.find(commandData);
+        if (queued != null) {
+            mergeInto(queue, queued, commandData);
+            return true;
+        }
+        removeSuperseded(queue, commandData);
+        return queue.offer(commandData);
+    }
+
+    /** The queued command gets flags of the new one, so it may have higher priority */
+    private static void mergeInto(IndexedCommandQueue queue, CommandData queued, CommandData commandData) {
+        boolean toForeground = commandData.isInForeground() && !queued.isInForeground();
+        if (toForeground) {
+            queue.setInForeground(queued, true);
+        }
+        if (commandData.isManuallyLaunched() && !queued.isManuallyLaunched()) {
+            queued.setManuallyLaunched(true);
+            queue.onChanged(queued);
+        }
+        MyLog.v(CommandCoalescer.class, "Merged" + (toForeground ? " to foreground " : " ") + queued);
+    }
+
+    /** The superseded command differs from the new one by the command only, so it is found by the index */
+    private static void removeSuperseded(IndexedCommandQueue queue, CommandData commandData) {
+        CommandEnum opposite = oppositeOf(commandData.getCommand());
+        if (opposite == CommandEnum.UNKNOWN) return;
+
+        CommandData queued = queue.find(commandData.withCommand(opposite));
+        if (queued != null && queue.remove(queued)) {
+            MyLog.v(CommandCoalescer.class, "Removed superseded " + queued);
+        }
+    }
+
+    private static CommandEnum oppositeOf(CommandEnum command) {
+        switch (command) {
+            case FOLLOW:
+                return CommandEnum.UNDO_FOLLOW;
+            case UNDO_FOLLOW:
+                return CommandEnum.FOLLOW;
+            case LIKE:
+                return CommandEnum.UNDO_LIKE;
+            case UNDO_LIKE:
+                return CommandEnum.LIKE;
+            case ANNOUNCE:
+                return CommandEnum.UNDO_ANNOUNCE;
+            case UNDO_ANNOUNCE:
+                return CommandEnum.ANNOUNCE;
+            default:
+                return CommandEnum.UNKNOWN;
+        }
+    }
+
+    static boolean isBatchable(@NonNull CommandEnum command) {
+        switch (command) {
+            case GET_AVATAR:
+            case GET_ATTACHMENT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Moves from the queue to the batch of the head command the next commands of the same kind,
+     * which are executed in the same lane and with the same account */
+    static void fillBatch(@NonNull IndexedCommandQueue queue, @NonNull CommandData head) {
+        if (!isBatchable(head.getCommand())) return;
+
+        while (head.getBatch().size() < DOWNLOAD_BATCH_SIZE - 1) {
+            CommandData next = queue.peek();
+            if (next == null || next.getCommand() != head.getCommand()
+                    || next.isInForeground() != head.isInForeground()
+                    || CommandQueue.laneOf(next) != CommandQueue.laneOf(head)
+                    || !next.getTimeline().getMyAccount().equals(head.getTimeline().getMyAccount())) break;
+
+            if (!queue.remove(next)) break;
+            head.getBatch().add(next);
+        }
+        if (!head.getBatch().isEmpty()) {
+            MyLog.v(CommandCoalescer.class, "Batched " + head.getBatch().size() + " more with " + head);
+        }
+    }
+}
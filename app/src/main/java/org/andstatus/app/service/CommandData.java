@@ -36,6 +36,8 @@ import org.andstatus.app.data.MyQuery;
 import org.andstatus.app.database.table.ActorTable;
 import org.andstatus.app.database.table.CommandTable;
 import org.andstatus.app.database.table.NoteTable;
+import org.andstatus.app.net.social.Connection;
+import org.andstatus.app.net.social.RateLimitBudget;
 import org.andstatus.app.origin.Origin;
 import org.andstatus.app.timeline.WhichPage;
 import org.andstatus.app.timeline.meta.Timeline;
@@ -48,8 +50,9 @@ import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
 import org.andstatus.app.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.Queue;
 
 /**
  * Command data store
@@ -81,6 +84,10 @@ public class CommandData implements Comparable<CommandData> {
 
     private volatile int result = 0;
     private CommandResult commandResult = new CommandResult();
+    /** Other commands of the same kind, executed together with this one. Not persisted */
+    private final List<CommandData> batch = new ArrayList<>();
+    /** The command is not executed before this time in order to save a rate limit budget. Not persisted */
+    private volatile long deferredUntil = 0;
 
     public static CommandData newSearch(SearchObjects searchObjects,
                                         MyContext myContext, Origin origin, String queryString) {
@@ -172,6 +179,17 @@ public class CommandData implements Comparable<CommandData> {
         resetRetries();
     }
 
+    /** @return A key to find the queued command, which differs from this one by the command only,
+     * see {@link #equals(Object)} */
+    @NonNull
+    CommandData withCommand(CommandEnum command) {
+        CommandData key = new CommandData(commandId, command, timeline, createdDate);
+        key.itemId = itemId;
+        key.description = description;
+        key.username = username;
+        return key;
+    }
+
     /**
      * Used to decode command from the Intent upon receiving it
      */
@@ -501,18 +519,30 @@ public class CommandData implements Comparable<CommandData> {
         return builder.toString();
     }
 
-    void deleteCommandFromQueue(Queue<CommandData> queue) {
+    void deleteCommandFromQueue(IndexedCommandQueue queue) {
         String method = "deleteCommandFromQueue: ";
-        for (CommandData cd : queue) {
-            if (cd.getCommandId() == itemId) {
-                queue.remove(cd);
-                getResult().incrementDownloadedCount();
-                MyLog.v(this, method + "deleted: " + cd);
-            }
+        CommandData cd = queue.findByCommandId(itemId);
+        if (cd != null && queue.remove(cd)) {
+            getResult().incrementDownloadedCount();
+            MyLog.v(this, method + "deleted: " + cd);
         }
         MyLog.v(this, method + "id=" + itemId + ", processed queue: " + queue.size());
     }
 
+    @NonNull
+    List<CommandData> getBatch() {
+        return batch;
+    }
+
+    /** @return This command followed by its batch */
+    @NonNull
+    List<CommandData> getBatchWithHead() {
+        List<CommandData> list = new ArrayList<>(batch.size() + 1);
+        list.add(this);
+        list.addAll(batch);
+        return list;
+    }
+
     public boolean isInForeground() {
         return mInForeground;
     }
@@ -527,6 +557,59 @@ public class CommandData implements Comparable<CommandData> {
                 predefinedPeriodSeconds);
     }
 
+    long getNextRetryDate() {
+        return Math.max(getResult().getNextRetryDate(commandId), deferredUntil);
+    }
+
+    void deferUntil(long date) {
+        deferredUntil = date;
+    }
+
+    /** Background commands, which make many requests and may wait: backfill of older notes, sync of followers */
+    boolean isDeferrableByRateLimit() {
+        if (isInForeground() || isManuallyLaunched()) return false;
+        switch (command) {
+            case GET_OLDER_TIMELINE:
+            case GET_FOLLOWERS:
+            case GET_FRIENDS:
+                return true;
+            case GET_TIMELINE:
+                return getTimelineType() == TimelineType.FOLLOWERS || getTimelineType() == TimelineType.FRIENDS;
+            default:
+                return false;
+        }
+    }
+
+    /** @return true if the command waits for the rate limit budget, so it goes to the Retry queue
+     * regardless of its retries left */
+    boolean isDeferred() {
+        return deferredUntil > System.currentTimeMillis();
+    }
+
+    /** @return The budget of the resource family, which requests of this command use */
+    @NonNull
+    RateLimitBudget getRateLimitBudget(@NonNull MyAccount ma) {
+        return RateLimitBudget.of(ma.getAccountName(), ma.getConnection().getRateLimitFamily(getApiRoutine()));
+    }
+
+    private Connection.ApiRoutineEnum getApiRoutine() {
+        switch (command) {
+            case GET_FOLLOWERS:
+                return Connection.ApiRoutineEnum.GET_FOLLOWERS;
+            case GET_FRIENDS:
+                return Connection.ApiRoutineEnum.GET_FRIENDS;
+            case GET_TIMELINE:
+            case GET_OLDER_TIMELINE:
+                return getTimelineType().getConnectionApiRoutine();
+            default:
+                return null;
+        }
+    }
+
+    boolean isDueForRetry() {
+        return System.currentTimeMillis() >= getNextRetryDate();
+    }
+
     public final void resetRetries() {
         getResult().resetRetries(getCommand());
     }
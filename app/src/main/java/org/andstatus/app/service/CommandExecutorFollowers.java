@@ -20,6 +20,7 @@ import android.text.TextUtils;
 
 import org.andstatus.app.R;
 import org.andstatus.app.context.MyContextHolder;
+import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.DataUpdater;
 import org.andstatus.app.data.FriendshipValues;
 import org.andstatus.app.data.LatestActorActivities;
@@ -29,6 +30,7 @@ import org.andstatus.app.data.ActorActivity;
 import org.andstatus.app.database.table.ActivityTable;
 import org.andstatus.app.database.table.ActorTable;
 import org.andstatus.app.net.http.ConnectionException;
+import org.andstatus.app.net.social.AActivity;
 import org.andstatus.app.net.social.Connection;
 import org.andstatus.app.net.social.ActivityType;
 import org.andstatus.app.net.social.Actor;
@@ -37,8 +39,18 @@ import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * @author yvolk@yurivolkov.com
@@ -127,13 +139,10 @@ public class CommandExecutorFollowers extends CommandExecutorStrategy {
 
         if (updateNewActorsAndTheirLatestActions(actorsNew)) return;
 
-        for (Actor actor : actorsNew) {
-            actorIdsOld.remove(actor.actorId);
-            FriendshipValues.setFollowed(actor.actorId, actorId);
-        }
-        for (long actorIdOld : actorIdsOld) {
-            FriendshipValues.setNotFollowed(actorIdOld, actorId);
-        }
+        List<Long> actorIdsNew = toActorIds(actorsNew);
+        FriendshipValues.setFollowers(execContext.getMyContext().getDatabase(), actorId, actorIdsNew);
+        actorIdsOld.addAll(actorIdsNew);
+        execContext.getMyContext().users().onFriendsChanged(actorIdsOld);
     }
 
     private void syncFriends() throws ConnectionException {
@@ -158,46 +167,130 @@ public class CommandExecutorFollowers extends CommandExecutorStrategy {
 
         if (updateNewActorsAndTheirLatestActions(actorsNew)) return;
 
-        for (Actor actor : actorsNew) {
-            actorIdsOld.remove(actor.actorId);
-            FriendshipValues.setFollowed(actorId, actor.actorId);
+        FriendshipValues.setFriends(execContext.getMyContext().getDatabase(), actorId, toActorIds(actorsNew));
+        execContext.getMyContext().users().onFriendsChanged(Collections.singleton(actorId));
+    }
+
+    private static List<Long> toActorIds(List<Actor> actors) {
+        return actors.stream().map(actor -> actor.actorId).collect(Collectors.toList());
+    }
+
+    /**
+     * Actors are requested in batches of {@link Connection#LOOKUP_ACTORS_MAX_COUNT}, if the origin supports it,
+     * otherwise one by one, up to {@link MyPreferences#getHttpMaxConnectionsPerRoute()} requests in parallel
+     * @return true if we need to interrupt process
+     */
+    private boolean getActorsForOids(List<String> actorOidsNew, List<Actor> actorsNew) {
+        Connection connection = execContext.getMyAccount().getConnection();
+        boolean lookup = connection.isApiSupported(Connection.ApiRoutineEnum.LOOKUP_ACTORS);
+        int threads = MyPreferences.getHttpMaxConnectionsPerRoute();
+        int batchSize = lookup ? Connection.LOOKUP_ACTORS_MAX_COUNT : threads * 4;
+        ExecutorService executor = lookup ? null : Executors.newFixedThreadPool(threads);
+        try {
+            for (int from = 0; from < actorOidsNew.size(); from += batchSize) {
+                List<String> oids = actorOidsNew.subList(from, Math.min(from + batchSize, actorOidsNew.size()));
+                List<Actor> actors = lookup
+                        ? lookupActors(connection, oids)
+                        : getActorsInParallel(executor, connection, oids);
+                if (actors == null) return true;
+
+                actorsNew.addAll(actors);
+                if (!actors.isEmpty()) {
+                    broadcastProgress(String.valueOf(actorsNew.size()) + ". "
+                            + execContext.getContext().getText(R.string.get_user)
+                            + ": " + actors.get(actors.size() - 1).getNamePreferablyWebFingerId(), true);
+                }
+                if (logSoftErrorIfStopping() || logSoftErrorIfRateLimited()) {
+                    return true;
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
-        for (long actorIdOld : actorIdsOld) {
-            FriendshipValues.setNotFollowed(actorId, actorIdOld);
+        return false;
+    }
+
+    private List<Actor> lookupActors(Connection connection, List<String> oids) {
+        Map<String, Actor> found = new HashMap<>();
+        try {
+            for (Actor actor : connection.lookupActors(oids)) {
+                found.put(actor.oid, actor);
+            }
+            execContext.getResult().incrementDownloadedCount();
+        } catch (ConnectionException e) {
+            MyLog.i(this, "Failed to lookup " + oids.size() + " actors", e);
         }
+        List<Actor> actors = new ArrayList<>();
+        for (String oid : oids) {
+            Actor actor = found.get(oid);
+            if (actor == null) {
+                actor = actorFromDatabase(oid, null);
+            }
+            if (actor != null) {
+                actors.add(actor);
+            }
+        }
+        return actors;
     }
 
-    private boolean getActorsForOids(List<String> actorOidsNew, List<Actor> actorsNew) {
-        long count = 0;
-        for (String actorOidNew : actorOidsNew) {
+    /** @return null if interrupted */
+    private List<Actor> getActorsInParallel(ExecutorService executor, Connection connection, List<String> oids) {
+        List<Callable<Actor>> requests = new ArrayList<>();
+        for (String oid : oids) {
+            requests.add(() -> {
+                try {
+                    return connection.getActor(oid, null);
+                } catch (ConnectionException e) {
+                    MyLog.v(this, "Failed to get Actor for oid=" + oid, e);
+                    return null;
+                }
+            });
+        }
+        List<Future<Actor>> futures;
+        try {
+            futures = executor.invokeAll(requests);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        List<Actor> actors = new ArrayList<>();
+        for (int i = 0; i < oids.size(); i++) {
             Actor actor = null;
+            Exception exception = null;
             try {
-                count++;
-                actor = execContext.getMyAccount().getConnection().getActor(actorOidNew, null);
+                actor = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | CancellationException e) {
+                exception = e;
+            }
+            if (actor == null) {
+                actor = actorFromDatabase(oids.get(i), exception);
+            } else {
                 execContext.getResult().incrementDownloadedCount();
-            } catch (ConnectionException e) {
-                long actorId = MyQuery.oidToId(OidEnum.ACTOR_OID,
-                        execContext.getMyAccount().getOriginId(), actorOidNew);
-                if (actorId == 0) {
-                    MyLog.i(this, "Failed to identify an Actor for oid=" + actorOidNew, e);
-                } else {
-                    actor = Actor.fromOriginAndActorOid(execContext.getMyAccount().getOrigin(), actorOidNew);
-                    actor.actorId = actorId;
-                    actor.setWebFingerId(MyQuery.actorIdToWebfingerId(actorId));
-                    MyLog.v(this, "Server doesn't return Actor object for " + actor , e);
-                }
             }
             if (actor != null) {
-                broadcastProgress(String.valueOf(count) + ". "
-                        + execContext.getContext().getText(R.string.get_user)
-                        + ": " + actor.getNamePreferablyWebFingerId(), true);
-                actorsNew.add(actor);
-            }
-            if (logSoftErrorIfStopping()) {
-                return true;
+                actors.add(actor);
             }
         }
-        return false;
+        return actors;
+    }
+
+    /** @return The Actor, which we already know, or null */
+    private Actor actorFromDatabase(String actorOid, Exception e) {
+        long actorId = MyQuery.oidToId(OidEnum.ACTOR_OID, execContext.getMyAccount().getOriginId(), actorOid);
+        if (actorId == 0) {
+            MyLog.i(this, "Failed to identify an Actor for oid=" + actorOid, e);
+            return null;
+        }
+        Actor actor = Actor.fromOriginAndActorOid(execContext.getMyAccount().getOrigin(), actorOid);
+        actor.actorId = actorId;
+        actor.setWebFingerId(MyQuery.actorIdToWebfingerId(actorId));
+        MyLog.v(this, "Server doesn't return Actor object for " + actor, e);
+        return actor;
     }
 
     /**
@@ -207,14 +300,19 @@ public class CommandExecutorFollowers extends CommandExecutorStrategy {
         DataUpdater di = new DataUpdater(execContext);
         boolean allNotesLoaded = true;
         long count = 0;
-        for (Actor actor : actorsNew) {
-            count++;
-            broadcastProgress(String.valueOf(count) + ". " + execContext.getContext().getText(R.string.button_save)
-                    + ": " + actor.getNamePreferablyWebFingerId(), true);
-            di.onActivity(actor.update(execContext.getMyAccount().getActor()), false);
-            if (!actor.hasLatestNote()) {
-                allNotesLoaded = false;
+        for (int from = 0; from < actorsNew.size(); from += Connection.LOOKUP_ACTORS_MAX_COUNT) {
+            List<AActivity> activities = new ArrayList<>();
+            for (Actor actor : actorsNew.subList(from,
+                    Math.min(from + Connection.LOOKUP_ACTORS_MAX_COUNT, actorsNew.size()))) {
+                count++;
+                activities.add(actor.update(execContext.getMyAccount().getActor()));
+                if (!actor.hasLatestNote()) {
+                    allNotesLoaded = false;
+                }
             }
+            di.onActivities(activities);
+            broadcastProgress(String.valueOf(count) + ". " + execContext.getContext().getText(R.string.button_save)
+                    + ": " + actorsNew.get((int) count - 1).getNamePreferablyWebFingerId(), true);
         }
         di.saveLum();
         if (!allNotesLoaded) {
@@ -21,6 +21,7 @@ import android.support.annotation.NonNull;
 import android.support.v4.util.Pair;
 import android.text.TextUtils;
 
+import org.andstatus.app.account.MyAccount;
 import org.andstatus.app.context.DemoData;
 import org.andstatus.app.data.DataUpdater;
 import org.andstatus.app.data.DownloadData;
@@ -38,7 +39,9 @@ import org.andstatus.app.net.social.AActivity;
 import org.andstatus.app.net.social.ActivityType;
 import org.andstatus.app.net.social.Actor;
 import org.andstatus.app.net.social.Audience;
+import org.andstatus.app.net.social.Connection;
 import org.andstatus.app.net.social.Note;
+import org.andstatus.app.net.social.RateLimitBudget;
 import org.andstatus.app.net.social.RateLimitStatus;
 import org.andstatus.app.support.java.util.function.Supplier;
 import org.andstatus.app.support.java.util.function.SupplierWithException;
@@ -97,10 +100,8 @@ class CommandExecutorOther extends CommandExecutorStrategy{
                 rateLimitStatus();
                 break;
             case GET_ATTACHMENT:
-                FileDownloader.newForDownloadRow(execContext.getCommandData().itemId).load(execContext.getCommandData());
-                break;
             case GET_AVATAR:
-                (new AvatarDownloader(execContext.getCommandData().getActorId())).load(execContext.getCommandData());
+                downloadBatch();
                 break;
             case CLEAR_NOTIFICATIONS:
                 execContext.getMyContext().clearNotification(execContext.getCommandData().getTimeline());
@@ -111,6 +112,29 @@ class CommandExecutorOther extends CommandExecutorStrategy{
         }
     }
 
+    /** Downloads files for the command and for the commands, batched with it, see {@link CommandCoalescer} */
+    private void downloadBatch() {
+        download(execContext.getCommandData());
+        for (CommandData commandData : execContext.getCommandData().getBatch()) {
+            if (isStopping()) {
+                commandData.getResult().incrementNumIoExceptions();
+                commandData.getResult().setMessage("Service is stopping");
+            } else {
+                commandData.getResult().prepareForLaunch();
+                download(commandData);
+            }
+            commandData.getResult().afterExecutionEnded();
+        }
+    }
+
+    private static void download(CommandData commandData) {
+        if (commandData.getCommand() == CommandEnum.GET_AVATAR) {
+            (new AvatarDownloader(commandData.getActorId())).load(commandData);
+        } else {
+            FileDownloader.newForDownloadRow(commandData.itemId).load(commandData);
+        }
+    }
+
     private void searchActors(String searchQuery) {
         final String method = "searchActors";
         String msgLog = method + "; query='" + searchQuery + "'";
@@ -485,6 +509,11 @@ class CommandExecutorOther extends CommandExecutorStrategy{
             if (ok) {
                 execContext.getResult().setRemainingHits(rateLimitStatus.remaining); 
                 execContext.getResult().setHourlyLimit(rateLimitStatus.limit);
+                // The status is of the Home timeline or of the account as a whole
+                MyAccount ma = execContext.getMyAccount();
+                RateLimitBudget.of(ma.getAccountName(),
+                        ma.getConnection().getRateLimitFamily(Connection.ApiRoutineEnum.HOME_TIMELINE))
+                        .onStatus(rateLimitStatus);
              }
             logOk(ok);
         } catch (ConnectionException e) {
@@ -16,8 +16,14 @@
 
 package org.andstatus.app.service;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.andstatus.app.account.MyAccount;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.net.http.ConnectionException;
+import org.andstatus.app.net.social.Connection;
+import org.andstatus.app.net.social.RateLimitBudget;
 import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
@@ -32,6 +38,9 @@ class CommandExecutorStrategy implements CommandExecutorParent {
         CommandExecutorStrategy strategy = getStrategy(new CommandExecutionContext(commandData)).setParent(parent);
         commandData.getResult().prepareForLaunch();
         logLaunch(strategy);
+        if (commandData.isDeferrableByRateLimit()) {
+            seedRateLimitBudget(commandData, strategy.execContext.getMyAccount());
+        }
         // This may cause recursive calls to executors...
         strategy.execute();
         commandData.getResult().afterExecutionEnded();
@@ -56,6 +65,50 @@ class CommandExecutorStrategy implements CommandExecutorParent {
         return false;
     }
 
+    /** The budget of servers, which don't report rate limits in response headers, is seeded by the API request */
+    private static void seedRateLimitBudget(CommandData commandData, MyAccount ma) {
+        if (!ma.isValidAndSucceeded()) return;
+        RateLimitBudget budget = commandData.getRateLimitBudget(ma);
+        if (!ma.getConnection().isApiSupported(Connection.ApiRoutineEnum.ACCOUNT_RATE_LIMIT_STATUS)
+                || !budget.needsSeeding()) return;
+        try {
+            budget.onStatus(ma.getConnection().rateLimitStatus());
+        } catch (ConnectionException e) {
+            MyLog.d(CommandExecutorStrategy.class, "Failed to get rate limit status of " + ma, e);
+        }
+    }
+
+    /** A background command, which may wait, stops, when the rate limit budget of its account for the resource family
+     * is low, so foreground commands have the budget. It is deferred to the Retry queue till the budget is refilled,
+     * see {@link CommandData#isDeferred()} */
+    public boolean logSoftErrorIfRateLimited() {
+        RateLimitBudget budget = getLowRateLimitBudget();
+        if (budget == null) return false;
+
+        logSoftErrorRateLimited(budget);
+        return true;
+    }
+
+    /** Doesn't change the command, so it may be called from a helper thread
+     * @return the budget, if the command should be deferred, or null */
+    @Nullable
+    RateLimitBudget getLowRateLimitBudget() {
+        CommandData commandData = execContext.getCommandData();
+        if (!commandData.isDeferrableByRateLimit()) return null;
+
+        RateLimitBudget budget = commandData.getRateLimitBudget(execContext.getMyAccount());
+        return budget.isAvailable(false) ? null : budget;
+    }
+
+    void logSoftErrorRateLimited(@NonNull RateLimitBudget budget) {
+        CommandData commandData = execContext.getCommandData();
+        commandData.deferUntil(budget.getAvailableAt());
+        if (!execContext.getResult().hasError()) {
+            execContext.getResult().incrementNumIoExceptions();
+            execContext.getResult().setMessage("Rate limit budget is low: " + budget);
+        }
+    }
+
     private static void logEnd(CommandExecutorStrategy strategy) {
         MyLog.d(strategy, "Executed " + strategy.execContext);
         if (strategy.execContext.getCommandData().getCommand() == CommandEnum.UPDATE_NOTE) {
@@ -23,37 +23,56 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDiskIOException;
 import android.support.annotation.NonNull;
 
+import org.andstatus.app.account.MyAccount;
 import org.andstatus.app.context.MyContext;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
 import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.database.table.CommandTable;
+import org.andstatus.app.net.social.RateLimitBudget;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
+ * The {@link CommandTable} is a journal of the queues: each addition, removal or change of a queued command
+ * is remembered and only the affected rows are written on {@link #save()}, in one transaction.
  * @author yvolk@yurivolkov.com
  */
 public class CommandQueue {
-    private static final int INITIAL_CAPACITY = 100;
-    private static final long RETRY_QUEUE_PROCESSING_PERIOD_SECONDS = 900;
+    /** Minimal period before a command from the Error queue may be executed again */
     private static final long MIN_RETRY_PERIOD_SECONDS = 900;
     private static final long MAX_DAYS_IN_ERROR_QUEUE = 10;
-    private final static Queue<CommandData> preQueue = new PriorityBlockingQueue<>(INITIAL_CAPACITY);
+    private static final long COMPACTION_PERIOD_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final AtomicLong compactedAt = new AtomicLong();
+    private final static IndexedCommandQueue preQueue = new IndexedCommandQueue();
 
     private volatile MyContext myContext = MyContextHolder.get();
     private final Context context;
-    private final AtomicLong mRetryQueueProcessedAt = new AtomicLong();
+    private final RetryScheduler retryScheduler = new RetryScheduler();
+    /** The earliest retry time of the Retry queue commands, which were saved and released from memory */
+    private final AtomicLong savedNextRetryAt = new AtomicLong();
     private final Map<QueueType, OneQueue> queues = new HashMap<>();
     private volatile boolean loaded = false;
     private volatile boolean saved = false;
+    /** Lanes, commands of which are being executed now. Commands of one lane are executed sequentially */
+    private final Set<Long> busyLanes = ConcurrentHashMap.newKeySet();
+    /** Commands, which were added to, removed from or changed in the queues since the last save, by commandId */
+    private final Map<Long, CommandData> journal = new ConcurrentHashMap<>();
+    private volatile boolean clearDatabase = false;
 
     static void addToPreQueue(CommandData commandData) {
         switch (commandData.getCommand()) {
@@ -76,10 +95,14 @@ public class CommandQueue {
     }
 
     private static class OneQueue {
-        Queue<CommandData> queue = new PriorityBlockingQueue<>(INITIAL_CAPACITY);
+        final IndexedCommandQueue queue;
         volatile int savedCount = 0;
         volatile boolean savedForegroundTasks = false;
 
+        OneQueue(Consumer<CommandData> onChange) {
+            queue = new IndexedCommandQueue(onChange);
+        }
+
         public void clear() {
             queue.clear();
             savedCount = 0;
@@ -116,7 +139,21 @@ public class CommandQueue {
     CommandQueue(Context context) {
         this.context = context;
         for (QueueType queueType : QueueType.values()) {
-            if (queueType.createQueue) queues.put(queueType, new OneQueue());
+            if (queueType.createQueue) queues.put(queueType, new OneQueue(
+                    queueType == QueueType.RETRY ? this::onRetryQueueChanged : this::onChanged));
+        }
+    }
+
+    private void onChanged(CommandData commandData) {
+        journal.put(commandData.getCommandId(), commandData);
+    }
+
+    private void onRetryQueueChanged(CommandData commandData) {
+        onChanged(commandData);
+        if (getIndexed(QueueType.RETRY).findByCommandId(commandData.getCommandId()) == commandData) {
+            retryScheduler.schedule(commandData);
+        } else {
+            retryScheduler.unschedule(commandData);
         }
     }
 
@@ -125,6 +162,10 @@ public class CommandQueue {
     }
 
     public Queue<CommandData> get(QueueType queueType) {
+        return getIndexed(queueType);
+    }
+
+    private IndexedCommandQueue getIndexed(QueueType queueType) {
         switch (queueType) {
             case PRE:
                 return preQueue;
@@ -139,19 +180,21 @@ public class CommandQueue {
         if (loaded) {
             MyLog.v(this, "Already loaded");
         } else {
-            int count = load(QueueType.CURRENT) + load(QueueType.RETRY);
-            int countError = load(QueueType.ERROR);
+            List<Long> staleRowIds = new ArrayList<>();
+            int count = load(QueueType.CURRENT, staleRowIds) + load(QueueType.RETRY, staleRowIds);
+            int countError = load(QueueType.ERROR, staleRowIds);
             MyLog.d(this, "State restored, " + (count > 0 ? Integer.toString(count) : "no ")
                     + " msg in the Queues"
                     + (countError > 0 ? ", plus " + Integer.toString(countError) + " in Error queue" : "")
             );
             loaded = true;
+            compact(staleRowIds);
         }
         return this;
     }
 
     /** @return Number of items loaded */
-    private int load(@NonNull QueueType queueType) {
+    private int load(@NonNull QueueType queueType, List<Long> staleRowIds) {
         final String method = "loadQueue-" + queueType.save();
         OneQueue oneQueue = queues.get(queueType);
         Queue<CommandData> queue = oneQueue.queue;
@@ -170,10 +213,13 @@ public class CommandQueue {
                 CommandData cd = CommandData.fromCursor(myContext, c);
                 if (CommandEnum.EMPTY.equals(cd.getCommand())) {
                     MyLog.e(context, method + "; empty skipped " + cd);
+                    staleRowIds.add(DbUtils.getLong(c, CommandTable._ID));
                 } else if (queue.contains(cd)) {
                     MyLog.e(context, method + "; duplicate skipped " + cd);
+                    staleRowIds.add(cd.getCommandId());
                 } else {
                     if (queue.offer(cd)) {
+                        journal.remove(cd.getCommandId());
                         count++;
                         if (MyLog.isVerboseEnabled() && (count < 6 || cd.getCommand() == CommandEnum.UPDATE_NOTE)) {
                             MyLog.v(context, method + "; " + count + ": " + cd.toString());
@@ -198,78 +244,122 @@ public class CommandQueue {
             MyLog.d(context, "save; Database is unavailable");
             return;
         }
-        if (loaded) clearQueuesInDatabase(db);
         moveCommandsFromPreToMainQueue();
-        int countCurrentRetry = save(db, QueueType.CURRENT) + save(db, QueueType.RETRY);
-        int countError = save(db, QueueType.ERROR);
+        int countWritten = writeJournal(db);
+        int countCurrentRetry = releaseSaved(QueueType.CURRENT) + releaseSaved(QueueType.RETRY);
+        int countError = releaseSaved(QueueType.ERROR);
         MyLog.d(this, (loaded ? "Queues saved" : "Saved new queued commands only") + ", "
                 + (countCurrentRetry > 0 ? Integer.toString(countCurrentRetry) : "no") + " commands"
                 + (countError > 0 ? ", plus " + Integer.toString(countError) + " in Error queue" : "")
+                + "; " + countWritten + " rows written"
         );
         saved |= loaded;
         loaded = false;
     }
 
-    /** @return Number of items persisted */
-    private int save(@NonNull SQLiteDatabase db, @NonNull QueueType queueType) {
-        final String method = "saveQueue-" + queueType.save();
-        OneQueue oneQueue = queues.get(queueType);
-        Queue<CommandData> queue = oneQueue.queue;
+    /** Writes changed commands only: replaces rows of queued commands and deletes rows of removed ones
+     * @return Number of rows written */
+    private int writeJournal(@NonNull SQLiteDatabase db) {
+        final String method = "writeJournal";
         int count = 0;
+        db.beginTransaction();
         try {
-            if (loaded) {
-                oneQueue.savedCount = 0;
-                oneQueue.savedForegroundTasks = false;
+            if (clearDatabase) {
+                DbUtils.execSQL(db, "DELETE FROM " + CommandTable.TABLE_NAME);
+                clearDatabase = false;
             }
-            if (!queue.isEmpty()) {
-                while (!queue.isEmpty() && count < 300) {
-                    CommandData cd = queue.poll();
-                    oneQueue.savedForegroundTasks |= cd.isInForeground();
+            for (CommandData cd : new ArrayList<>(journal.values())) {
+                QueueType queueType = findQueueTypeOf(cd);
+                if (queueType == QueueType.UNKNOWN) {
+                    db.delete(CommandTable.TABLE_NAME, CommandTable._ID + "=" + cd.getCommandId(), null);
+                } else {
                     ContentValues values = new ContentValues();
                     cd.toContentValues(values);
                     values.put(CommandTable.QUEUE_TYPE, queueType.save());
-                    db.insert(CommandTable.TABLE_NAME, null, values);
-                    count++;
-                    if (MyLog.isVerboseEnabled() && (count < 6 || cd.getCommand() == CommandEnum.UPDATE_NOTE)) {
-                        MyLog.v(context, method + "; " + count + ": " + cd.toString());
-                    }
-                    if (myContext.isTestRun() && queue.contains(cd)) {
-                        MyLog.e(context, method + "; Duplicated command in a queue:" + count + " " + cd.toString());
-                    }
+                    db.replace(CommandTable.TABLE_NAME, null, values);
                 }
-                if (queue.isEmpty()) {
-                    MyLog.d(context, method + "; " + count + " saved");
-                } else {
-                    MyLog.e(context, method + "; " + count + " saved" +
-                            (queue.isEmpty() ? "" : ", " + queue.size() + " left"));
+                journal.remove(cd.getCommandId(), cd);
+                count++;
+                if (MyLog.isVerboseEnabled() && (count < 6 || cd.getCommand() == CommandEnum.UPDATE_NOTE)) {
+                    MyLog.v(context, method + "; " + count + ": " + queueType + " " + cd.toString());
                 }
             }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
-            String msgLog = method + "; " + count + " saved, " + queue.size() + " left.";
+            String msgLog = method + "; " + count + " written, " + journal.size() + " left.";
             MyLog.e(context, msgLog, e);
             if (SQLiteDiskIOException.class.isAssignableFrom(e.getClass())) {
                 throw e;
             } else {
                 throw new IllegalStateException(msgLog, e);
             }
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    @NonNull
+    private QueueType findQueueTypeOf(@NonNull CommandData commandData) {
+        for (QueueType queueType : Arrays.asList(QueueType.CURRENT, QueueType.RETRY, QueueType.ERROR)) {
+            if (getIndexed(queueType).findByCommandId(commandData.getCommandId()) == commandData) {
+                return queueType;
+            }
+        }
+        return QueueType.UNKNOWN;
+    }
+
+    /** Frees memory of the persisted queue, remembering its size
+     * @return Number of items in the queue */
+    private int releaseSaved(@NonNull QueueType queueType) {
+        OneQueue oneQueue = queues.get(queueType);
+        if (loaded) {
+            oneQueue.savedCount = 0;
+            oneQueue.savedForegroundTasks = false;
+        }
+        if (queueType == QueueType.RETRY) {
+            if (loaded) savedNextRetryAt.set(0);
+            for (CommandData cd : oneQueue.queue) {
+                long nextRetryAt = cd.getNextRetryDate();
+                if (savedNextRetryAt.get() == 0 || nextRetryAt < savedNextRetryAt.get()) {
+                    savedNextRetryAt.set(nextRetryAt);
+                }
+            }
+            retryScheduler.clear();
         }
+        int count = oneQueue.queue.size();
+        oneQueue.savedForegroundTasks |= oneQueue.hasForegroundTasks();
+        oneQueue.queue.clear();
         oneQueue.savedCount += count;
         return count;
     }
 
-    private synchronized void clearQueuesInDatabase(@NonNull SQLiteDatabase db) {
-        final String method = "clearQueuesInDatabase";
+    /** Occasionally removes rows, which are not needed in the journal anymore */
+    private void compact(List<Long> staleRowIds) {
+        final String method = "compact";
+        if (staleRowIds.isEmpty()
+                && !RelativeTime.moreSecondsAgoThan(compactedAt.get(), COMPACTION_PERIOD_SECONDS)) return;
+
+        SQLiteDatabase db = myContext.getDatabase();
+        if (db == null) return;
+
+        int count = 0;
+        db.beginTransaction();
         try {
-            String sql = "DELETE FROM " + CommandTable.TABLE_NAME;
-            DbUtils.execSQL(db, sql);
+            for (Long id : staleRowIds) {
+                count += db.delete(CommandTable.TABLE_NAME, CommandTable._ID + "=" + id, null);
+            }
+            count += db.delete(CommandTable.TABLE_NAME, CommandTable.QUEUE_TYPE + " NOT IN ('"
+                    + QueueType.CURRENT.save() + "', '" + QueueType.RETRY.save() + "', '"
+                    + QueueType.ERROR.save() + "')", null);
+            db.setTransactionSuccessful();
+            compactedAt.set(System.currentTimeMillis());
         } catch (Exception e) {
             MyLog.e(context, method, e);
-            if (SQLiteDiskIOException.class.isAssignableFrom(e.getClass())) {
-                throw e;
-            } else {
-                throw new IllegalStateException(method, e);
-            }
+        } finally {
+            db.endTransaction();
         }
+        MyLog.d(context, method + "; " + count + " rows deleted");
     }
 
     void clear() {
@@ -279,11 +369,13 @@ public class CommandQueue {
             entry.getValue().clear();
         }
         preQueue.clear();
+        journal.clear();
+        clearDatabase = true;
         save();
         MyLog.v(this, "Queues cleared");
     }
 
-    void deleteCommand(CommandData commandData) {
+    synchronized void deleteCommand(CommandData commandData) {
         moveCommandsFromPreToMainQueue();
         for (OneQueue oneQueue : queues.values()) {
             commandData.deleteCommandFromQueue(oneQueue.queue);
@@ -305,6 +397,31 @@ public class CommandQueue {
         return size + preQueue.size();
     }
 
+    /** @return The number of lanes, which have commands to execute now, including the busy lanes,
+     * so this is the number of executors needed. Commands, waiting for a retry, are not counted.
+     * Lanes of the saved commands are unknown, so one lane is counted for them */
+    int countLanesToExecute() {
+        Set<Long> lanes = new HashSet<>(busyLanes);
+        addLanesToExecute(lanes, preQueue, false);
+        if (loaded) {
+            addLanesToExecute(lanes, getIndexed(QueueType.CURRENT), false);
+            addLanesToExecute(lanes, getIndexed(QueueType.RETRY), true);
+        } else if (lanes.isEmpty() && isAnythingToExecuteNow()) {
+            return 1;
+        }
+        return lanes.size();
+    }
+
+    private void addLanesToExecute(Set<Long> lanes, Queue<CommandData> queue, boolean dueForRetryOnly) {
+        boolean foregroundOnly = myContext.isInForeground() && !MyPreferences.isSyncWhileUsingApplicationEnabled();
+        for (CommandData commandData : queue) {
+            if ((!foregroundOnly || commandData.isInForeground())
+                    && (!dueForRetryOnly || commandData.isDueForRetry())) {
+                lanes.add(laneOf(commandData));
+            }
+        }
+    }
+
     void addToQueue(QueueType queueType, CommandData commandData) {
         if (!get(queueType).contains(commandData)
                 && !get(queueType).offer(commandData)) {
@@ -318,8 +435,15 @@ public class CommandQueue {
     }
 
     private boolean isAnythingToRetryNow() {
-        return RelativeTime.moreSecondsAgoThan(mRetryQueueProcessedAt.get(),
-                RETRY_QUEUE_PROCESSING_PERIOD_SECONDS) && isAnythingToExecuteNowIn(QueueType.RETRY);
+        if (!isAnythingToExecuteNowIn(QueueType.RETRY)) return false;
+        if (loaded) return retryScheduler.isAnythingDue();
+        return !saved || System.currentTimeMillis() >= savedNextRetryAt.get();
+    }
+
+    /** @return The time, when the earliest command of the Retry queue will be due, or 0 if there are none */
+    long getNextRetryDate() {
+        if (queues.get(QueueType.RETRY).isEmpty()) return 0;
+        return loaded ? retryScheduler.getNextDueAt() : savedNextRetryAt.get();
     }
 
     private boolean isAnythingToExecuteNowIn(@NonNull QueueType queueType) {
@@ -335,14 +459,17 @@ public class CommandQueue {
         return true;
     }
 
-    CommandData pollQueue() {
+    /** The command is polled only if its lane is not busy. The lane becomes busy
+     * until {@link #releaseLane(CommandData)} is called */
+    synchronized CommandData pollQueue() {
         moveCommandsFromPreToMainQueue();
+        Predicate<CommandData> ofFreeLane = cd -> !busyLanes.contains(laneOf(cd));
         CommandData commandData;
         do {
-            commandData = get(QueueType.CURRENT).poll();
+            commandData = getIndexed(QueueType.CURRENT).pollFirst(ofFreeLane);
             if (commandData == null && isAnythingToRetryNow()) {
                 moveCommandsFromRetryToMainQueue();
-                commandData = get(QueueType.CURRENT).poll();
+                commandData = getIndexed(QueueType.CURRENT).pollFirst(ofFreeLane);
             }
             if (commandData == null) {
                 break;
@@ -351,6 +478,9 @@ public class CommandQueue {
             if (commandData != null) {
                 commandData = findInErrorQueue(commandData);
             }
+            if (commandData != null && deferredByRateLimit(commandData)) {
+                commandData = null;
+            }
             if (commandData != null && !commandData.isInForeground() && myContext.isInForeground()
                     && !MyPreferences.isSyncWhileUsingApplicationEnabled()) {
                 addToPreQueue(commandData);
@@ -364,56 +494,87 @@ public class CommandQueue {
                 + (commandData == null ? "" : " " + commandData));
         if (commandData != null) {
             commandData.setManuallyLaunched(false);
+            busyLanes.add(laneOf(commandData));
+            CommandCoalescer.fillBatch(getIndexed(QueueType.CURRENT), commandData);
         }
         return commandData;
     }
 
+    /** @return true if the command was moved to the Retry queue till the rate limit budget of its account
+     * for the resource family is refilled, so foreground commands have the budget */
+    private boolean deferredByRateLimit(@NonNull CommandData commandData) {
+        if (!commandData.isDeferrableByRateLimit()) return false;
+
+        MyAccount ma = commandData.getTimeline().getMyAccountToSync(myContext);
+        if (!ma.isValid()) return false;
+
+        RateLimitBudget budget = commandData.getRateLimitBudget(ma);
+        if (budget.isAvailable(false)) return false;
+
+        commandData.deferUntil(budget.getAvailableAt());
+        addToQueue(QueueType.RETRY, commandData);
+        MyLog.v(this, "Deferred by " + budget + ": " + commandData);
+        return true;
+    }
+
+    void releaseLane(@NonNull CommandData commandData) {
+        busyLanes.remove(laneOf(commandData));
+    }
+
+    /** Commands of the same Origin are executed in one lane. Commands without an Origin share one lane */
+    static long laneOf(@NonNull CommandData commandData) {
+        if (commandData.getTimeline().getOrigin().isValid()) {
+            return commandData.getTimeline().getOrigin().getId();
+        }
+        return commandData.getTimeline().getMyAccount().getOriginId();
+    }
+
     private void moveCommandsFromPreToMainQueue() {
         for (CommandData cd : preQueue) {
-            if (addToMainQueue(cd)) preQueue.remove(cd);
+            if (addToMainQueue(cd, true)) preQueue.remove(cd);
         }
     }
 
-    /** @return true if success */
-    private boolean addToMainQueue(CommandData commandData) {
-        if (get(QueueType.CURRENT).contains(commandData)) {
+    /** New commands go through {@link CommandCoalescer}
+     * @return true if success */
+    private boolean addToMainQueue(CommandData commandData, boolean isNew) {
+        if (!isNew && get(QueueType.CURRENT).contains(commandData)) {
             MyLog.v(this, "Didn't add to Main queue. Already found " + commandData);
             return true;
         }
         commandData.getResult().prepareForLaunch();
         MyLog.v(this, "Adding to Main queue " + commandData);
-        if (get(QueueType.CURRENT).offer(commandData)) return true;
+        if (isNew ? CommandCoalescer.addToQueue(getIndexed(QueueType.CURRENT), commandData)
+                : get(QueueType.CURRENT).offer(commandData)) return true;
 
         MyLog.e(this, "Couldn't add to the main queue, size=" + queues.get(QueueType.CURRENT).size());
         return false;
     }
 
     private void moveCommandsFromRetryToMainQueue() {
-        for (CommandData cd : get(QueueType.RETRY)) {
-            if (cd.executedMoreSecondsAgoThan(MIN_RETRY_PERIOD_SECONDS) && addToMainQueue(cd)) {
+        CommandData cd;
+        while ((cd = retryScheduler.pollDue()) != null) {
+            if (getIndexed(QueueType.RETRY).findByCommandId(cd.getCommandId()) == cd
+                    && addToMainQueue(cd, false)) {
                 get(QueueType.RETRY).remove(cd);
                 MyLog.v(this, "Moved from Retry to Main queue: " + cd);
             }
         }
-        mRetryQueueProcessedAt.set(System.currentTimeMillis());
     }
 
     private CommandData findInRetryQueue(CommandData cdIn) {
         CommandData cdOut = cdIn;
-        if (get(QueueType.RETRY).contains(cdIn)) {
-            for (CommandData cd : get(QueueType.RETRY)) {
-                if (cd.equals(cdIn)) {
-                    cd.resetRetries();
-                    if (cdIn.isManuallyLaunched() || cd.executedMoreSecondsAgoThan(MIN_RETRY_PERIOD_SECONDS)) {
-                        cdOut = cd;
-                        get(QueueType.RETRY).remove(cd);
-                        MyLog.v(this, "Returned from Retry queue: " + cd);
-                    } else {
-                        cdOut = null;
-                        MyLog.v(this, "Found in Retry queue: " + cd);
-                    }
-                    break;
-                }
+        CommandData cd = getIndexed(QueueType.RETRY).find(cdIn);
+        if (cd != null) {
+            cd.resetRetries();
+            getIndexed(QueueType.RETRY).onChanged(cd);
+            if (cdIn.isManuallyLaunched() || cd.isDueForRetry()) {
+                cdOut = cd;
+                get(QueueType.RETRY).remove(cd);
+                MyLog.v(this, "Returned from Retry queue: " + cd);
+            } else {
+                cdOut = null;
+                MyLog.v(this, "Found in Retry queue: " + cd);
             }
         }
         return cdOut;
@@ -421,29 +582,32 @@ public class CommandQueue {
 
     private CommandData findInErrorQueue(CommandData cdIn) {
         CommandData cdOut = cdIn;
-        if (get(QueueType.ERROR).contains(cdIn)) {
-            for (CommandData cd : get(QueueType.ERROR)) {
-                if (cd.equals(cdIn)) {
-                    cd.resetRetries();
-                    if (cdIn.isManuallyLaunched() || cd.executedMoreSecondsAgoThan(MIN_RETRY_PERIOD_SECONDS)) {
-                        cdOut = cd;
-                        get(QueueType.ERROR).remove(cd);
-                        MyLog.v(this, "Returned from Error queue: " + cd);
-                    } else {
-                        cdOut = null;
-                        MyLog.v(this, "Found in Error queue: " + cd);
-                    }
+        CommandData cd = getIndexed(QueueType.ERROR).find(cdIn);
+        if (cd != null) {
+            cd.resetRetries();
+            getIndexed(QueueType.ERROR).onChanged(cd);
+            if (cdIn.isManuallyLaunched() || cd.executedMoreSecondsAgoThan(MIN_RETRY_PERIOD_SECONDS)) {
+                cdOut = cd;
+                get(QueueType.ERROR).remove(cd);
+                MyLog.v(this, "Returned from Error queue: " + cd);
+            } else {
+                cdOut = null;
+                MyLog.v(this, "Found in Error queue: " + cd);
+            }
+            removeOldFromErrorQueue();
+        }
+        return cdOut;
+    }
+
+    private void removeOldFromErrorQueue() {
+        for (CommandData cd : get(QueueType.ERROR)) {
+            if (cd.executedMoreSecondsAgoThan(TimeUnit.DAYS.toSeconds(MAX_DAYS_IN_ERROR_QUEUE))) {
+                if (get(QueueType.ERROR).remove(cd)) {
+                    MyLog.i(this, "Removed old from Error queue: " + cd);
                 } else {
-                    if (cd.executedMoreSecondsAgoThan(TimeUnit.DAYS.toSeconds(MAX_DAYS_IN_ERROR_QUEUE))) {
-                        if (get(QueueType.ERROR).remove(cd)) {
-                            MyLog.i(this, "Removed old from Error queue: " + cd);
-                        } else {
-                            MyLog.i(this, "Failed to Remove old from Error queue: " + cd);
-                        }
-                    }
+                    MyLog.i(this, "Failed to Remove old from Error queue: " + cd);
                 }
             }
         }
-        return cdOut;
     }
 }
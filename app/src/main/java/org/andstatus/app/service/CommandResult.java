@@ -32,6 +32,8 @@ import org.andstatus.app.util.StringUtils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -41,6 +43,10 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public final class CommandResult implements Parcelable {
     static final int INITIAL_NUMBER_OF_RETRIES = 10;
+    static final long MIN_RETRY_DELAY_SECONDS = 10;
+    static final long MAX_RETRY_DELAY_SECONDS = 900;
+    /** Retry delays are spread randomly in the range of +/- this part of a delay */
+    private static final double RETRY_DELAY_JITTER = 0.2;
     
     private long lastExecutedDate = 0;
     private int executionCount = 0;
@@ -332,6 +338,19 @@ public final class CommandResult implements Parcelable {
         this.itemId = itemId;
     }
 
+    /** Exponential backoff with jitter: the delay after the last execution doubles with each execution,
+     * starting from {@link #MIN_RETRY_DELAY_SECONDS} and up to {@link #MAX_RETRY_DELAY_SECONDS}
+     * @param seed makes the jitter stable for a command, so the date doesn't need to be persisted */
+    long getNextRetryDate(long seed) {
+        if (lastExecutedDate == 0) return 0;
+
+        int exponent = Math.min(Math.max(executionCount, 1) - 1, 16);
+        long delayMs = TimeUnit.SECONDS.toMillis(
+                Math.min(MAX_RETRY_DELAY_SECONDS, MIN_RETRY_DELAY_SECONDS << exponent));
+        double jitter = (new Random(seed + executionCount).nextDouble() * 2 - 1) * RETRY_DELAY_JITTER;
+        return lastExecutedDate + Math.round(delayMs * (1 + jitter));
+    }
+
     public long getLastExecutedDate() {
         return lastExecutedDate;
     }
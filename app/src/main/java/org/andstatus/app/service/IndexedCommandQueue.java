@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.andstatus.app.util.MyLog;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Thread safe priority queue of commands, which doesn't allow duplicates.
+ * Ordered storage is paired with hash indices, so dedup, lookup and removal of a command
+ * don't need a scan of the whole queue:
+ * {@link #contains(Object)}, {@link #find(CommandData)} and {@link #findByCommandId(long)} are O(1),
+ * {@link #offer(CommandData)}, {@link #poll()} and {@link #remove(Object)} are O(log n),
+ * {@link #pollFirst(Predicate)} scans only the commands, skipped by its filter.
+ * Iterator returns a snapshot of the queue in the order of priority,
+ * so the queue may be modified during the iteration.
+ * Commands of equal priority are ordered by the time of their insertion.
+ * An optional listener is notified on every addition, removal and change of a command,
+ * except for {@link #clear()}
+ * @author yvolk@yurivolkov.com
+ */
+class IndexedCommandQueue extends AbstractQueue<CommandData> {
+    /** Unique sequence numbers of queued commands, assigned on insertion */
+    private final Map<CommandData, Long> sequences = new IdentityHashMap<>();
+    private long nextSequence = 0;
+    private final Comparator<CommandData> comparator = (o1, o2) -> {
+        int result = o1.compareTo(o2);
+        if (result == 0 && o1 != o2) {
+            result = Long.compare(sequences.get(o1), sequences.get(o2));
+        }
+        return result;
+    };
+
+    private final NavigableSet<CommandData> ordered = new TreeSet<>(comparator);
+    /** The key is equal to the value, see {@link CommandData#equals(Object)} */
+    private final Map<CommandData, CommandData> index = new HashMap<>();
+    private final Map<Long, CommandData> indexByCommandId = new HashMap<>();
+    private final Consumer<CommandData> onChange;
+
+    IndexedCommandQueue() {
+        this(commandData -> {});
+    }
+
+    IndexedCommandQueue(@NonNull Consumer<CommandData> onChange) {
+        this.onChange = onChange;
+    }
+
+    /** @return false if the equal command is in the queue already */
+    @Override
+    public synchronized boolean offer(@NonNull CommandData commandData) {
+        if (index.containsKey(commandData)) return false;
+
+        sequences.put(commandData, nextSequence++);
+        if (!ordered.add(commandData)) {
+            sequences.remove(commandData);
+            MyLog.e(this, "Failed to add to ordered commands " + commandData);
+            return false;
+        }
+        index.put(commandData, commandData);
+        indexByCommandId.put(commandData.getCommandId(), commandData);
+        onChange.accept(commandData);
+        return true;
+    }
+
+    /** Notifies the listener about the change of the queued command in place */
+    synchronized void onChanged(@NonNull CommandData commandData) {
+        if (index.get(commandData) == commandData) {
+            onChange.accept(commandData);
+        }
+    }
+
+    /** The priority of the command depends on the flag, so the queued command is reinserted */
+    synchronized void setInForeground(@NonNull CommandData commandData, boolean inForeground) {
+        CommandData stored = index.get(commandData);
+        if (stored == null) {
+            commandData.setInForeground(inForeground);
+            return;
+        }
+        if (stored.isInForeground() == inForeground) return;
+
+        ordered.remove(stored);
+        stored.setInForeground(inForeground);
+        ordered.add(stored);
+        onChange.accept(stored);
+    }
+
+    @Override
+    public synchronized CommandData poll() {
+        CommandData commandData = ordered.pollFirst();
+        if (commandData != null) {
+            removeFromIndices(commandData);
+        }
+        return commandData;
+    }
+
+    /** Polls the first command in the order of priority, which matches the filter.
+     * Only the commands, skipped by the filter, are scanned, and they stay in place */
+    @Nullable
+    synchronized CommandData pollFirst(@NonNull Predicate<CommandData> filter) {
+        Iterator<CommandData> iterator = ordered.iterator();
+        while (iterator.hasNext()) {
+            CommandData commandData = iterator.next();
+            if (filter.test(commandData)) {
+                iterator.remove();
+                removeFromIndices(commandData);
+                return commandData;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized CommandData peek() {
+        return ordered.isEmpty() ? null : ordered.first();
+    }
+
+    @Override
+    public synchronized boolean contains(Object o) {
+        return o instanceof CommandData && index.containsKey(o);
+    }
+
+    /** @return The queued command, equal to the one supplied, or null */
+    @Nullable
+    synchronized CommandData find(@NonNull CommandData commandData) {
+        return index.get(commandData);
+    }
+
+    @Nullable
+    synchronized CommandData findByCommandId(long commandId) {
+        return indexByCommandId.get(commandId);
+    }
+
+    /** Removes the queued command, equal to the one supplied */
+    @Override
+    public synchronized boolean remove(Object o) {
+        if (!(o instanceof CommandData)) return false;
+
+        CommandData stored = index.get(o);
+        if (stored == null) return false;
+
+        ordered.remove(stored);
+        removeFromIndices(stored);
+        return true;
+    }
+
+    private void removeFromIndices(@NonNull CommandData commandData) {
+        sequences.remove(commandData);
+        index.remove(commandData);
+        if (indexByCommandId.get(commandData.getCommandId()) == commandData) {
+            indexByCommandId.remove(commandData.getCommandId());
+        }
+        onChange.accept(commandData);
+    }
+
+    @Override
+    public synchronized void clear() {
+        ordered.clear();
+        sequences.clear();
+        index.clear();
+        indexByCommandId.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return ordered.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return ordered.isEmpty();
+    }
+
+    @NonNull
+    @Override
+    public Iterator<CommandData> iterator() {
+        final List<CommandData> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(ordered);
+        }
+        return new Iterator<CommandData>() {
+            private final Iterator<CommandData> iterator = snapshot.iterator();
+            private CommandData lastReturned = null;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public CommandData next() {
+                lastReturned = iterator.next();
+                return lastReturned;
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null) throw new IllegalStateException();
+                IndexedCommandQueue.this.remove(lastReturned);
+                lastReturned = null;
+            }
+        };
+    }
+}
@@ -33,7 +33,6 @@ import org.andstatus.app.appwidget.AppWidgets;
 import org.andstatus.app.context.MyContext;
 import org.andstatus.app.context.MyContextHolder;
 import org.andstatus.app.context.MyPreferences;
-import org.andstatus.app.data.DbUtils;
 import org.andstatus.app.notification.NotificationData;
 import org.andstatus.app.notification.NotificationEventType;
 import org.andstatus.app.os.AsyncTaskLauncher;
@@ -44,6 +43,9 @@ import org.andstatus.app.util.RelativeTime;
 import org.andstatus.app.util.SharedPreferencesUtil;
 import org.andstatus.app.util.TriState;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.andstatus.app.service.CommandEnum.DELETE_COMMAND;
@@ -73,8 +75,9 @@ public class MyService extends Service {
     private int mLatestProcessedStartId = 0;
     
     private final Object executorLock = new Object();
+    /** Each executor works in its own lane, see {@link CommandQueue#laneOf(CommandData)} */
     @GuardedBy("executorLock")
-    private QueueExecutor mExecutor = null;
+    private final List<QueueExecutor> executors = new ArrayList<>();
 
     private final Object heartBeatLock = new Object();
     @GuardedBy("heartBeatLock")
@@ -176,6 +179,7 @@ public class MyService extends Service {
         } else {
             initialize();
             startStopExecution();
+            wakeUpHeartBeat();
         }
     }
     
@@ -206,6 +210,8 @@ public class MyService extends Service {
             if (widgetsInitialized.compareAndSet(false, true)) {
                 AppWidgets.updateWidgets(myContext);
             }
+            // Retries are scheduled by the HeartBeat, while the service is running
+            MyServiceManager.setRetryAlarm(this, 0);
             reviveHeartBeat();
         }
         if (changed) {
@@ -228,6 +234,21 @@ public class MyService extends Service {
         }
     }
 
+    /** The service doesn't stop sooner than this after it decided to start */
+    private long getStopAllowedAt() {
+        synchronized (serviceStateLock) {
+            return decidedToChangeIsStoppingAt + TimeUnit.SECONDS.toMillis(START_TO_STOP_CHANGE_MIN_PERIOD_SECONDS);
+        }
+    }
+
+    private void wakeUpHeartBeat() {
+        synchronized(heartBeatLock) {
+            if (mHeartBeat != null) {
+                mHeartBeat.wakeUp();
+            }
+        }
+    }
+
     private void startStopExecution() {
         switch (shouldStop()) {
             case TRUE:
@@ -237,7 +258,7 @@ public class MyService extends Service {
                 startExecution();
                 break;
             default:
-                MyLog.v(this, "Didn't change execution " + mExecutor);
+                MyLog.v(this, "Didn't change execution " + executorsToString());
                 break;
         }
     }
@@ -331,25 +352,28 @@ public class MyService extends Service {
         final String method = "ensureExecutorStarted";
         StringBuilder logMessageBuilder = new StringBuilder();
         synchronized(executorLock) {
-            if ( mExecutor != null && mExecutor.completedBackgroundWork()) {
-                logMessageBuilder.append(" Removing completed Executor " + mExecutor);
-                removeExecutor(logMessageBuilder);
+            for (QueueExecutor executor : new ArrayList<>(executors)) {
+                if (executor.completedBackgroundWork()) {
+                    logMessageBuilder.append(" Removing completed Executor " + executor);
+                    removeExecutor(executor, logMessageBuilder);
+                } else if (!executor.isReallyWorking()) {
+                    logMessageBuilder.append(" Cancelling stalled Executor " + executor);
+                    removeExecutor(executor, logMessageBuilder);
+                }
             }
-            if ( mExecutor != null && !isExecutorReallyWorkingNow()) {
-                logMessageBuilder.append(" Cancelling stalled Executor " + mExecutor);
-                removeExecutor(logMessageBuilder);
+            int lanesNeeded = Math.max(1,
+                    Math.min(MyPreferences.getSyncMaxParallelLanes(), commandQueue.countLanesToExecute()));
+            if (executors.size() >= lanesNeeded) {
+                logMessageBuilder.append(" There are " + executors.size() + " Executors already");
             }
-            if (mExecutor != null) {
-                logMessageBuilder.append(" There is an Executor already " + mExecutor);
-            } else {
-                // For now let's have only ONE working thread 
-                // (it seems there is some problem in parallel execution...)
-                QueueExecutor newExecutor = new QueueExecutor();
+            while (executors.size() < lanesNeeded) {
+                QueueExecutor newExecutor = new QueueExecutor(nextLaneIndex());
                 logMessageBuilder.append(" Adding and starting new Executor " + newExecutor);
                 if (AsyncTaskLauncher.execute(this, false, newExecutor)) {
-                    mExecutor = newExecutor;
+                    executors.add(newExecutor);
                 } else {
                     logMessageBuilder.append(" New executor was not added");
+                    break;
                 }
             }
         }
@@ -358,17 +382,39 @@ public class MyService extends Service {
         }
     }
     
-    private void removeExecutor(StringBuilder logMessageBuilder) {
+    @GuardedBy("executorLock")
+    private int nextLaneIndex() {
+        int laneIndex = 0;
+        while (true) {
+            boolean found = false;
+            for (QueueExecutor executor : executors) {
+                if (executor.laneIndex == laneIndex) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return laneIndex;
+            laneIndex++;
+        }
+    }
+
+    private void removeExecutor(QueueExecutor executor, StringBuilder logMessageBuilder) {
         synchronized(executorLock) {
-            if (mExecutor == null) {
+            if (!executors.contains(executor)) {
                 return;
             }
-            if (mExecutor.needsBackgroundWork()) {
+            if (executor.needsBackgroundWork()) {
                 logMessageBuilder.append(" Cancelling and");
-                mExecutor.cancelLogged(true);
+                executor.cancelLogged(true);
             }
-            logMessageBuilder.append(" Removing Executor " + mExecutor);
-            mExecutor = null;
+            logMessageBuilder.append(" Removing Executor " + executor);
+            executors.remove(executor);
+        }
+    }
+
+    private String executorsToString() {
+        synchronized(executorLock) {
+            return executors.isEmpty() ? "(no executors)" : executors.toString();
         }
     }
 
@@ -389,8 +435,11 @@ public class MyService extends Service {
     
     private boolean isExecutorReallyWorkingNow() {
         synchronized(executorLock) {
-          return mExecutor != null && mExecutor.isReallyWorking();
-        }        
+            for (QueueExecutor executor : executors) {
+                if (executor.isReallyWorking()) return true;
+            }
+            return false;
+        }
     }
     
     @Override
@@ -405,6 +454,7 @@ public class MyService extends Service {
             stopDelayed(true);
         }
         MyLog.d(this, "Service destroyed");
+        MyLog.flushLogFile();
         MyLog.setNextLogFileName();
     }
     
@@ -449,6 +499,7 @@ public class MyService extends Service {
             }
         }
         AsyncTaskLauncher.cancelPoolTasks(MyAsyncTask.PoolEnum.SYNC);
+        MyServiceManager.setRetryAlarm(this, commandQueue.getNextRetryDate());
         releaseWakeLock();
         stopSelfResult(latestProcessedStartId);
         myContext.getNotifier().clearAndroidNotification(NotificationEventType.SERVICE_RUNNING);
@@ -459,16 +510,20 @@ public class MyService extends Service {
         StringBuilder logMessageBuilder = new StringBuilder();
         boolean could = true;
         synchronized(executorLock) {
-            if (mExecutor != null && mExecutor.needsBackgroundWork() && mExecutor.isReallyWorking() ) {
-                if (forceNow) {
-                    logMessageBuilder.append(" Cancelling working Executor;");
-                } else {
-                    logMessageBuilder.append(" Cannot stop now Executor " + mExecutor);
-                    could = false;
+            for (QueueExecutor executor : executors) {
+                if (executor.needsBackgroundWork() && executor.isReallyWorking() ) {
+                    if (forceNow) {
+                        logMessageBuilder.append(" Cancelling working Executor;");
+                    } else {
+                        logMessageBuilder.append(" Cannot stop now Executor " + executor);
+                        could = false;
+                    }
                 }
             }
             if (could) {
-                removeExecutor(logMessageBuilder);
+                for (QueueExecutor executor : new ArrayList<>(executors)) {
+                    removeExecutor(executor, logMessageBuilder);
+                }
             }
         }
         if (logMessageBuilder.length() > 0) {
@@ -490,9 +545,12 @@ public class MyService extends Service {
     private class QueueExecutor extends MyAsyncTask<Void, Void, Boolean> implements CommandExecutorParent {
         private volatile CommandData currentlyExecuting = null;
         private static final long MAX_EXECUTION_TIME_SECONDS = 60;
+        final int laneIndex;
+        private volatile boolean loopEnded = false;
 
-        QueueExecutor() {
-            super(PoolEnum.SYNC);
+        QueueExecutor(int laneIndex) {
+            super(QueueExecutor.class.getSimpleName() + laneIndex, PoolEnum.SYNC);
+            this.laneIndex = laneIndex;
         }
 
         @Override
@@ -514,7 +572,7 @@ public class MyService extends Service {
                     break;
                 }
                 synchronized (executorLock) {
-                    if (mExecutor != this) {
+                    if (!executors.contains(this)) {
                         breakReason = "Other executor";
                         break;
                     }
@@ -526,35 +584,63 @@ public class MyService extends Service {
                     breakReason = "No more commands";
                     break;
                 }
-                ConnectionState connectionState = myContext.getConnectionState();
-                if (commandData.getCommand().getConnectionRequired().isConnectionStateOk(connectionState)) {
-                    MyServiceEventsBroadcaster.newInstance(myContext, getServiceState())
-                            .setCommandData(commandData)
-                            .setEvent(MyServiceEvent.BEFORE_EXECUTING_COMMAND).broadcast();
-                    if (commandData.getCommand() == DELETE_COMMAND) {
-                        commandQueue.deleteCommand(commandData);
-                    } else {
-                        CommandExecutorStrategy.executeCommand(commandData, this);
-                    }
-                } else {
-                    commandData.getResult().incrementNumIoExceptions();
-                    commandData.getResult().setMessage("Expected '"
-                            + commandData.getCommand().getConnectionRequired()
-                            + "', but was '" + connectionState + "' connection");
-                }
-                if (commandData.getResult().shouldWeRetry()) {
-                    commandQueue.addToQueue(QueueType.RETRY, commandData);
-                } else if (commandData.getResult().hasError()) {
-                    commandQueue.addToQueue(QueueType.ERROR, commandData);
+                try {
+                    executeOne(commandData);
+                } finally {
+                    commandQueue.releaseLane(commandData);
                 }
                 broadcastAfterExecutingCommand(commandData);
                 addSyncOfThisToQueue(commandData);
             } while (true);
             MyLog.d(this, "Ended, " + breakReason + ", " + commandQueue.totalSizeToExecute() + " commands left");
-            commandQueue.save();
+            if (isLastWorkingExecutor()) {
+                commandQueue.save();
+            } else {
+                MyLog.v(this, "Other executors are working, queues not saved");
+            }
             return true;
         }
 
+        private void executeOne(CommandData commandData) {
+            ConnectionState connectionState = myContext.getConnectionState();
+            if (commandData.getCommand().getConnectionRequired().isConnectionStateOk(connectionState)) {
+                MyServiceEventsBroadcaster.newInstance(myContext, getServiceState())
+                        .setCommandData(commandData)
+                        .setEvent(MyServiceEvent.BEFORE_EXECUTING_COMMAND).broadcast();
+                if (commandData.getCommand() == DELETE_COMMAND) {
+                    commandQueue.deleteCommand(commandData);
+                } else {
+                    CommandExecutorStrategy.executeCommand(commandData, this);
+                }
+            } else {
+                for (CommandData cd : commandData.getBatchWithHead()) {
+                    cd.getResult().incrementNumIoExceptions();
+                    cd.getResult().setMessage("Expected '"
+                            + commandData.getCommand().getConnectionRequired()
+                            + "', but was '" + connectionState + "' connection");
+                }
+            }
+            for (CommandData cd : commandData.getBatchWithHead()) {
+                if (cd.isDeferred() || cd.getResult().shouldWeRetry()) {
+                    commandQueue.addToQueue(QueueType.RETRY, cd);
+                } else if (cd.getResult().hasError()) {
+                    commandQueue.addToQueue(QueueType.ERROR, cd);
+                }
+            }
+            commandData.getBatch().clear();
+        }
+
+        /** Queues are saved by the executor, which ends its loop last */
+        private boolean isLastWorkingExecutor() {
+            synchronized (executorLock) {
+                loopEnded = true;
+                for (QueueExecutor executor : executors) {
+                    if (!executor.loopEnded) return false;
+                }
+                return true;
+            }
+        }
+
         private void addSyncOfThisToQueue(CommandData commandDataExecuted) {
             if (commandDataExecuted.getResult().hasError()
                     || commandDataExecuted.getCommand() != CommandEnum.UPDATE_NOTE
@@ -608,8 +694,15 @@ public class MyService extends Service {
     
     private class HeartBeat extends MyAsyncTask<Void, Long, Void> {
         private static final long HEARTBEAT_PERIOD_SECONDS = 11;
+        private static final long HEARTBEAT_IDLE_PERIOD_SECONDS = 900;
+        private static final long MIN_SLEEP_MILLIS = 1000;
         private volatile long previousBeat = createdAt;
+        /** When the HeartBeat plans to beat next, it may sleep long while the service is idle */
+        private volatile long nextBeatAt = createdAt;
         private volatile long mIteration = 0;
+        private final Object sleepLock = new Object();
+        @GuardedBy("sleepLock")
+        private boolean wakeUpRequested = false;
 
         HeartBeat() {
             super(PoolEnum.SYNC);
@@ -630,8 +723,7 @@ public class MyService extends Service {
                     breakReason = "Cancelled";
                     break;
                 }
-                if (DbUtils.waitMs("HeartBeatSleeping",
-                    java.util.concurrent.TimeUnit.SECONDS.toMillis(HEARTBEAT_PERIOD_SECONDS))) {
+                if (sleep(getSleepMillis())) {
                     breakReason = "InterruptedException";
                     break;
                 }
@@ -652,6 +744,56 @@ public class MyService extends Service {
             return null;
         }
 
+        /**
+         * While executors work, the HeartBeat watches them periodically. While the service is idle,
+         * it doesn't poll: it sleeps till the service may stop, or till a command of the Retry queue is due,
+         * or till it is woken up by a new command, see {@link #wakeUp()}
+         */
+        private long getSleepMillis() {
+            long now = System.currentTimeMillis();
+            long sleepMillis = TimeUnit.SECONDS.toMillis(HEARTBEAT_PERIOD_SECONDS);
+            if (isIdle()) {
+                long stopAllowedAt = getStopAllowedAt();
+                sleepMillis = stopAllowedAt > now
+                        ? stopAllowedAt - now
+                        : TimeUnit.SECONDS.toMillis(HEARTBEAT_IDLE_PERIOD_SECONDS);
+            }
+            long nextRetryDate = commandQueue.getNextRetryDate();
+            if (nextRetryDate > 0) {
+                sleepMillis = Math.min(sleepMillis, nextRetryDate - now);
+            }
+            return Math.max(MIN_SLEEP_MILLIS, sleepMillis);
+        }
+
+        private boolean isIdle() {
+            return !commandQueue.isAnythingToExecuteNow() && !isExecutorReallyWorkingNow();
+        }
+
+        /** @return true if interrupted */
+        private boolean sleep(long millis) {
+            nextBeatAt = System.currentTimeMillis() + millis;
+            synchronized (sleepLock) {
+                try {
+                    long left;
+                    while (!wakeUpRequested && (left = nextBeatAt - System.currentTimeMillis()) > 0) {
+                        sleepLock.wait(left);
+                    }
+                } catch (InterruptedException e) {
+                    return true;
+                } finally {
+                    wakeUpRequested = false;
+                }
+            }
+            return false;
+        }
+
+        void wakeUp() {
+            synchronized (sleepLock) {
+                wakeUpRequested = true;
+                sleepLock.notifyAll();
+            }
+        }
+
         @Override
         protected void onProgressUpdate(Long... values) {
             mIteration = values[0];
@@ -673,8 +815,8 @@ public class MyService extends Service {
 
         @Override
         public boolean isReallyWorking() {
-            return needsBackgroundWork() && !RelativeTime.
-                    wasButMoreSecondsAgoThan(previousBeat, HEARTBEAT_PERIOD_SECONDS * 2);
+            return needsBackgroundWork() && System.currentTimeMillis()
+                    < Math.max(previousBeat, nextBeatAt) + TimeUnit.SECONDS.toMillis(HEARTBEAT_PERIOD_SECONDS);
         }
     }
     
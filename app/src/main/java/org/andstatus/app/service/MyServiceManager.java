@@ -15,6 +15,8 @@
  */
 package org.andstatus.app.service;
 
+import android.app.AlarmManager;
+import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
@@ -30,6 +32,8 @@ import org.andstatus.app.syncadapter.SyncInitiator;
 import org.andstatus.app.util.InstanceId;
 import org.andstatus.app.util.MyLog;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * This receiver starts and stops {@link MyService} and also queries its state.
  * Android system creates new instance of this type on each Intent received. 
@@ -85,6 +89,10 @@ public class MyServiceManager extends BroadcastReceiver {
             case SYNC:
                 SyncInitiator.tryToSync(context);
                 break;
+            case RETRY:
+                MyLog.d(this, "Starting service to retry commands");
+                sendCommand(CommandData.getEmpty());
+                break;
             case SERVICE_STATE:
                 MyContextHolder.getMyFutureContext(context);
                 stateInTime = MyServiceStateInTime.fromIntent(intent);
@@ -151,6 +159,27 @@ public class MyServiceManager extends BroadcastReceiver {
         }
     }
 
+    /**
+     * Schedules (or cancels, if retryAt is 0) the alarm, which starts {@link MyService}
+     * when the earliest command of the Retry queue is due
+     */
+    static void setRetryAlarm(Context context, long retryAt) {
+        AlarmManager alarmManager = context.getSystemService(AlarmManager.class);
+        if (alarmManager == null) {
+            MyLog.w(TAG, "No AlarmManager ???");
+            return;
+        }
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 0,
+                MyAction.RETRY.getIntent().setClass(context, MyServiceManager.class), 0);
+        if (retryAt == 0) {
+            alarmManager.cancel(pendingIntent);
+        } else {
+            MyLog.d(TAG, "Scheduling retry alarm in "
+                    + TimeUnit.MILLISECONDS.toSeconds(retryAt - System.currentTimeMillis()) + " seconds");
+            alarmManager.set(AlarmManager.RTC_WAKEUP, retryAt, pendingIntent);
+        }
+    }
+
     /**
      * Stop  {@link MyService} asynchronously
      */
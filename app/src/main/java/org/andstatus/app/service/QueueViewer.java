@@ -27,6 +27,7 @@ import android.view.View;
 import org.andstatus.app.R;
 import org.andstatus.app.account.MyAccount;
 import org.andstatus.app.list.SyncLoader;
+import org.andstatus.app.net.social.RateLimitBudget;
 import org.andstatus.app.timeline.BaseTimelineAdapter;
 import org.andstatus.app.timeline.LoadableListActivity;
 import org.andstatus.app.timeline.WhichPage;
@@ -61,6 +62,13 @@ public class QueueViewer extends LoadableListActivity {
         };
     }
 
+    /** Shows the rate limit budget of accounts, e.g. "user@Twitter: 120/180" */
+    @Override
+    protected CharSequence getCustomTitle() {
+        mSubtitle = RateLimitBudget.summary();
+        return super.getCustomTitle();
+    }
+
     @Override
     protected BaseTimelineAdapter newListAdapter() {
         return new QueueViewerAdapter(this, getLoaded().getList());
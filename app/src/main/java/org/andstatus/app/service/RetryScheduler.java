@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.service;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules commands of the Retry queue by the time, when each of them is due for a retry,
+ * see {@link CommandResult#getNextRetryDate(long)}.
+ * Entries of commands, which left the Retry queue, are removed by {@link #unschedule(CommandData)},
+ * still a caller checks that a polled command is queued.
+ * @author yvolk@yurivolkov.com
+ */
+class RetryScheduler {
+    private final DelayQueue<Entry> entries = new DelayQueue<>();
+
+    private static class Entry implements Delayed {
+        final CommandData commandData;
+        final long dueAt;
+
+        Entry(CommandData commandData) {
+            this.commandData = commandData;
+            dueAt = commandData.getNextRetryDate();
+        }
+
+        @Override
+        public long getDelay(@NonNull TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(@NonNull Delayed o) {
+            return Long.compare(dueAt, ((Entry) o).dueAt);
+        }
+    }
+
+    /** A command is scheduled once, at its current next retry date */
+    void schedule(@NonNull CommandData commandData) {
+        unschedule(commandData);
+        entries.offer(new Entry(commandData));
+    }
+
+    void unschedule(@NonNull CommandData commandData) {
+        entries.removeIf(entry -> entry.commandData == commandData);
+    }
+
+    /** @return A command, which is due now, or null */
+    CommandData pollDue() {
+        Entry entry = entries.poll();
+        return entry == null ? null : entry.commandData;
+    }
+
+    boolean isAnythingDue() {
+        Entry entry = entries.peek();
+        return entry != null && entry.getDelay(TimeUnit.MILLISECONDS) <= 0;
+    }
+
+    /** @return 0 if nothing is scheduled */
+    long getNextDueAt() {
+        Entry entry = entries.peek();
+        return entry == null ? 0 : entry.dueAt;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+}
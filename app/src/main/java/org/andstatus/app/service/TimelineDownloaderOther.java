@@ -26,19 +26,29 @@ import org.andstatus.app.data.OidEnum;
 import org.andstatus.app.net.http.ConnectionException;
 import org.andstatus.app.net.http.ConnectionException.StatusCode;
 import org.andstatus.app.net.social.AActivity;
+import org.andstatus.app.net.social.RateLimitBudget;
 import org.andstatus.app.net.social.TimelinePosition;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.RelativeTime;
+import org.andstatus.app.util.StringUtils;
 import org.andstatus.app.util.TriState;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 class TimelineDownloaderOther extends TimelineDownloader {
     private static final int YOUNGER_NOTES_TO_DOWNLOAD_MAX = 200;
     private static final int OLDER_NOTES_TO_DOWNLOAD_MAX = 40;
     private static final int LATEST_NOTES_TO_DOWNLOAD_MAX = 20;
+    /** Pages, fetched ahead of the page being stored */
+    private static final int PAGES_IN_PIPELINE = 1;
+    private static final long FETCHER_TERMINATION_SECONDS = 60;
 
     @Override
     public void download() throws ConnectionException {
@@ -70,58 +80,212 @@ class TimelineDownloaderOther extends TimelineDownloader {
         String actorOid = getActorOid();
         int toDownload = downloadingLatest ? LATEST_NOTES_TO_DOWNLOAD_MAX :
                 (isSyncYounger() ? YOUNGER_NOTES_TO_DOWNLOAD_MAX : OLDER_NOTES_TO_DOWNLOAD_MAX);
-        TimelinePosition previousPosition = syncTracker.getPreviousPosition();
+        PageFetcher fetcher = new PageFetcher(actorOid, toDownload,
+                new PageCursor(syncTracker.getPreviousPosition(), syncTracker.getPreviousItemDate()));
         syncTracker.onTimelineDownloaded();
 
         DataUpdater di = new DataUpdater(execContext);
-        for (int loopCounter=0; loopCounter < 100; loopCounter++ ) {
+        final String threadName = "TimelineFetcher-" + execContext.getCommandData().getCommandId();
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, threadName));
+        try {
+            executor.execute(fetcher);
+            Page page;
+            while ((page = fetcher.takePage()) != Page.END) {
+                storePage(page, syncTracker, di);
+            }
+        } finally {
+            fetcher.stop();
+            executor.shutdownNow();
+            fetcher.awaitTermination(executor);
+        }
+        di.saveLum();
+        RateLimitBudget lowBudget = fetcher.lowBudget;
+        if (lowBudget != null) {
+            logSoftErrorRateLimited(lowBudget);
+        }
+        fetcher.rethrowException();
+    }
+
+    /** Persist stage of the pipeline: stores a page in one transaction, while the next one is being fetched.
+     * The timeline position is advanced only after the page was stored */
+    private void storePage(Page page, TimelineSyncTracker syncTracker, DataUpdater di) {
+        for (AActivity activity : page.activities) {
+            if (!activity.isSubscribedByMe().equals(TriState.FALSE)
+                && activity.getUpdatedDate() > 0
+                && execContext.getTimeline().getTimelineType().isSubscribedByMe()
+                && execContext.myContext.users().containsMe(execContext.getTimeline().actor)
+                    ) {
+                activity.setSubscribedByMe(TriState.TRUE);
+            }
+        }
+        di.onActivities(page.activities);
+        for (AActivity activity : page.activities) {
+            syncTracker.onNewMsg(activity.getTimelinePosition(), activity.getUpdatedDate());
+        }
+    }
+
+    private static class Page {
+        static final Page END = new Page(Collections.emptyList());
+        final List<AActivity> activities;
+
+        Page(List<AActivity> activities) {
+            this.activities = activities;
+        }
+    }
+
+    /** Position of the next page. It follows downloaded items the same way, as {@link TimelineSyncTracker} does,
+     * but it doesn't change the Timeline before the items are stored */
+    private class PageCursor {
+        TimelinePosition position;
+        long itemDate;
+
+        PageCursor(TimelinePosition position, long itemDate) {
+            this.position = position;
+            this.itemDate = itemDate;
+        }
+
+        void onNewMsg(TimelinePosition itemPosition, long date) {
+            if (itemPosition == null || itemPosition.isEmpty() || date <= 0) return;
+
+            boolean isNext = isSyncYounger()
+                    ? itemDate < date
+                    : itemDate == 0 || itemDate > date;
+            if (isNext || (itemDate == date
+                    && StringUtils.isNewFilledValue(position.getPosition(), itemPosition.getPosition()))) {
+                itemDate = date;
+                position = itemPosition;
+            }
+        }
+    }
+
+    /** Fetch stage of the pipeline: requests the next page, using the position from the previous one,
+     * while the previous one is being stored. The bounded hand-off queue provides backpressure.
+     * The fetcher doesn't change the execution context: its results are taken by the persist stage
+     * after the fetcher has terminated */
+    private class PageFetcher implements Runnable {
+        private final BlockingQueue<Page> pages = new ArrayBlockingQueue<>(PAGES_IN_PIPELINE);
+        private final String actorOid;
+        private final PageCursor cursor;
+        private int toDownload;
+        private volatile boolean stopped = false;
+        private volatile ConnectionException connectionException = null;
+        private volatile RuntimeException runtimeException = null;
+        /** Not null, if fetching was stopped, because the rate limit budget is low */
+        private volatile RateLimitBudget lowBudget = null;
+
+        PageFetcher(String actorOid, int toDownload, PageCursor cursor) {
+            this.actorOid = actorOid;
+            this.toDownload = toDownload;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void run() {
             try {
-                int limit = execContext.getMyAccount().getConnection().fixedDownloadLimit(
-                        toDownload, getTimeline().getTimelineType().getConnectionApiRoutine());
-                List<AActivity> activities;
-                switch (getTimeline().getTimelineType()) {
-                    case SEARCH:
-                        activities = execContext.getMyAccount().getConnection().searchNotes(
-                                isSyncYounger() ? previousPosition : TimelinePosition.EMPTY,
-                                isSyncYounger() ? TimelinePosition.EMPTY : previousPosition,
-                                limit, getTimeline().getSearchQuery());
-                        break;
-                    default:
-                        activities = execContext.getMyAccount().getConnection().getTimeline(
-                                getTimeline().getTimelineType().getConnectionApiRoutine(),
-                                isSyncYounger() ? previousPosition : TimelinePosition.EMPTY,
-                                isSyncYounger() ? TimelinePosition.EMPTY : previousPosition,
-                                limit, actorOid);
-                        break;
+                fetchPages();
+            } catch (ConnectionException e) {
+                connectionException = e;
+            } catch (RuntimeException e) {
+                runtimeException = e;
+            } catch (InterruptedException e) {
+                MyLog.v(TimelineDownloaderOther.this, "Fetching interrupted");
+            } finally {
+                putPage(Page.END);
+            }
+        }
+
+        private void fetchPages() throws ConnectionException, InterruptedException {
+            TimelinePosition previousPosition = cursor.position;
+            for (int loopCounter=0; loopCounter < 100 && !stopped && !isStopping(); loopCounter++ ) {
+                if (loopCounter > 0) {
+                    lowBudget = getLowRateLimitBudget();
+                    if (lowBudget != null) break;
                 }
-                for (AActivity activity : activities) {
-                    toDownload--;
-                    syncTracker.onNewMsg(activity.getTimelinePosition(), activity.getUpdatedDate());
-                    if (!activity.isSubscribedByMe().equals(TriState.FALSE)
-                        && activity.getUpdatedDate() > 0
-                        && execContext.getTimeline().getTimelineType().isSubscribedByMe()
-                        && execContext.myContext.users().containsMe(execContext.getTimeline().actor)
-                            ) {
-                        activity.setSubscribedByMe(TriState.TRUE);
+                try {
+                    List<AActivity> activities = fetchPage(previousPosition);
+                    for (AActivity activity : activities) {
+                        toDownload--;
+                        cursor.onNewMsg(activity.getTimelinePosition(), activity.getUpdatedDate());
                     }
-                    di.onActivity(activity, false);
-                }
-                if (toDownload <= 0 || activities.isEmpty() || previousPosition.equals(syncTracker.getPreviousPosition())) {
-                    break;
+                    if (!activities.isEmpty()) {
+                        pages.put(new Page(activities));
+                    }
+                    if (toDownload <= 0 || activities.isEmpty() || previousPosition.equals(cursor.position)) {
+                        break;
+                    }
+                    previousPosition = cursor.position;
+                } catch (ConnectionException e) {
+                    if (e.getStatusCode() != StatusCode.NOT_FOUND) {
+                        throw e;
+                    }
+                    if (previousPosition.isEmpty()) {
+                        throw ConnectionException.hardConnectionException("No last position", e);
+                    }
+                    MyLog.d(TimelineDownloaderOther.this,
+                            "The timeline was not found, last position='" + previousPosition +"'", e);
+                    previousPosition = TimelinePosition.EMPTY;
                 }
-                previousPosition = syncTracker.getPreviousPosition();
-            } catch (ConnectionException e) {
-                if (e.getStatusCode() != StatusCode.NOT_FOUND) {
-                    throw e;
+            }
+        }
+
+        private List<AActivity> fetchPage(TimelinePosition previousPosition) throws ConnectionException {
+            int limit = execContext.getMyAccount().getConnection().fixedDownloadLimit(
+                    toDownload, getTimeline().getTimelineType().getConnectionApiRoutine());
+            switch (getTimeline().getTimelineType()) {
+                case SEARCH:
+                    return execContext.getMyAccount().getConnection().searchNotes(
+                            isSyncYounger() ? previousPosition : TimelinePosition.EMPTY,
+                            isSyncYounger() ? TimelinePosition.EMPTY : previousPosition,
+                            limit, getTimeline().getSearchQuery());
+                default:
+                    return execContext.getMyAccount().getConnection().getTimeline(
+                            getTimeline().getTimelineType().getConnectionApiRoutine(),
+                            isSyncYounger() ? previousPosition : TimelinePosition.EMPTY,
+                            isSyncYounger() ? TimelinePosition.EMPTY : previousPosition,
+                            limit, actorOid);
+            }
+        }
+
+        /** The end of pages is put even if the fetcher was stopped, so the loop of the persist stage ends */
+        private void putPage(Page page) {
+            while (!stopped) {
+                try {
+                    if (pages.offer(page, 1, TimeUnit.SECONDS)) return;
+                } catch (InterruptedException e) {
+                    MyLog.v(TimelineDownloaderOther.this, "Interrupted while waiting to put the last page");
                 }
-                if (previousPosition.isEmpty()) {
-                    throw ConnectionException.hardConnectionException("No last position", e);
+            }
+        }
+
+        Page takePage() {
+            try {
+                return pages.take();
+            } catch (InterruptedException e) {
+                stopped = true;
+                Thread.currentThread().interrupt();
+                return Page.END;
+            }
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        void awaitTermination(ExecutorService executor) {
+            try {
+                if (!executor.awaitTermination(FETCHER_TERMINATION_SECONDS, TimeUnit.SECONDS)) {
+                    MyLog.w(TimelineDownloaderOther.this, "Fetcher didn't terminate in "
+                            + FETCHER_TERMINATION_SECONDS + " seconds");
                 }
-                MyLog.d(this, "The timeline was not found, last position='" + previousPosition +"'", e);
-                previousPosition = TimelinePosition.EMPTY;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
-        di.saveLum();
+
+        void rethrowException() throws ConnectionException {
+            if (connectionException != null) throw connectionException;
+            if (runtimeException != null) throw runtimeException;
+        }
     }
 
     @NonNull
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.timeline;
+
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * Counts frames, which were skipped while a list was scrolled. To be used in the UI thread only
+ * @author yvolk@yurivolkov.com
+ */
+class FrameDropCounter implements Choreographer.FrameCallback {
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+    private final long frameIntervalNanos;
+    private boolean counting = false;
+    private long lastFrameNanos = 0;
+    private long frames = 0;
+    private long dropped = 0;
+
+    FrameDropCounter(Context context) {
+        frameIntervalNanos = Math.round(1_000_000_000d / getRefreshRate(context));
+    }
+
+    private static float getRefreshRate(Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager != null) {
+            Display display = windowManager.getDefaultDisplay();
+            if (display != null && display.getRefreshRate() >= 1) {
+                return display.getRefreshRate();
+            }
+        }
+        return DEFAULT_REFRESH_RATE;
+    }
+
+    void start() {
+        if (counting) return;
+        counting = true;
+        lastFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        if (!counting) return;
+        counting = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!counting) return;
+        if (lastFrameNanos > 0) {
+            long skipped = (frameTimeNanos - lastFrameNanos + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+            if (skipped > 0) {
+                dropped += skipped;
+            }
+        }
+        frames++;
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public String toString() {
+        return "frames: " + frames + ", dropped: " + dropped
+                + (frames + dropped > 0 ? " (" + (dropped * 100 / (frames + dropped)) + "%)" : "");
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.timeline;
+
+import android.content.Context;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.widget.AbsListView;
+
+import org.andstatus.app.context.MyPreferences;
+import org.andstatus.app.data.ImageFile;
+import org.andstatus.app.graphics.CacheName;
+import org.andstatus.app.util.MyLog;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads images of the items, which will be shown soon, while a list is being scrolled:
+ * up to {@link #ITEMS_AHEAD} items beyond the visible ones in the direction of scrolling.
+ * Nearer items are loaded first. Queued loads are cancelled, when the direction changes.
+ * Scroll callbacks are expected in the UI thread
+ * @author yvolk@yurivolkov.com
+ */
+public class ImagePrefetcher {
+    static final int ITEMS_AHEAD = 10;
+    private static final int QUEUE_SIZE_MAX = 40;
+    private static final int THREADS = 2;
+    private static volatile ThreadPoolExecutor executor = null;
+
+    private final boolean showAvatars = MyPreferences.getShowAvatars();
+    private final boolean showAttachedImages = MyPreferences.getDownloadAndDisplayAttachedImages();
+    private final FrameDropCounter frameDropCounter;
+    /** Paths, which are queued or being loaded */
+    private final Set<String> pathsInProgress = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long generation = 0;
+    private int firstVisiblePrev = -1;
+    private boolean forwardPrev = true;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ImagePrefetcher(Context context) {
+        frameDropCounter = new FrameDropCounter(context);
+    }
+
+    public void onScrollStateChanged(int scrollState) {
+        if (scrollState == AbsListView.OnScrollListener.SCROLL_STATE_IDLE) {
+            frameDropCounter.stop();
+            if (MyLog.isVerboseEnabled()) {
+                MyLog.v(this, toString());
+            }
+        } else {
+            frameDropCounter.start();
+        }
+    }
+
+    /** @param firstVisible Position of the first visible item in the listData */
+    public void onScroll(@NonNull TimelineData<?> listData, int firstVisible, int visibleCount) {
+        if (firstVisible < 0 || visibleCount <= 0 || firstVisible == firstVisiblePrev) {
+            return;
+        }
+        boolean forward = firstVisiblePrev < 0 || firstVisible > firstVisiblePrev;
+        if (firstVisiblePrev >= 0 && forward != forwardPrev) {
+            cancel();
+        }
+        firstVisiblePrev = firstVisible;
+        forwardPrev = forward;
+        int size = listData.size();
+        for (int distance = 1; distance <= ITEMS_AHEAD; distance++) {
+            int position = forward ? firstVisible + visibleCount - 1 + distance : firstVisible - distance;
+            if (position < 0 || position >= size) {
+                break;
+            }
+            for (ImageFile imageFile : listData.getItem(position).getImageFiles()) {
+                if (isShown(imageFile) && imageFile.isToPrefetch()) {
+                    enqueue(imageFile, distance);
+                }
+            }
+        }
+    }
+
+    private boolean isShown(ImageFile imageFile) {
+        return !imageFile.isEmpty()
+                && (imageFile.getCacheName() == CacheName.AVATAR ? showAvatars : showAttachedImages);
+    }
+
+    private void enqueue(ImageFile imageFile, int distance) {
+        String path = imageFile.getFilePath();
+        if (!pathsInProgress.add(path)) {
+            return;
+        }
+        ThreadPoolExecutor executor = getExecutor();
+        if (executor.getQueue().size() >= QUEUE_SIZE_MAX) {
+            pathsInProgress.remove(path);
+            dropped.incrementAndGet();
+            return;
+        }
+        requested.incrementAndGet();
+        executor.execute(new PrefetchTask(imageFile, distance));
+    }
+
+    /** Cancels queued loads of this prefetcher */
+    public void cancel() {
+        generation++;
+        ThreadPoolExecutor executor = ImagePrefetcher.executor;
+        if (executor != null) {
+            executor.getQueue().removeIf(runnable -> runnable instanceof PrefetchTask
+                    && ((PrefetchTask) runnable).cancelIfOf(this));
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(THREADS, THREADS, 10, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(() -> {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }, ImagePrefetcher.class.getSimpleName());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            newExecutor.allowCoreThreadTimeOut(true);
+            executor = newExecutor;
+        }
+        return executor;
+    }
+
+    @Override
+    public String toString() {
+        return ImagePrefetcher.class.getSimpleName() + "{requested: " + requested.get()
+                + ", loaded: " + loaded.get() + ", failed: " + failed.get()
+                + ", cancelled: " + cancelled.get() + ", dropped: " + dropped.get()
+                + "; " + frameDropCounter + "}";
+    }
+
+    /** Ordered by the distance from the visible items, then by the time of the request */
+    private class PrefetchTask implements Runnable, Comparable<PrefetchTask> {
+        private final ImageFile imageFile;
+        private final int distance;
+        private final long sequenceNumber = sequence.incrementAndGet();
+        private final long taskGeneration = generation;
+
+        PrefetchTask(ImageFile imageFile, int distance) {
+            this.imageFile = imageFile;
+            this.distance = distance;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (taskGeneration != generation) {
+                    cancelled.incrementAndGet();
+                } else if (imageFile.prefetch(this)) {
+                    loaded.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+            } finally {
+                pathsInProgress.remove(imageFile.getFilePath());
+            }
+        }
+
+        boolean cancelIfOf(ImagePrefetcher prefetcher) {
+            if (prefetcher != ImagePrefetcher.this) {
+                return false;
+            }
+            pathsInProgress.remove(imageFile.getFilePath());
+            cancelled.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public int compareTo(@NonNull PrefetchTask other) {
+            return distance == other.distance
+                    ? Long.compare(sequenceNumber, other.sequenceNumber)
+                    : Integer.compare(distance, other.distance);
+        }
+    }
+}
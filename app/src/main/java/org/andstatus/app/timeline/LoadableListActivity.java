@@ -334,6 +334,15 @@ public abstract class LoadableListActivity<T extends ViewItem<T>> extends MyBase
     }
 
     public void updateList(TriState collapseDuplicates, long itemId, boolean newAdapter) {
+        updateList(() -> {
+            if (!TriState.UNKNOWN.equals(collapseDuplicates)) {
+                getListData().collapseDuplicates(collapseDuplicates.toBoolean(true), itemId);
+            }
+        }, newAdapter);
+    }
+
+    /** The first visible item keeps its position on the screen, if it is still in the list after the data change */
+    protected void updateList(@NonNull Runnable dataChange, boolean newAdapter) {
         final String method = "updateList";
         BaseTimelineAdapter adapter = getListAdapter();
         ListView list = getListView();
@@ -346,9 +355,7 @@ public abstract class LoadableListActivity<T extends ViewItem<T>> extends MyBase
             y = getYOfPosition(list, adapter, firstVisibleAdapterPosition);
         }
 
-        if (!TriState.UNKNOWN.equals(collapseDuplicates)) {
-            getListData().collapseDuplicates(collapseDuplicates.toBoolean(true), itemId);
-        }
+        dataChange.run();
 
         if (newAdapter) {
             adapter = newListAdapter();
@@ -61,6 +61,7 @@ import org.andstatus.app.note.NoteContextMenuContainer;
 import org.andstatus.app.note.NoteEditorListActivity;
 import org.andstatus.app.note.NoteViewItem;
 import org.andstatus.app.origin.Origin;
+import org.andstatus.app.os.MemoryTrimmer;
 import org.andstatus.app.service.CommandData;
 import org.andstatus.app.service.CommandEnum;
 import org.andstatus.app.service.MyServiceManager;
@@ -89,7 +90,7 @@ import java.util.Collections;
  * @author yvolk@yurivolkov.com
  */
 public class TimelineActivity<T extends ViewItem<T>> extends NoteEditorListActivity<T> implements
-        NoteContextMenuContainer, AbsListView.OnScrollListener {
+        NoteContextMenuContainer, AbsListView.OnScrollListener, MemoryTrimmer.Trimmable {
     public static final String HORIZONTAL_ELLIPSIS = "\u2026";
 
     /** Parameters for the next page request, not necessarily requested already */
@@ -109,6 +110,7 @@ public class TimelineActivity<T extends ViewItem<T>> extends NoteEditorListActiv
     ActionBarDrawerToggle mDrawerToggle;
 
     private volatile SelectorActivityMock selectorActivityMock;
+    private ImagePrefetcher imagePrefetcher;
     View syncYoungerView = null;
     View syncOlderView = null;
 
@@ -163,6 +165,8 @@ public class TimelineActivity<T extends ViewItem<T>> extends NoteEditorListActiv
         contextMenu = new ActivityContextMenu(this);
 
         initializeDrawer();
+        imagePrefetcher = new ImagePrefetcher(this);
+        MemoryTrimmer.register(this);
         getListView().setOnScrollListener(this);
 
         View view = findViewById(R.id.my_action_bar);
@@ -354,6 +358,9 @@ public class TimelineActivity<T extends ViewItem<T>> extends NoteEditorListActiv
                 && getNoteEditor().getData().body.startsWith("Crash me on pause 2015-04-10"));
         saveTimelinePosition();
         myContext.timelines().saveChanged();
+        if (imagePrefetcher != null) {
+            imagePrefetcher.cancel();
+        }
         super.onPause();
     }
 
@@ -512,14 +519,30 @@ public class TimelineActivity<T extends ViewItem<T>> extends NoteEditorListActiv
         }
     }
 
+    /** Pages, which are far from the visible position, are dropped under memory pressure */
+    @Override
+    public void onTrimMemory(int percentToKeep) {
+        if (percentToKeep >= MemoryTrimmer.PERCENT_TO_KEEP_ALL || isLoading() || isFinishing()) return;
+
+        int pagesToKeep = percentToKeep >= 50 ? 2 : 1;
+        if (getListData().pages.size() <= pagesToKeep) return;
+
+        int position = Math.max(0, getListView().getFirstVisiblePosition() - getListView().getHeaderViewsCount());
+        // The position on the screen is captured before the pages are removed
+        updateList(() -> getListData().trimPages(position, pagesToKeep), false);
+        MyLog.v(this, "Pages trimmed to " + getListData().pages.size());
+    }
+
     @Override
     public void onScrollStateChanged(AbsListView view, int scrollState) {
-        // Empty
+        imagePrefetcher.onScrollStateChanged(scrollState);
     }
 
     @Override
     public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
                          int totalItemCount) {
+        imagePrefetcher.onScroll(getListData(), firstVisibleItem - getListView().getHeaderViewsCount(),
+                visibleItemCount);
         boolean up = false;
         if (firstVisibleItem == 0) {
             View v = getListView().getChildAt(0);
@@ -55,6 +55,36 @@ public class TimelineData<T extends ViewItem<T>> {
         }
     }
 
+    /**
+     * Drops pages, which are the most distant from the position, so no more than pagesToKeep pages are left.
+     * Dropped pages are loaded again, when the list is scrolled to them
+     * @return true if any page was dropped
+     */
+    public boolean trimPages(int position, int pagesToKeep) {
+        int pageIndex = 0;
+        int firstPosition = 0;
+        for (TimelinePage<T> page : pages) {
+            firstPosition += page.items.size();
+            if (position < firstPosition) {
+                break;
+            }
+            pageIndex++;
+        }
+        pageIndex = Math.min(pageIndex, pages.size() - 1);
+        boolean trimmed = false;
+        while (pages.size() > Math.max(1, pagesToKeep)) {
+            if (pages.size() - 1 - pageIndex >= pageIndex) {
+                pages.remove(pages.size() - 1);
+            } else {
+                pages.remove(0);
+                pageIndex--;
+            }
+            trimmed = true;
+        }
+        return trimmed;
+    }
+
+    /** Pages are loaded by keyset bounds, exclusive of their neighbours' edges, so they don't overlap */
     private void addThisPage(TimelinePage<T> page) {
         switch (page.params.whichPage) {
             case YOUNGEST:
@@ -62,10 +92,13 @@ public class TimelineData<T extends ViewItem<T>> {
                     pages.clear();
                     pages.add(page);
                 } else {
-                    removeDuplicatesWithOlder(page, 1);
                     if (!pages.isEmpty()) {
                         pages.remove(0);
                     }
+                    if (!pages.isEmpty() && page.params.overlapsOlder(pages.get(0).params)) {
+                        MyLog.v(this, "Older pages removed as overlapping");
+                        pages.clear();
+                    }
                     pages.add(0, page);
                 }
                 break;
@@ -75,11 +108,9 @@ public class TimelineData<T extends ViewItem<T>> {
                 pages.add(page);
                 break;
             case OLDER:
-                removeDuplicatesWithYounger(page, pages.size() - 1);
                 pages.add(page);
                 break;
             case YOUNGER:
-                removeDuplicatesWithOlder(page, 0);
                 pages.add(0, page);
                 break;
             default:
@@ -97,8 +128,6 @@ public class TimelineData<T extends ViewItem<T>> {
                         }
                     }
                     if (found >= 0) {
-                        removeDuplicatesWithYounger(page, found - 1);
-                        removeDuplicatesWithOlder(page, found + 1);
                         pages.remove(found);
                         pages.add(found, page);
                     } else {
@@ -109,84 +138,6 @@ public class TimelineData<T extends ViewItem<T>> {
         }
     }
 
-    private void removeDuplicatesWithYounger(TimelinePage<T> page, int indExistingPage) {
-        if (indExistingPage < 0 || indExistingPage >= pages.size()
-                || pages.get(indExistingPage).items.isEmpty() || page.items.isEmpty()) {
-            return;
-        }
-        TimelinePage<T> ePage = pages.get(indExistingPage);
-        if (ePage.params.maxDate > 0 && page.params.maxDate >= ePage.params.maxDate) {
-            MyLog.v(this, "Previous younger page removed");
-            pages.remove(indExistingPage);
-            return;
-        }
-        long edgeDate = ePage.params.minDateLoaded;
-        List<T> toRemove = new ArrayList<>();
-        for (int ind = 0; ind < page.items.size(); ind++) {
-            T item = page.items.get(ind);
-            if (item.getDate() < edgeDate) {
-                break;
-            } else if (item.getDate() > edgeDate) {
-                MyLog.e(this, "This page has an item younger than on a younger page: " + item);
-                toRemove.add(item);
-            } else {
-                for (int eInd = ePage.items.size() - 1; eInd >= 0; eInd--) {
-                    T eItem = ePage.items.get(eInd);
-                    if (eItem.getDate() > item.getDate()) {
-                        break;
-                    }
-                    if (eItem.getId() == item.getId()) {
-                        mergeWithExisting(item, eItem);
-                        toRemove.add(item);
-                        break;
-                    }
-                }
-            }
-        }
-        page.items.removeAll(toRemove);
-    }
-
-    private void mergeWithExisting(T newItem, T existingItem) {
-        // TODO: Merge something...
-    }
-
-    private void removeDuplicatesWithOlder(TimelinePage<T> page, int indExistingPage) {
-        if (indExistingPage < 0 || indExistingPage >= pages.size()
-                || pages.get(indExistingPage).items.isEmpty() || page.items.isEmpty()) {
-            return;
-        }
-        TimelinePage<T> ePage = pages.get(indExistingPage);
-        if (page.params.minDate <= ePage.params.minDate) {
-            MyLog.v(this, "Previous older page removed");
-            pages.remove(indExistingPage);
-            return;
-        }
-        long edgeDate = ePage.params.maxDateLoaded;
-        List<T> toRemove = new ArrayList<>();
-        for (int ind = page.items.size() - 1; ind >= 0; ind--) {
-            T item = page.items.get(ind);
-            if (item.getDate() > edgeDate) {
-                break;
-            } else if (item.getDate() < edgeDate) {
-                MyLog.e(this, "This page has an item older than on an older page: " + item);
-                toRemove.add(item);
-            } else {
-                for (int eInd = 0; eInd < ePage.items.size(); eInd++) {
-                    T eItem = ePage.items.get(eInd);
-                    if (eItem.getDate() < item.getDate()) {
-                        break;
-                    }
-                    if (eItem.getId() == item.getId()) {
-                        mergeWithExisting(item, eItem);
-                        toRemove.add(item);
-                        break;
-                    }
-                }
-            }
-        }
-        page.items.removeAll(toRemove);
-    }
-
     // See http://stackoverflow.com/questions/300522/count-vs-length-vs-size-in-a-collection
     public int size() {
         int count = 0;
@@ -20,6 +20,7 @@ import android.database.Cursor;
 import android.support.annotation.NonNull;
 
 import org.andstatus.app.data.DbUtils;
+import org.andstatus.app.database.table.ActivityTable;
 import org.andstatus.app.list.SyncLoader;
 import org.andstatus.app.util.I18n;
 import org.andstatus.app.util.MyLog;
@@ -106,7 +107,8 @@ public class TimelineLoader<T extends ViewItem<T>> extends SyncLoader<T> {
                         rowsCount++;
                         T item = (T) page.getEmptyItem().fromCursor(cursor);
                         long rowFromCursorTime = rowStopWatch.getTime() - rowMoveTime;
-                        getParams().rememberItemDateLoaded(item.getDate());
+                        getParams().rememberItemDateLoaded(item.getDate(),
+                                DbUtils.getLong(cursor, ActivityTable.ACTIVITY_ID));
                         items.add(item);
                         if (MyLog.isVerboseEnabled()) {
                             MyLog.v(this, method + "; row " + rowsCount + ", id:" + item.getId()
@@ -119,6 +121,13 @@ public class TimelineLoader<T extends ViewItem<T>> extends SyncLoader<T> {
                 cursor.close();
             }
         }
+        if (!items.isEmpty()) {
+            final StopWatch pageStopWatch = StopWatch.createStarted();
+            page.getEmptyItem().loadForPage(getParams().getMyContext(), items);
+            if (MyLog.isDebugEnabled()) {
+                MyLog.d(this, method + "; page data loaded, " + pageStopWatch.getTime() + "ms");
+            }
+        }
         getParams().rowsLoaded = rowsCount;
         if (MyLog.isDebugEnabled()) {
             MyLog.d(this, method + " ended; " + rowsCount + " rows, " + stopWatch.getTime() + "ms" );
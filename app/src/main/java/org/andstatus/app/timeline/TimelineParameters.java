@@ -53,9 +53,13 @@ public class TimelineParameters {
     private Set<String> mProjection;
 
     long maxDate = 0;
+    /** With the {@link #maxDate} it makes an exclusive upper bound of a page, 0 if the bound is inclusive */
+    long maxActivityId = 0;
 
     // These params are updated just before page loading
     volatile long minDate = 0;
+    /** With the {@link #minDate} it makes an exclusive lower bound of a page, 0 if the bound is inclusive */
+    volatile long minActivityId = 0;
     volatile SelectionAndArgs selectionAndArgs = new SelectionAndArgs();
     volatile String sortOrderAndLimit = "";
 
@@ -63,7 +67,9 @@ public class TimelineParameters {
     volatile boolean isLoaded = false;
     volatile int rowsLoaded = 0;
     volatile long minDateLoaded = 0;
+    volatile long minActivityIdLoaded = 0;
     volatile long maxDateLoaded = 0;
+    volatile long maxActivityIdLoaded = 0;
 
     public static TimelineParameters clone(@NonNull TimelineParameters prev, WhichPage whichPage) {
         TimelineParameters params = new TimelineParameters(prev.myContext);
@@ -83,15 +89,19 @@ public class TimelineParameters {
             case OLDER:
                 if (prev.mayHaveOlderPage()) {
                     params.maxDate = prev.minDateLoaded;
+                    params.maxActivityId = prev.minActivityIdLoaded;
                 } else {
                     params.maxDate = prev.maxDate;
+                    params.maxActivityId = prev.maxActivityId;
                 }
                 break;
             case YOUNGER:
                 if (prev.mayHaveYoungerPage()) {
                     params.minDate = prev.maxDateLoaded;
+                    params.minActivityId = prev.maxActivityIdLoaded;
                 } else {
                     params.minDate = prev.minDate;
+                    params.minActivityId = prev.minActivityId;
                 }
                 break;
             default:
@@ -111,13 +121,13 @@ public class TimelineParameters {
 
     public boolean mayHaveYoungerPage() {
         return maxDate > 0
-                || (minDate > 0 && rowsLoaded > 0 && minDate < maxDateLoaded);
+                || (minDate > 0 && rowsLoaded > 0 && (minActivityId != 0 || minDate < maxDateLoaded));
     }
 
     public boolean mayHaveOlderPage() {
         return whichPage.equals(WhichPage.CURRENT)
                 || minDate > 0
-                || (maxDate > 0 && rowsLoaded > 0 && maxDate > minDateLoaded);
+                || (maxDate > 0 && rowsLoaded > 0 && (maxActivityId != 0 || maxDate > minDateLoaded));
     }
 
     public boolean isSortOrderAscending() {
@@ -144,7 +154,9 @@ public class TimelineParameters {
                 + (timeline.getActorId() == 0 ? "" : ", selectedActorId=" + timeline.getActorId())
             //    + ", projection=" + Arrays.toString(mProjection)
                 + (minDate > 0 ? ", minDate=" + MyLog.formatDateTime(minDate) : "")
+                + (minActivityId != 0 ? ", minActivityId=" + minActivityId : "")
                 + (maxDate > 0 ? ", maxDate=" + MyLog.formatDateTime(maxDate) : "")
+                + (maxActivityId != 0 ? ", maxActivityId=" + maxActivityId : "")
                 + (selectionAndArgs.isEmpty() ? "" : ", sa=" + selectionAndArgs)
                 + (TextUtils.isEmpty(sortOrderAndLimit) ? "" : ", sortOrder=" + sortOrderAndLimit)
                 + (isLoaded  ? ", loaded" : "")
@@ -186,9 +198,9 @@ public class TimelineParameters {
 
         if (!timeline.equals(that.timeline)) return false;
         if (!whichPage.equals(WhichPage.CURRENT) && !that.whichPage.equals(WhichPage.CURRENT)) {
-            if (minDate != that.minDate) return false;
+            if (minDate != that.minDate || minActivityId != that.minActivityId) return false;
         }
-        return maxDate == that.maxDate;
+        return maxDate == that.maxDate && maxActivityId == that.maxActivityId;
     }
 
     @Override
@@ -200,13 +212,16 @@ public class TimelineParameters {
             result = 31 * result + (int) (minDate ^ (minDate >>> 32));
         }
         result = 31 * result + (int) (maxDate ^ (maxDate >>> 32));
+        result = 31 * result + (int) (maxActivityId ^ (maxActivityId >>> 32));
         return result;
     }
 
     boolean restoreState(@NonNull Bundle savedState) {
         whichPage = WhichPage.CURRENT;
         minDate = 0;
+        minActivityId = 0;
         maxDate = 0;
+        maxActivityId = 0;
         return parseUri(Uri.parse(savedState.getString(IntentExtra.MATCHED_URI.key,"")), "");
     }
     
@@ -227,19 +242,33 @@ public class TimelineParameters {
         return timeline.getMyAccount();
     }
 
-    public void rememberItemDateLoaded(long date) {
-        if (minDateLoaded == 0 || minDateLoaded > date) {
+    /** Remembers edges of the loaded page by its sort key: the date and the activity id */
+    public void rememberItemDateLoaded(long date, long activityId) {
+        if (minDateLoaded == 0 || compareKeys(date, activityId, minDateLoaded, minActivityIdLoaded) < 0) {
             minDateLoaded = date;
+            minActivityIdLoaded = activityId;
         }
-        if (maxDateLoaded == 0 || maxDateLoaded < date) {
+        if (maxDateLoaded == 0 || compareKeys(date, activityId, maxDateLoaded, maxActivityIdLoaded) > 0) {
             maxDateLoaded = date;
+            maxActivityIdLoaded = activityId;
         }
     }
 
-    private void prepareQueryParameters() {
+    /** @return true if the loaded pages have items in common, this page being younger than the other one */
+    boolean overlapsOlder(@NonNull TimelineParameters older) {
+        return rowsLoaded > 0 && older.rowsLoaded > 0 && compareKeys(minDateLoaded, minActivityIdLoaded,
+                older.maxDateLoaded, older.maxActivityIdLoaded) <= 0;
+    }
+
+    private static int compareKeys(long date1, long activityId1, long date2, long activityId2) {
+        return date1 == date2 ? Long.compare(activityId1, activityId2) : Long.compare(date1, date2);
+    }
+
+    void prepareQueryParameters() {
         switch (whichPage) {
             case CURRENT:
                 minDate = (new TimelinePositionStorage<>( null, null, this)).getTLPosition().minSentDate;
+                minActivityId = 0;
                 break;
             default:
                 break;
@@ -253,13 +282,24 @@ public class TimelineParameters {
                 + (minDate > 0 && maxDate > 0 ? "" : " LIMIT " + PAGE_SIZE);
     }
 
+    /** Keyset bounds on the (date, activity id): the date term is the index seek, the other one cuts the edge */
     private SelectionAndArgs buildSelectionAndArgs() {
         SelectionAndArgs sa = new SelectionAndArgs();
-        sa.addSelection(ActivityTable.getTimeSortField(getTimelineType()) + " >= ?",
-                String.valueOf(minDate > 0 ? minDate : 1));
+        final String dateField = ActivityTable.getTimeSortField(getTimelineType());
+        final String idField = ActivityTable.getTimeSortIdField(getTimelineType());
+        final String strMinDate = String.valueOf(minDate > 0 ? minDate : 1);
+        sa.addSelection(dateField + " >= ?", strMinDate);
+        if (minDate > 0 && minActivityId != 0) {
+            sa.addSelection("(" + dateField + " > ? OR " + idField + " > ?)",
+                    new String[]{strMinDate, String.valueOf(minActivityId)});
+        }
         if (maxDate > 0) {
-            sa.addSelection(ActivityTable.getTimeSortField(getTimelineType()) + " <= ?",
-                    String.valueOf(maxDate));
+            final String strMaxDate = String.valueOf(maxDate);
+            sa.addSelection(dateField + " <= ?", strMaxDate);
+            if (maxActivityId != 0) {
+                sa.addSelection("(" + dateField + " < ? OR " + idField + " < ?)",
+                        new String[]{strMaxDate, String.valueOf(maxActivityId)});
+            }
         }
         return sa;
     }
@@ -20,10 +20,12 @@ import android.database.Cursor;
 import android.support.annotation.NonNull;
 
 import org.andstatus.app.context.MyContext;
+import org.andstatus.app.data.ImageFile;
 import org.andstatus.app.timeline.meta.TimelineType;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public class ViewItem<T extends ViewItem<T>> {
@@ -73,6 +75,17 @@ public class ViewItem<T extends ViewItem<T>> {
         return getEmpty(TimelineType.UNKNOWN);
     }
 
+    /** Loads data, which is not in a cursor, for all items of a page at once, instead of querying it for each row */
+    public void loadForPage(@NonNull MyContext myContext, @NonNull List<T> items) {
+        // Nothing to load by default
+    }
+
+    /** Images, shown for this item. They are prefetched, while a list is being scrolled */
+    @NonNull
+    public Collection<ImageFile> getImageFiles() {
+        return Collections.emptyList();
+    }
+
     @NonNull
     public T getNew() {
         return getEmpty(TimelineType.UNKNOWN);
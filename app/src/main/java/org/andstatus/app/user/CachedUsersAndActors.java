@@ -2,6 +2,7 @@ package org.andstatus.app.user;
 
 import android.database.Cursor;
 import android.support.annotation.NonNull;
+import android.text.TextUtils;
 
 import org.andstatus.app.context.MyContext;
 import org.andstatus.app.data.MyQuery;
@@ -11,15 +12,20 @@ import org.andstatus.app.database.table.FriendshipTable;
 import org.andstatus.app.database.table.TimelineTable;
 import org.andstatus.app.database.table.UserTable;
 import org.andstatus.app.net.social.Actor;
+import org.andstatus.app.os.MemoryTrimmer;
 import org.andstatus.app.util.MyLog;
 import org.andstatus.app.util.TriState;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
-public class CachedUsersAndActors {
+public class CachedUsersAndActors implements MemoryTrimmer.Trimmable {
     private final MyContext myContext;
     public final Map<Long, User> users = new ConcurrentHashMap<>();
     public final Map<Long, Actor> actors = new ConcurrentHashMap<>();
@@ -28,7 +34,9 @@ public class CachedUsersAndActors {
     public final Map<Long, Long> friendsOfMyActors = new ConcurrentHashMap<>();
 
     public static CachedUsersAndActors newEmpty(MyContext myContext) {
-        return new CachedUsersAndActors(myContext);
+        CachedUsersAndActors cached = new CachedUsersAndActors(myContext);
+        MemoryTrimmer.register(cached);
+        return cached;
     }
 
     private CachedUsersAndActors(MyContext myContext) {
@@ -68,6 +76,13 @@ public class CachedUsersAndActors {
 
     private void initializeFriendsOfMyActors() {
         friendsOfMyActors.clear();
+        loadFriendsOfMyActors(myActors.keySet(), "");
+    }
+
+    /** @return Ids of the friends loaded */
+    private Set<Long> loadFriendsOfMyActors(Collection<Long> myActorIds, String friendIdCondition) {
+        if (myActorIds.isEmpty()) return Collections.emptySet();
+
         final String sql = "SELECT DISTINCT " + Actor.getActorAndUserSqlColumns()
                 + ", " + FriendshipTable.ACTOR_ID
                 + " FROM (" + Actor.getActorAndUserSqlTables() + ")"
@@ -75,16 +90,39 @@ public class CachedUsersAndActors {
                 + " ON " + FriendshipTable.FRIEND_ID + "=" + ActorTable.TABLE_NAME + "." + ActorTable._ID
                 + " AND " + FriendshipTable.FOLLOWED + "=1"
                 + " AND " + FriendshipTable.TABLE_NAME + "." + FriendshipTable.ACTOR_ID
-                + SqlActorIds.fromIds(myActors.keySet()).getSql();
+                + SqlActorIds.fromIds(myActorIds).getSql()
+                + (TextUtils.isEmpty(friendIdCondition) ? ""
+                    : " AND " + FriendshipTable.FRIEND_ID + friendIdCondition);
 
-        final Function<Cursor, Void> function = cursor -> {
+        final Function<Cursor, Long> function = cursor -> {
             long actorId = cursor.getLong(7);
             Actor friend = Actor.fromCursor(myContext, cursor);
             addIfAbsent(friend);
             friendsOfMyActors.put(friend.actorId, actorId);
-            return null;
+            return friend.actorId;
         };
-        MyQuery.get(myContext, sql, function);
+        return MyQuery.get(myContext, sql, function);
+    }
+
+    /**
+     * Friends of my actors are refreshed after friendships of the actors changed, without the full {@link #initialize()}
+     * @param actorIds Followers, whose friends changed. Actors, which are not mine, are ignored
+     */
+    public void onFriendsChanged(@NonNull Collection<Long> actorIds) {
+        Set<Long> myActorIds = actorIds.stream().filter(myActors::containsKey).collect(Collectors.toSet());
+        if (myActorIds.isEmpty()) return;
+
+        Set<Long> friendIds = loadFriendsOfMyActors(myActorIds, "");
+        Set<Long> removed = friendsOfMyActors.entrySet().stream()
+                .filter(entry -> myActorIds.contains(entry.getValue()) && !friendIds.contains(entry.getKey()))
+                .map(Map.Entry::getKey).collect(Collectors.toSet());
+        if (removed.isEmpty()) return;
+
+        removed.forEach(friendsOfMyActors::remove);
+        // Some of them may still be friends of my other actors
+        Set<Long> otherActorIds = new HashSet<>(myActors.keySet());
+        otherActorIds.removeAll(myActorIds);
+        loadFriendsOfMyActors(otherActorIds, SqlActorIds.fromIds(removed).getSql());
     }
 
     private void loadTimelineActors() {
@@ -98,6 +136,18 @@ public class CachedUsersAndActors {
         MyQuery.get(myContext, sql, function);
     }
 
+    /** Actors, which are not mine and not my friends, are reloaded from the database, when needed again */
+    @Override
+    public void onTrimMemory(int percentToKeep) {
+        if (percentToKeep >= MemoryTrimmer.PERCENT_TO_KEEP_ALL) return;
+
+        int sizeBefore = actors.size();
+        actors.keySet().removeIf(actorId -> !myActors.containsKey(actorId) && !friendsOfMyActors.containsKey(actorId));
+        users.values().removeIf(user -> !myUsers.containsKey(user.userId)
+                && user.actorIds.stream().noneMatch(actors::containsKey));
+        MyLog.v(this, "Trimmed actors: " + sizeBefore + " -> " + actors.size());
+    }
+
     public boolean containsMe(@NonNull Collection<Actor> actors) {
         return actors.stream().anyMatch(actor -> myActors.keySet().contains(actor.actorId));
     }
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2018 yvolk (Yuri Volkov), http://yurivolkov.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.andstatus.app.util;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import net.jcip.annotations.GuardedBy;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends lines to the current log file (see {@link MyLog#getLogFilename()}) on a background thread,
+ * so logging threads don't wait for the file system. Lines are passed through a bounded lock-free queue,
+ * and are dropped (and counted) when the queue is full. The file is kept open, it is flushed on size or time,
+ * and the next log file is started, when the file grows too large
+ * @author yvolk@yurivolkov.com
+ */
+class LogFileAppender {
+    private static final String TAG = LogFileAppender.class.getSimpleName();
+    static final int MAX_QUEUED_LINES = 4096;
+    private static final int WAKE_UP_QUEUED_LINES = 256;
+    static final int FLUSH_BYTES = 16 * 1024;
+    static final long FLUSH_INTERVAL_MS = 1000;
+    static final long MAX_FILE_BYTES = 8 * 1024 * 1024;
+
+    private static final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger queued = new AtomicInteger();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong droppedTotal = new AtomicLong();
+
+    private static final Object threadLock = new Object();
+    private static volatile Thread writerThread = null;
+
+    private static final Object writeLock = new Object();
+    /** Name of the open file. Producers write synchronously to a new file, so it exists right away */
+    private static volatile String openedFileName = null;
+    @GuardedBy("writeLock")
+    private static File file = null;
+    @GuardedBy("writeLock")
+    private static Writer writer = null;
+    @GuardedBy("writeLock")
+    private static long fileBytes = 0;
+    @GuardedBy("writeLock")
+    private static long unflushedBytes = 0;
+    @GuardedBy("writeLock")
+    private static long flushedAt = 0;
+
+    private LogFileAppender() {
+        // Empty
+    }
+
+    static void append(@NonNull String fileName, @NonNull String line) {
+        if (queued.incrementAndGet() > MAX_QUEUED_LINES) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.add(line);
+        if (!fileName.equals(openedFileName)) {
+            flush();
+            return;
+        }
+        Thread thread = ensureWriterThread();
+        if (queued.get() >= WAKE_UP_QUEUED_LINES) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private static Thread ensureWriterThread() {
+        Thread thread = writerThread;
+        if (thread == null) {
+            synchronized (threadLock) {
+                thread = writerThread;
+                if (thread == null) {
+                    thread = new Thread(LogFileAppender::run, TAG);
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    thread.start();
+                    writerThread = thread;
+                }
+            }
+        }
+        return thread;
+    }
+
+    private static void run() {
+        while (true) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS));
+            try {
+                write(false);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to write to the log file", e);
+            }
+        }
+    }
+
+    /** Writes all queued lines and flushes the file */
+    static void flush() {
+        write(true);
+    }
+
+    /** Writes queued lines and closes the file, so it may be read or deleted */
+    static void close() {
+        synchronized (writeLock) {
+            write(true);
+            closeFile();
+        }
+    }
+
+    static long getDroppedCount() {
+        return droppedTotal.get();
+    }
+
+    private static void write(boolean forceFlush) {
+        synchronized (writeLock) {
+            String fileName = MyLog.getLogFilename();
+            if (fileName == null) {
+                discardQueued();
+                closeFile();
+                return;
+            }
+            long now = System.currentTimeMillis();
+            boolean checkFile = forceFlush || now - flushedAt >= FLUSH_INTERVAL_MS;
+            if (checkFile && fileName.equals(openedFileName) && !file.exists()) {
+                // The file was deleted while it was open, so we start the next one
+                MyLog.setNextLogFileName();
+                fileName = MyLog.getLogFilename();
+                closeFile();
+            }
+            if (!fileName.equals(openedFileName)) {
+                fileName = reopen(fileName);
+                if (fileName == null) {
+                    discardQueued();
+                    return;
+                }
+            }
+            try {
+                long droppedNow = dropped.getAndSet(0);
+                if (droppedNow > 0) {
+                    droppedTotal.addAndGet(droppedNow);
+                    writeLine(MyLog.currentDateTimeForLogLine() + " W/" + TAG + ": " + droppedNow
+                            + " lines were dropped, too many lines to log\n");
+                }
+                String line;
+                while ((line = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    writeLine(line);
+                }
+                if (forceFlush || checkFile || unflushedBytes >= FLUSH_BYTES) {
+                    writer.flush();
+                    unflushedBytes = 0;
+                    flushedAt = now;
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to write to " + fileName, e);
+                closeFile();
+                return;
+            }
+            if (fileBytes >= MAX_FILE_BYTES) {
+                MyLog.setNextLogFileName();
+                reopen(MyLog.getLogFilename());
+            }
+        }
+    }
+
+    @GuardedBy("writeLock")
+    private static void writeLine(String line) throws IOException {
+        writer.write(line);
+        fileBytes += line.length();
+        unflushedBytes += line.length();
+    }
+
+    /** @return name of the opened file or null if failed */
+    @GuardedBy("writeLock")
+    private static String reopen(String fileName) {
+        closeFile();
+        if (fileName == null) return null;
+
+        File newFile = MyLog.getFileInLogDir(fileName, false);
+        if (newFile == null) return null;
+        try {
+            FileChannel channel = new FileOutputStream(newFile, true).getChannel();
+            fileBytes = channel.size();
+            writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+            file = newFile;
+            unflushedBytes = 0;
+            flushedAt = System.currentTimeMillis();
+            openedFileName = fileName;
+            return fileName;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to open " + newFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    @GuardedBy("writeLock")
+    private static void closeFile() {
+        openedFileName = null;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close " + file, e);
+            }
+            writer = null;
+        }
+    }
+
+    private static void discardQueued() {
+        while (queue.poll() != null) {
+            queued.decrementAndGet();
+        }
+    }
+}
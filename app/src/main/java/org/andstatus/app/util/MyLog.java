@@ -493,6 +493,7 @@ public class MyLog {
             synchronized (logFileLock) {
                 logFileName = null;
             }
+            LogFileAppender.close();
         }
     }
 
@@ -511,9 +512,10 @@ public class MyLog {
         }
     }
     
-    private static Object logFileWriterLock = new Object();
+    /** The line is written asynchronously, see {@link LogFileAppender} */
     static void logToFile(int logLevel, String tag, String msg, Throwable tr) {
-        if(!isLogToFileEnabled()) {
+        String fileName = getLogFilename();
+        if (fileName == null) {
             return;
         }
         StringBuilder builder = new StringBuilder();
@@ -534,25 +536,12 @@ public class MyLog {
             builder.append(getStackTrace(tr));
         }
         builder.append("\n");
-        writeRawStringToLogFile(builder);
+        LogFileAppender.append(fileName, builder.toString());
     }
 
-    private static void writeRawStringToLogFile(StringBuilder builder)
-    {
-        synchronized (logFileWriterLock)
-        {
-            writeStringToFile(builder.toString(), getMostRecentLogFileName(),
-                              true, false);
-        }
-    }
-    
-    private static String getMostRecentLogFileName() {
-        String filename = getLogFilename();
-        if (!FileUtils.exists(getFileInLogDir(filename, false))) {
-            setNextLogFileName(true);
-            filename = getLogFilename();
-        }
-        return filename;
+    /** Writes all lines, logged so far, to the log file */
+    public static void flushLogFile() {
+        LogFileAppender.flush();
     }
     
     public static String getLogFilename() {
@@ -576,9 +565,15 @@ public class MyLog {
         }
     }
 
+    private static final ThreadLocal<SimpleDateFormat> logDateFormat = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        }
+    };
+
     public static String currentDateTimeForLogLine() {
-        final SimpleDateFormat logDateFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
-        return logDateFormat.format(new Date(System.currentTimeMillis()));
+        return logDateFormat.get().format(new Date(System.currentTimeMillis()));
     }
 
     public static String currentDateTimeFormatted() {
@@ -102,23 +102,24 @@ public class MyUrlSpan extends URLSpan {
         if (TextUtils.isEmpty(text)) {
             textView.setText("");
             ViewUtils.showView(textView, showIfEmpty);
+        } else {
+            showSpanned(textView, toSpanned(text, linkify), linkify, showIfEmpty);
+        }
+    }
+
+    /** @param spanned Prepared by {@link #toSpanned(String, boolean)} */
+    public static void showSpanned(TextView textView, Spanned spanned, boolean linkify, boolean showIfEmpty) {
+        if (textView == null) return;
+        if (TextUtils.isEmpty(spanned)) {
+            textView.setText("");
+            ViewUtils.showView(textView, showIfEmpty);
         } else {
             if (linkify) {
                 textView.setFocusable(true);
                 textView.setFocusableInTouchMode(true);
                 textView.setLinksClickable(true);
             }
-            // Android 6 bug, see https://github.com/andstatus/andstatus/issues/334
-            // Setting setMovementMethod to not null causes a crash if text is SOFT_HYPHEN only:
-            if (text.contains(SOFT_HYPHEN)) {
-                text = text.replace(SOFT_HYPHEN, "-");
-            }
-            Spanned spanned = MyHtml.hasHtmlMarkup(text) ? Html.fromHtml(text) : new SpannableString(text);
             textView.setText(spanned);
-            if (linkify && !hasUrlSpans(spanned)) {
-                Linkify.addLinks(textView, Linkify.WEB_URLS);
-            }
-            fixUrlSpans(textView);
             if (linkify) {
                 setOnTouchListener(textView);
             }
@@ -126,6 +127,25 @@ public class MyUrlSpan extends URLSpan {
         }
     }
 
+    /** Parses HTML of the text and finds links in it. Doesn't need the UI thread */
+    @NonNull
+    public static Spanned toSpanned(String text, boolean linkify) {
+        if (TextUtils.isEmpty(text)) return new SpannableString("");
+
+        // Android 6 bug, see https://github.com/andstatus/andstatus/issues/334
+        // Setting setMovementMethod to not null causes a crash if text is SOFT_HYPHEN only:
+        if (text.contains(SOFT_HYPHEN)) {
+            text = text.replace(SOFT_HYPHEN, "-");
+        }
+        SpannableString spannable = SpannableString.valueOf(
+                MyHtml.hasHtmlMarkup(text) ? Html.fromHtml(text) : new SpannableString(text));
+        if (linkify && !hasUrlSpans(spannable)) {
+            Linkify.addLinks(spannable, Linkify.WEB_URLS);
+        }
+        fixUrlSpans(spannable);
+        return spannable;
+    }
+
     /**
      * Substitute for: textView.setMovementMethod(LinkMovementMethod.getInstance());
      * setMovementMethod intercepts click on a text part without links,
@@ -201,10 +221,7 @@ public class MyUrlSpan extends URLSpan {
         return has;
     }
 
-    private static void fixUrlSpans(TextView textView) {
-        CharSequence text = textView.getText();
-        SpannableString spannable = SpannableString.class.isAssignableFrom(text.getClass())
-                ? (SpannableString) text : SpannableString.valueOf(text);
+    private static void fixUrlSpans(Spannable spannable) {
         URLSpan[] spans = spannable.getSpans(0, spannable.length(), URLSpan.class);
         for (URLSpan span : spans) {
             int start = spannable.getSpanStart(span);
@@ -212,7 +229,6 @@ public class MyUrlSpan extends URLSpan {
             spannable.removeSpan(span);
             spannable.setSpan(new MyUrlSpan(span.getURL()), start, end, 0);
         }
-        textView.setText(spannable);
     }
 
     public static URLSpan[] getUrlSpans(View view) {